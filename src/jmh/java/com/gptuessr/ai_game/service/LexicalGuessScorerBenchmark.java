@@ -0,0 +1,84 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Guess;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of scoring one round of guesses against a prepared prompt, with the production synonym
+ * list. Guesses mix paraphrases, partial matches and unrelated texts of typical length.
+ * A parallel threshold above the round size scores the round on the calling thread.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class LexicalGuessScorerBenchmark {
+
+    private static final String PROMPT = "a small dog running on a sunny beach next to the ocean waves";
+
+    private static final String[] WORDS = {
+        "dog", "puppy", "hound", "running", "runs", "beach", "seaside", "shore", "sunny", "sun",
+        "ocean", "sea", "waves", "water", "sand", "small", "little", "cat", "piano", "mountain",
+        "city", "night", "red", "car", "the", "a", "on", "with", "near", "by"
+    };
+
+    @Param({"10000"})
+    int guesses;
+
+    @Param({"256", "2147483647"})
+    int parallelThreshold;
+
+    private LexicalGuessScorer scorer;
+
+    private GuessScorer.PreparedPrompt prompt;
+
+    private List<Guess> round;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scorer = new LexicalGuessScorer();
+        ReflectionTestUtils.setField(scorer, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(scorer, "synonymsLocation", "classpath:scoring/synonyms.txt");
+        ReflectionTestUtils.setField(scorer, "maxPoints", 100);
+        ReflectionTestUtils.setField(scorer, "timeBonusPoints", 20);
+        ReflectionTestUtils.setField(scorer, "timeBonusMinAccuracy", 0.3);
+        ReflectionTestUtils.setField(scorer, "wordWeight", 0.7);
+        ReflectionTestUtils.setField(scorer, "parallelThreshold", parallelThreshold);
+        scorer.init();
+        prompt = scorer.prepare(PROMPT);
+
+        Random random = new Random(42);
+        round = new ArrayList<>(guesses);
+        for (int i = 0; i < guesses; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = 3 + random.nextInt(10);
+            for (int w = 0; w < length; w++) {
+                if (w > 0) {
+                    text.append(' ');
+                }
+                text.append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            round.add(new Guess("player" + i, text.toString(), random.nextInt(30_000)));
+        }
+    }
+
+    @Benchmark
+    public List<Guess> scoreRound() {
+        scorer.scoreRound(prompt, round, 30_000);
+        return round;
+    }
+}
@@ -0,0 +1,164 @@
+package com.gptuessr.ai_game.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the round deadline wheel for scheduling, cancelling and firing a batch of deadlines,
+ * and of one tick with the batch pending. The wheel is driven through advance() on the benchmark thread
+ * instead of its ticker, with the production tick of 100 ms and 512 buckets.
+ * Deadlines are spread over 5 to 90 seconds, the range of round time limits and the prompt timeout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RoundDeadlineSchedulerBenchmark {
+
+    private static final Runnable NO_OP = () -> { };
+
+    @State(Scope.Thread)
+    public static class Wheel {
+
+        @Param({"10000", "100000"})
+        int deadlines;
+
+        Duration[] delays;
+
+        RoundDeadlineScheduler scheduler;
+
+        RoundDeadlineScheduler.Deadline[] handles;
+
+        @Setup(Level.Trial)
+        public void prepareDelays() {
+            Random random = new Random(42);
+            delays = new Duration[deadlines];
+            for (int i = 0; i < deadlines; i++) {
+                delays[i] = Duration.ofMillis(5_000 + random.nextInt(85_000));
+            }
+            handles = new RoundDeadlineScheduler.Deadline[deadlines];
+        }
+
+        void reset() {
+            scheduler = new RoundDeadlineScheduler();
+            ReflectionTestUtils.setField(scheduler, "tickMs", 100L);
+            ReflectionTestUtils.setField(scheduler, "wheelSize", 512);
+            scheduler.buildWheel();
+        }
+
+        void scheduleAll(Duration extra) {
+            for (int i = 0; i < deadlines; i++) {
+                handles[i] = scheduler.schedule(delays[i].plus(extra), NO_OP);
+            }
+        }
+    }
+
+    /**
+     * An empty wheel for every invocation
+     */
+    @State(Scope.Thread)
+    public static class EmptyWheel extends Wheel {
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            reset();
+        }
+    }
+
+    /**
+     * A wheel holding all deadlines in their buckets for every invocation
+     */
+    @State(Scope.Thread)
+    public static class LoadedWheel extends Wheel {
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            reset();
+            scheduleAll(Duration.ZERO);
+            scheduler.advance();
+        }
+    }
+
+    /**
+     * All deadlines already due, not yet moved into the wheel, for every invocation
+     */
+    @State(Scope.Thread)
+    public static class DueWheel extends Wheel {
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            reset();
+            for (int i = 0; i < deadlines; i++) {
+                scheduler.schedule(Duration.ZERO, NO_OP);
+            }
+        }
+    }
+
+    /**
+     * A wheel with all deadlines pending for the whole iteration. The benchmark ticks far faster
+     * than the wall clock, so the deadlines are pushed a month out to stay pending.
+     */
+    @State(Scope.Thread)
+    public static class PendingWheel extends Wheel {
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            reset();
+            scheduleAll(Duration.ofDays(30));
+            scheduler.advance();
+        }
+    }
+
+    /**
+     * Schedule all deadlines and move them into their buckets
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public RoundDeadlineScheduler schedule(EmptyWheel wheel) {
+        wheel.scheduleAll(Duration.ZERO);
+        wheel.scheduler.advance();
+        return wheel.scheduler;
+    }
+
+    /**
+     * Cancel all deadlines and unlink them from their buckets
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public RoundDeadlineScheduler cancel(LoadedWheel wheel) {
+        for (RoundDeadlineScheduler.Deadline handle : wheel.handles) {
+            handle.cancel();
+        }
+        wheel.scheduler.advance();
+        return wheel.scheduler;
+    }
+
+    /**
+     * Move all due deadlines into the wheel and fire them
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public RoundDeadlineScheduler fire(DueWheel wheel) {
+        wheel.scheduler.advance();
+        return wheel.scheduler;
+    }
+
+    /**
+     * One tick with all deadlines pending, ageing the deadlines of one bucket
+     */
+    @Benchmark
+    public RoundDeadlineScheduler tick(PendingWheel wheel) {
+        wheel.scheduler.advance();
+        return wheel.scheduler;
+    }
+}
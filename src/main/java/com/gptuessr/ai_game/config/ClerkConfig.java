@@ -1,8 +1,12 @@
 package com.gptuessr.ai_game.config;
 
+import com.gptuessr.ai_game.util.ClerkAuthUtils;
+import com.gptuessr.ai_game.util.ClerkClaims;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -10,6 +14,7 @@ import org.springframework.web.servlet.HandlerInterceptor;
 
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import java.util.List;
 
 @Configuration
 public class ClerkConfig implements WebMvcConfigurer {
@@ -22,6 +27,9 @@ public class ClerkConfig implements WebMvcConfigurer {
     @Value("${clerk.allowed.origins}")
     private String allowedOrigins;
    
+    @Autowired
+    private ClerkAuthUtils authUtils;
+   
     @Override
     public void addCorsMappings(CorsRegistry registry) {
         registry.addMapping("/api/**")
@@ -45,6 +53,12 @@ public class ClerkConfig implements WebMvcConfigurer {
                 );
     }
    
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        // Inject the principal resolved by the interceptor into @CurrentUser parameters
+        resolvers.add(new CurrentUserArgumentResolver());
+    }
+   
     @Bean
     public HandlerInterceptor clerkAuthInterceptor() {
         return new HandlerInterceptor() {
@@ -63,13 +77,19 @@ public class ClerkConfig implements WebMvcConfigurer {
                 // Extract the JWT token
                 String token = authHeader.substring(7);
                
-                // In a real implementation, you would verify the JWT token with Clerk's API
-                // This is a simplified version that just checks if a token is present
-                // For production, you should use Clerk's SDK or validate with their API
+                // Verify the token once and reject the request before any controller work
+                ClerkClaims principal;
+                try {
+                    principal = authUtils.verifyToken(token);
+                } catch (IllegalArgumentException e) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    response.getWriter().write("Unauthorized: " + e.getMessage());
+                    return false;
+                }
                
-                // Add user info to request attributes for use in controllers
-                // You might decode the JWT to get user information
-                request.setAttribute("clerkToken", token);
+                // Add the token and resolved principal to request attributes for use in controllers
+                request.setAttribute(ClerkAuthUtils.TOKEN_ATTRIBUTE, token);
+                request.setAttribute(ClerkAuthUtils.PRINCIPAL_ATTRIBUTE, principal);
                
                 return true;
             }
@@ -0,0 +1,239 @@
+package com.gptuessr.ai_game.config;
+
+import com.gptuessr.ai_game.entity.Game;
+import com.gptuessr.ai_game.entity.Lobby;
+import com.gptuessr.ai_game.entity.User;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import org.bson.Document;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the indexes backing the repository queries and verifies them before the
+ * application starts serving requests. @Indexed annotations are only applied when automatic
+ * index creation is enabled, which it is not, so every index is declared here.
+ * Indexes left behind by automatic index creation cover the same keys under another name,
+ * which MongoDB refuses to create again, so they are replaced by the named ones. Once the
+ * indexes exist, the hot repository queries are explained and a collection scan is reported.
+ */
+@Configuration
+public class MongoIndexConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MongoIndexConfig.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${lobby.closed-ttl-hours:24}")
+    private long closedLobbyTtlHours;
+
+    @PostConstruct
+    public void ensureIndexes() {
+        ensure(Lobby.class, List.of(
+            new Index().on("lobbyCode", Sort.Direction.ASC).unique().named("lobbyCode_unique"),
+            new Index().on("hostId", Sort.Direction.ASC).named("hostId"),
+            // Multikey index, one entry per player in the array
+            new Index().on("playerIds", Sort.Direction.ASC).named("playerIds"),
+            new Index().on("status", Sort.Direction.ASC).on("createdAt", Sort.Direction.ASC).named("status_createdAt"),
+            new Index().on("status", Sort.Direction.ASC).on("startedAt", Sort.Direction.ASC).named("status_startedAt"),
+            // Closed lobbies are removed by MongoDB once the TTL has passed
+            new Index().on("closedAt", Sort.Direction.ASC)
+                .expire(Duration.ofHours(closedLobbyTtlHours))
+                .partial(PartialIndexFilter.of(Criteria.where("status").is(Lobby.GameStatus.CLOSED.name())))
+                .named("closedAt_ttl")
+        ));
+
+        ensure(User.class, List.of(
+            new Index().on("clerkUserId", Sort.Direction.ASC).unique().sparse().named("clerkUserId_unique"),
+            new Index().on("username", Sort.Direction.ASC).unique().sparse().named("username_unique"),
+            new Index().on("email", Sort.Direction.ASC).named("email")
+        ));
+
+        ensure(Game.class, List.of(
+            new Index().on("lobbyId", Sort.Direction.ASC).named("lobbyId"),
+            new Index().on("status", Sort.Direction.ASC).named("status")
+        ));
+
+        checkQueryPlan(Lobby.class, new Document("lobbyCode", "AAAAAA"));
+        checkQueryPlan(Lobby.class, new Document("playerIds", "user"));
+        checkQueryPlan(Lobby.class, new Document("hostId", "user"));
+        checkQueryPlan(Lobby.class, new Document("status", Lobby.GameStatus.WAITING.name()));
+        checkQueryPlan(User.class, new Document("clerkUserId", "user"));
+        checkQueryPlan(User.class, new Document("username", "user"));
+        checkQueryPlan(Game.class, new Document("lobbyId", "lobby"));
+    }
+
+    /**
+     * Create the indexes of a collection and check that all of them exist afterwards
+     * @param entityClass The document class
+     * @param indexes The indexes to create
+     * @throws IllegalStateException if an index is missing after creation
+     */
+    private void ensure(Class<?> entityClass, List<Index> indexes) {
+        IndexOperations indexOps = mongoTemplate.indexOps(entityClass);
+        List<IndexInfo> before = new ArrayList<>(indexOps.getIndexInfo());
+        for (Index index : indexes) {
+            dropConflicting(indexOps, before, index, mongoTemplate.getCollectionName(entityClass));
+            indexOps.ensureIndex(index);
+        }
+
+        Set<String> existing = indexOps.getIndexInfo().stream()
+            .map(IndexInfo::getName)
+            .collect(Collectors.toSet());
+        for (Index index : indexes) {
+            String name = index.getIndexOptions().getString("name");
+            if (!existing.contains(name)) {
+                throw new IllegalStateException("Index " + name + " missing on " + mongoTemplate.getCollectionName(entityClass));
+            }
+        }
+
+        logger.info("Verified {} indexes on {}", indexes.size(), mongoTemplate.getCollectionName(entityClass));
+    }
+
+    /**
+     * Drop an existing index on the same keys as a declared index whose name or options
+     * (unique, sparse, TTL, partial filter) differ, e.g. one named by automatic index creation,
+     * since creating the declared index would fail with IndexOptionsConflict
+     * @param indexOps The index operations of the collection
+     * @param existing The remaining indexes of the collection, dropped ones are removed
+     * @param index The declared index
+     * @param collection The collection name for logging
+     */
+    private static void dropConflicting(IndexOperations indexOps, List<IndexInfo> existing, Index index, String collection) {
+        Document options = index.getIndexOptions();
+        List<String> keys = keysOf(index);
+        Iterator<IndexInfo> iterator = existing.iterator();
+        while (iterator.hasNext()) {
+            IndexInfo info = iterator.next();
+            boolean sameKeys = keysOf(info).equals(keys);
+            boolean sameName = info.getName().equals(options.getString("name"));
+            if (!sameKeys && !sameName) {
+                continue;
+            }
+            boolean sameOptions = sameKeys && sameName
+                && info.isUnique() == options.getBoolean("unique", false)
+                && info.isSparse() == options.getBoolean("sparse", false)
+                && Objects.equals(info.getExpireAfter().map(Duration::getSeconds).orElse(null),
+                    options.get("expireAfterSeconds") == null ? null : ((Number) options.get("expireAfterSeconds")).longValue())
+                && samePartialFilter(info, options);
+            if (!sameOptions) {
+                logger.warn("Replacing index {} on {} with {}", info.getName(), collection, options.getString("name"));
+                indexOps.dropIndex(info.getName());
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Compare the partial filter of an existing index with the declared one
+     * @param info The existing index
+     * @param options The options of the declared index
+     * @return true if both have no partial filter or the same one
+     */
+    private static boolean samePartialFilter(IndexInfo info, Document options) {
+        String existing = info.getPartialFilterExpression();
+        Document declared = options.get("partialFilterExpression", Document.class);
+        if (existing == null || declared == null) {
+            return existing == null && declared == null;
+        }
+        return Document.parse(existing).equals(declared);
+    }
+
+    /**
+     * Run the explain command for a query and warn if MongoDB would scan the whole collection
+     * @param entityClass The document class
+     * @param filter A query filter the repositories run with other values
+     */
+    private void checkQueryPlan(Class<?> entityClass, Document filter) {
+        String collection = mongoTemplate.getCollectionName(entityClass);
+        try {
+            Document explain = mongoTemplate.getDb().runCommand(new Document("explain",
+                new Document("find", collection).append("filter", filter))
+                .append("verbosity", "queryPlanner"));
+            List<String> stages = planStages(explain);
+            if (stages.contains("COLLSCAN") || !stages.contains("IXSCAN")) {
+                logger.warn("Query {} on {} is not served by an index, plan stages {}", filter.toJson(), collection, stages);
+            } else {
+                logger.debug("Query {} on {} uses plan stages {}", filter.toJson(), collection, stages);
+            }
+        } catch (Exception e) {
+            logger.warn("Could not explain query {} on {}: {}", filter.toJson(), collection, e.getMessage());
+        }
+    }
+
+    /**
+     * Collect the stages of the winning plan of an explain result, with the index names of
+     * index scans. Handles both the classic and the slot-based engine output.
+     * @param explain The explain command result
+     * @return The stage names, and "IXSCAN:name" for every index scan
+     */
+    static List<String> planStages(Document explain) {
+        List<String> stages = new ArrayList<>();
+        Document queryPlanner = explain.get("queryPlanner", Document.class);
+        if (queryPlanner == null) {
+            return stages;
+        }
+        Document winningPlan = queryPlanner.get("winningPlan", Document.class);
+        if (winningPlan != null && winningPlan.containsKey("queryPlan")) {
+            winningPlan = winningPlan.get("queryPlan", Document.class);
+        }
+        collectStages(winningPlan, stages);
+        return stages;
+    }
+
+    private static void collectStages(Document stage, List<String> stages) {
+        if (stage == null) {
+            return;
+        }
+        String name = stage.getString("stage");
+        if (name != null) {
+            stages.add(name);
+            if ("IXSCAN".equals(name) && stage.getString("indexName") != null) {
+                stages.add("IXSCAN:" + stage.getString("indexName"));
+            }
+        }
+        collectStages(stage.get("inputStage", Document.class), stages);
+        for (Object input : stage.getList("inputStages", Object.class, List.of())) {
+            if (input instanceof Document document) {
+                collectStages(document, stages);
+            }
+        }
+    }
+
+    private static List<String> keysOf(Index index) {
+        List<String> keys = new ArrayList<>();
+        for (Map.Entry<String, Object> key : index.getIndexKeys().entrySet()) {
+            keys.add(key.getKey() + ":" + (((Number) key.getValue()).intValue() < 0 ? "DESC" : "ASC"));
+        }
+        return keys;
+    }
+
+    private static List<String> keysOf(IndexInfo info) {
+        List<String> keys = new ArrayList<>();
+        for (IndexField field : info.getIndexFields()) {
+            keys.add(field.getKey() + ":" + field.getDirection());
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,48 @@
+package com.gptuessr.ai_game.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public operation of the lobby, user and game services and the token verification.
+ * Each call is recorded in the "service.operations" timer, tagged with the class, the method
+ * and the outcome: success, rejected (IllegalArgumentException, i.e. a refused request)
+ * or error. Percentile histograms are enabled in application.properties.
+ */
+@Aspect
+@Component
+public class OperationMetricsAspect {
+
+    public static final String OPERATION_TIMER = "service.operations";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Around("execution(public * com.gptuessr.ai_game.service.LobbyService.*(..))"
+            + " || execution(public * com.gptuessr.ai_game.service.UserService.*(..))"
+            + " || execution(public * com.gptuessr.ai_game.service.GameService.*(..))"
+            + " || execution(public * com.gptuessr.ai_game.util.ClerkAuthUtils.verifyToken(..))")
+    public Object timeOperation(ProceedingJoinPoint joinPoint) throws Throwable {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try {
+            Object result = joinPoint.proceed();
+            outcome = "success";
+            return result;
+        } catch (IllegalArgumentException e) {
+            outcome = "rejected";
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(OPERATION_TIMER)
+                .tag("class", joinPoint.getSignature().getDeclaringType().getSimpleName())
+                .tag("method", joinPoint.getSignature().getName())
+                .tag("outcome", outcome)
+                .register(meterRegistry));
+        }
+    }
+}
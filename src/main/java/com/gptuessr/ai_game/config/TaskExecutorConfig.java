@@ -0,0 +1,31 @@
+package com.gptuessr.ai_game.config;
+
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+/**
+ * Declares the shared application task executor.
+ * Spring Boot only creates it when the context has no other Executor bean, and the STOMP
+ * broker configuration registers several, so without this bean there would be none.
+ * Like Boot's own bean it runs every task on a new virtual thread when
+ * spring.threads.virtual.enabled is on and uses a thread pool otherwise.
+ */
+@Configuration
+public class TaskExecutorConfig {
+
+    @Bean(name = TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    public AsyncTaskExecutor applicationTaskExecutor(Environment environment,
+                                                     SimpleAsyncTaskExecutorBuilder simpleBuilder,
+                                                     ThreadPoolTaskExecutorBuilder poolBuilder) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return simpleBuilder.build();
+        }
+        return poolBuilder.build();
+    }
+}
@@ -1,21 +1,24 @@
 package com.gptuessr.ai_game.controller;
 
+import com.gptuessr.ai_game.util.ClerkResponseCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.client.HttpClientErrorException;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Controller to handle Clerk token verification
+ * Calls go through the shared ClerkApiClient; when Clerk is slow or unavailable
+ * the endpoints answer 503 right away instead of holding the request open.
+ * Answers are briefly cached per token, so repeated calls from the frontend stay local.
  */
 @RestController
 @RequestMapping("/api/clerk")
@@ -23,13 +26,8 @@ public class ClerkApiController {
 
     private static final Logger logger = LoggerFactory.getLogger(ClerkApiController.class);
     
-    @Value("${clerk.api.key}")
-    private String clerkApiKey;
-    
-    @Value("${clerk.api.url:https://api.clerk.dev/v1}")
-    private String clerkApiUrl;
-    
-    private final RestTemplate restTemplate = new RestTemplate();
+    @Autowired
+    private ClerkResponseCache clerkResponseCache;
     
     /**
      * Verify a JWT token from Clerk
@@ -40,32 +38,14 @@ public class ClerkApiController {
     @GetMapping("/verify")
     public ResponseEntity<?> verifyToken(@RequestParam String token) {
         try {
-            // Prepare the verification endpoint URL
-            String url = clerkApiUrl + "/tokens/verify";
-            
-            // Prepare headers and payload
-            Map<String, String> headers = new HashMap<>();
-            headers.put("Authorization", "Bearer " + clerkApiKey);
-            headers.put("Content-Type", "application/json");
-            
-            Map<String, String> payload = new HashMap<>();
-            payload.put("token", token);
-            
-            // Make the request to Clerk API
-            ResponseEntity<Map> response = restTemplate.postForEntity(
-                url, 
-                payload, 
-                Map.class,
-                headers
-            );
-            
-            // Return the verification result
-            if (response.getStatusCode().is2xxSuccessful()) {
-                return ResponseEntity.ok(response.getBody());
-            } else {
-                return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
-            }
-            
+            return ResponseEntity.ok(clerkResponseCache.verifyToken(token));
+        } catch (HttpClientErrorException e) {
+            // Clerk rejected the token; pass its answer on
+            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsString());
+        } catch (IllegalStateException e) {
+            logger.warn("Clerk unavailable while verifying token: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "Token verification temporarily unavailable"));
         } catch (Exception e) {
             logger.error("Error verifying token", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -91,22 +71,18 @@ public class ClerkApiController {
             // Extract user ID from verified token
             @SuppressWarnings("unchecked")
             Map<String, Object> verificationData = (Map<String, Object>) verificationResponse.getBody();
+            @SuppressWarnings("unchecked")
             String userId = (String) ((Map<String, Object>) verificationData.get("payload")).get("sub");
             
             // Call Clerk API to get user details
-            String url = clerkApiUrl + "/users/" + userId;
-            
-            Map<String, String> headers = new HashMap<>();
-            headers.put("Authorization", "Bearer " + clerkApiKey);
-            
-            ResponseEntity<Map> response = restTemplate.getForEntity(
-                url,
-                Map.class,
-                headers
-            );
-            
-            return ResponseEntity.ok(response.getBody());
+            return ResponseEntity.ok(clerkResponseCache.getUser(token, userId));
             
+        } catch (HttpClientErrorException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsString());
+        } catch (IllegalStateException e) {
+            logger.warn("Clerk unavailable while getting user info: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of("error", "User info temporarily unavailable"));
         } catch (Exception e) {
             logger.error("Error getting user info", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
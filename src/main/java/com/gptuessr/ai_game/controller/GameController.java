@@ -0,0 +1,101 @@
+package com.gptuessr.ai_game.controller;
+
+import com.gptuessr.ai_game.dto.GameStateDTO;
+import com.gptuessr.ai_game.dto.SubmitGuessDTO;
+import com.gptuessr.ai_game.dto.SubmitPromptDTO;
+import com.gptuessr.ai_game.service.GameService;
+import com.gptuessr.ai_game.util.ClerkClaims;
+import com.gptuessr.ai_game.util.CurrentUser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import jakarta.validation.Valid;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/games")
+@CrossOrigin(origins = "http://localhost:3000", allowedHeaders = "*", methods = {
+    RequestMethod.GET, RequestMethod.POST, RequestMethod.PUT, RequestMethod.DELETE, RequestMethod.OPTIONS
+}, allowCredentials = "true")
+@Validated
+public class GameController {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameController.class);
+    
+    @Autowired
+    private GameService gameService;
+    
+    /**
+     * Get the state of the game in a lobby
+     * @param lobbyCode The lobby code
+     * @return ResponseEntity with the game state
+     */
+    @GetMapping("/{lobbyCode}")
+    public ResponseEntity<?> getGameState(@PathVariable String lobbyCode) {
+        try {
+            GameStateDTO state = gameService.getGameState(lobbyCode);
+            return ResponseEntity.ok(state);
+        
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Unexpected error fetching game state", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error fetching game: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Submit the prompt for the current round
+     * @param lobbyCode The lobby code
+     * @param submitPromptDTO DTO containing the prompt
+     * @param principal The authenticated user
+     * @return ResponseEntity with the game state
+     */
+    @PostMapping("/{lobbyCode}/prompt")
+    public ResponseEntity<?> submitPrompt(@PathVariable String lobbyCode, @Valid @RequestBody SubmitPromptDTO submitPromptDTO,
+                                          @CurrentUser ClerkClaims principal) {
+        try {
+            GameStateDTO state = gameService.submitPrompt(lobbyCode, principal.getUserId(),
+                submitPromptDTO.getPromptText(), submitPromptDTO.getImageUrl());
+            return ResponseEntity.ok(state);
+        
+        } catch (IllegalArgumentException e) {
+            logger.warn("Error submitting prompt: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Unexpected error submitting prompt", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error submitting prompt: " + e.getMessage()));
+        }
+    }
+    
+    /**
+     * Submit a guess for the current round
+     * @param lobbyCode The lobby code
+     * @param submitGuessDTO DTO containing the guess
+     * @param principal The authenticated user
+     * @return ResponseEntity with the number of guesses received so far
+     */
+    @PostMapping("/{lobbyCode}/guess")
+    public ResponseEntity<?> submitGuess(@PathVariable String lobbyCode, @Valid @RequestBody SubmitGuessDTO submitGuessDTO,
+                                         @CurrentUser ClerkClaims principal) {
+        try {
+            int guesses = gameService.submitGuess(lobbyCode, principal.getUserId(), submitGuessDTO.getGuessText());
+            return ResponseEntity.ok(Map.of("guessesReceived", guesses));
+        
+        } catch (IllegalArgumentException e) {
+            logger.debug("Rejected guess: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            logger.error("Unexpected error submitting guess", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(Map.of("error", "Error submitting guess: " + e.getMessage()));
+        }
+    }
+}
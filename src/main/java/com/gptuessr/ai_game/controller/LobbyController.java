@@ -2,10 +2,11 @@ package com.gptuessr.ai_game.controller;
 
 import com.gptuessr.ai_game.dto.*;
 import com.gptuessr.ai_game.entity.Lobby;
-import com.gptuessr.ai_game.entity.User;
+import com.gptuessr.ai_game.service.GameService;
 import com.gptuessr.ai_game.service.LobbyService;
 import com.gptuessr.ai_game.service.UserService;
-import com.gptuessr.ai_game.util.ClerkAuthUtils;
+import com.gptuessr.ai_game.util.ClerkClaims;
+import com.gptuessr.ai_game.util.CurrentUser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,7 +15,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import java.util.HashMap;
 import java.util.List;
@@ -36,22 +36,22 @@ public class LobbyController {
     private LobbyService lobbyService;
     
     @Autowired
-    private UserService userService;
+    private GameService gameService;
     
     @Autowired
-    private ClerkAuthUtils authUtils;
+    private UserService userService;
     
     /**
      * Create a new game lobby
      * @param createLobbyDTO DTO containing lobby creation data
-     * @param request HttpServletRequest for authentication
+     * @param principal The authenticated user
      * @return ResponseEntity with created lobby
      */
     @PostMapping("/create")
-    public ResponseEntity<?> createLobby(@Valid @RequestBody CreateLobbyDTO createLobbyDTO, HttpServletRequest request) {
+    public ResponseEntity<?> createLobby(@Valid @RequestBody CreateLobbyDTO createLobbyDTO, @CurrentUser ClerkClaims principal) {
         try {
-            // Extract user ID from authentication token
-            String hostId = authUtils.getUserIdFromToken(request);
+            // The authenticated user becomes the host
+            String hostId = principal.getUserId();
             
             // Create lobby using service
             Lobby newLobby = lobbyService.createLobby(
@@ -68,17 +68,17 @@ public class LobbyController {
             lobbyDTO.setPlayerInLobby(true);
             
             // Fetch user info for response
-            Map<String, Map<String, Object>> userInfoMap = getUserInfoForLobby(newLobby);
+            Map<String, PlayerProfileDTO> profiles = getPlayerProfilesForLobby(newLobby);
             
             // Create response DTO
-            LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, userInfoMap, hostId);
+            LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, profiles, hostId);
             responseDTO.setPrivate(createLobbyDTO.getIsPrivate());
             responseDTO.setDifficulty(createLobbyDTO.getDifficulty());
             
             return ResponseEntity.status(HttpStatus.CREATED).body(responseDTO);
             
         } catch (IllegalArgumentException e) {
-            logger.error("Error creating lobby", e);
+            logger.warn("Error creating lobby: {}", e.getMessage());
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             logger.error("Unexpected error creating lobby", e);
@@ -90,14 +90,14 @@ public class LobbyController {
     /**
      * Get lobby by code
      * @param lobbyCode The lobby code
-     * @param request HttpServletRequest for authentication
+     * @param principal The authenticated user
      * @return ResponseEntity with lobby data
      */
     @GetMapping("/{lobbyCode}")
-    public ResponseEntity<?> getLobbyByCode(@PathVariable String lobbyCode, HttpServletRequest request) {
+    public ResponseEntity<?> getLobbyByCode(@PathVariable String lobbyCode, @CurrentUser ClerkClaims principal) {
         try {
             // Get current user ID
-            String currentUserId = authUtils.getUserIdFromToken(request);
+            String currentUserId = principal.getUserId();
             
             // Find lobby
             Optional<Lobby> optionalLobby = lobbyService.findByLobbyCode(lobbyCode);
@@ -114,17 +114,15 @@ public class LobbyController {
             lobbyDTO.setPlayerInLobby(lobby.getPlayerIds().contains(currentUserId));
             
             // Fetch user info for all players
-            Map<String, Map<String, Object>> userInfoMap = getUserInfoForLobby(lobby);
+            Map<String, PlayerProfileDTO> profiles = getPlayerProfilesForLobby(lobby);
             
             // Create response DTO
-            LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, userInfoMap, currentUserId);
-
-            System.out.println("LobbyController.getLobbyByCode: lobbyDTO = " + responseDTO);
+            LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, profiles, currentUserId);
             
             return ResponseEntity.ok(responseDTO);
             
         } catch (IllegalArgumentException e) {
-            logger.error("Error getting lobby", e);
+            logger.warn("Error getting lobby: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
@@ -136,13 +134,13 @@ public class LobbyController {
     
     /**
      * Get lobbies for the authenticated user (as host)
-     * @param request HttpServletRequest for authentication
+     * @param principal The authenticated user
      * @return ResponseEntity with list of lobbies
      */
     @GetMapping("/host")
-    public ResponseEntity<?> getHostLobbies(HttpServletRequest request) {
+    public ResponseEntity<?> getHostLobbies(@CurrentUser ClerkClaims principal) {
         try {
-            String hostId = authUtils.getUserIdFromToken(request);
+            String hostId = principal.getUserId();
             List<Lobby> lobbies = lobbyService.findLobbiesByHost(hostId);
             
             // Convert to DTO list
@@ -158,7 +156,7 @@ public class LobbyController {
             return ResponseEntity.ok(lobbyDTOs);
             
         } catch (IllegalArgumentException e) {
-            logger.error("Authentication error", e);
+            logger.warn("Authentication error: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                 .body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
@@ -170,13 +168,13 @@ public class LobbyController {
     
     /**
      * Get lobbies for the authenticated user (as player)
-     * @param request HttpServletRequest for authentication
+     * @param principal The authenticated user
      * @return ResponseEntity with list of lobbies
      */
     @GetMapping("/player")
-    public ResponseEntity<?> getPlayerLobbies(HttpServletRequest request) {
+    public ResponseEntity<?> getPlayerLobbies(@CurrentUser ClerkClaims principal) {
         try {
-            String playerId = authUtils.getUserIdFromToken(request);
+            String playerId = principal.getUserId();
             List<Lobby> lobbies = lobbyService.findLobbiesByPlayer(playerId);
             
             // Convert to DTO list
@@ -190,7 +188,7 @@ public class LobbyController {
                 .collect(Collectors.toList());
             
             return ResponseEntity.ok(lobbyDTOs);} catch (IllegalArgumentException e) {
-                logger.error("Authentication error", e);
+                logger.warn("Authentication error: {}", e.getMessage());
                 return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", e.getMessage()));
             } catch (Exception e) {
@@ -203,13 +201,13 @@ public class LobbyController {
         /**
          * Join a lobby
          * @param joinLobbyDTO DTO containing join data
-         * @param request HttpServletRequest for authentication
+         * @param principal The authenticated user
          * @return ResponseEntity with updated lobby
          */
         @PostMapping("/join")
-        public ResponseEntity<?> joinLobby(@Valid @RequestBody JoinLobbyDTO joinLobbyDTO, HttpServletRequest request) {
+        public ResponseEntity<?> joinLobby(@Valid @RequestBody JoinLobbyDTO joinLobbyDTO, @CurrentUser ClerkClaims principal) {
             try {
-                String playerId = authUtils.getUserIdFromToken(request);
+                String playerId = principal.getUserId();
                 String lobbyCode = joinLobbyDTO.getLobbyCode();
                 
                 Lobby updatedLobby = lobbyService.joinLobby(lobbyCode, playerId);
@@ -220,15 +218,15 @@ public class LobbyController {
                 lobbyDTO.setPlayerInLobby(true);
                 
                 // Fetch user info for all players
-                Map<String, Map<String, Object>> userInfoMap = getUserInfoForLobby(updatedLobby);
+                Map<String, PlayerProfileDTO> profiles = getPlayerProfilesForLobby(updatedLobby);
                 
                 // Create response DTO
-                LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, userInfoMap, playerId);
+                LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, profiles, playerId);
                 
                 return ResponseEntity.ok(responseDTO);
                 
             } catch (IllegalArgumentException e) {
-                logger.error("Error joining lobby", e);
+                logger.warn("Error joining lobby: {}", e.getMessage());
                 return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             } catch (Exception e) {
                 logger.error("Unexpected error joining lobby", e);
@@ -240,13 +238,13 @@ public class LobbyController {
         /**
          * Leave a lobby
          * @param leaveLobbyDTO DTO containing leave data
-         * @param request HttpServletRequest for authentication
+         * @param principal The authenticated user
          * @return ResponseEntity with status or updated lobby
          */
         @PostMapping("/leave")
-        public ResponseEntity<?> leaveLobby(@Valid @RequestBody JoinLobbyDTO leaveLobbyDTO, HttpServletRequest request) {
+        public ResponseEntity<?> leaveLobby(@Valid @RequestBody JoinLobbyDTO leaveLobbyDTO, @CurrentUser ClerkClaims principal) {
             try {
-                String playerId = authUtils.getUserIdFromToken(request);
+                String playerId = principal.getUserId();
                 String lobbyCode = leaveLobbyDTO.getLobbyCode();
                 
                 Lobby updatedLobby = lobbyService.leaveLobby(lobbyCode, playerId);
@@ -263,16 +261,16 @@ public class LobbyController {
                     lobbyDTO.setPlayerInLobby(false);
                     
                     // Fetch user info for all players
-                    Map<String, Map<String, Object>> userInfoMap = getUserInfoForLobby(updatedLobby);
+                    Map<String, PlayerProfileDTO> profiles = getPlayerProfilesForLobby(updatedLobby);
                     
                     // Create response DTO
-                    LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, userInfoMap, playerId);
+                    LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, profiles, playerId);
                     
                     return ResponseEntity.ok(responseDTO);
                 }
                 
             } catch (IllegalArgumentException e) {
-                logger.error("Error leaving lobby", e);
+                logger.warn("Error leaving lobby: {}", e.getMessage());
                 return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             } catch (Exception e) {
                 logger.error("Unexpected error leaving lobby", e);
@@ -284,16 +282,16 @@ public class LobbyController {
         /**
          * Start the game
          * @param startGameDTO DTO containing start data
-         * @param request HttpServletRequest for authentication
+         * @param principal The authenticated user
          * @return ResponseEntity with updated lobby
          */
         @PostMapping("/start")
-        public ResponseEntity<?> startGame(@Valid @RequestBody JoinLobbyDTO startGameDTO, HttpServletRequest request) {
+        public ResponseEntity<?> startGame(@Valid @RequestBody JoinLobbyDTO startGameDTO, @CurrentUser ClerkClaims principal) {
             try {
-                String hostId = authUtils.getUserIdFromToken(request);
+                String hostId = principal.getUserId();
                 String lobbyCode = startGameDTO.getLobbyCode();
                 
-                Lobby updatedLobby = lobbyService.startGame(lobbyCode, hostId);
+                Lobby updatedLobby = gameService.startGame(lobbyCode, hostId);
                 
                 // Convert to DTO
                 LobbyDTO lobbyDTO = new LobbyDTO(updatedLobby);
@@ -301,15 +299,15 @@ public class LobbyController {
                 lobbyDTO.setPlayerInLobby(true);
                 
                 // Fetch user info for all players
-                Map<String, Map<String, Object>> userInfoMap = getUserInfoForLobby(updatedLobby);
+                Map<String, PlayerProfileDTO> profiles = getPlayerProfilesForLobby(updatedLobby);
                 
                 // Create response DTO
-                LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, userInfoMap, hostId);
+                LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, profiles, hostId);
                 
                 return ResponseEntity.ok(responseDTO);
                 
             } catch (IllegalArgumentException e) {
-                logger.error("Error starting game", e);
+                logger.warn("Error starting game: {}", e.getMessage());
                 return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             } catch (Exception e) {
                 logger.error("Unexpected error starting game", e);
@@ -321,18 +319,18 @@ public class LobbyController {
         /**
          * End the game
          * @param endGameDTO DTO containing end data
-         * @param request HttpServletRequest for authentication
+         * @param principal The authenticated user
          * @return ResponseEntity with updated lobby
          */
         @PostMapping("/end")
-        public ResponseEntity<?> endGame(@Valid @RequestBody JoinLobbyDTO endGameDTO, HttpServletRequest request) {
+        public ResponseEntity<?> endGame(@Valid @RequestBody JoinLobbyDTO endGameDTO, @CurrentUser ClerkClaims principal) {
             try {
-                // Verify authentication (even though we don't use the user ID directly)
-                String userId = authUtils.getUserIdFromToken(request);
+                // User resolved by the authentication interceptor
+                String userId = principal.getUserId();
                 
                 String lobbyCode = endGameDTO.getLobbyCode();
                 
-                Lobby updatedLobby = lobbyService.endGame(lobbyCode);
+                Lobby updatedLobby = gameService.endGame(lobbyCode, userId);
                 
                 // Convert to DTO
                 LobbyDTO lobbyDTO = new LobbyDTO(updatedLobby);
@@ -340,15 +338,15 @@ public class LobbyController {
                 lobbyDTO.setPlayerInLobby(updatedLobby.getPlayerIds().contains(userId));
                 
                 // Fetch user info for all players
-                Map<String, Map<String, Object>> userInfoMap = getUserInfoForLobby(updatedLobby);
+                Map<String, PlayerProfileDTO> profiles = getPlayerProfilesForLobby(updatedLobby);
                 
                 // Create response DTO
-                LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, userInfoMap, userId);
+                LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, profiles, userId);
                 
                 return ResponseEntity.ok(responseDTO);
                 
             } catch (IllegalArgumentException e) {
-                logger.error("Error ending game", e);
+                logger.warn("Error ending game: {}", e.getMessage());
                 return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             } catch (Exception e) {
                 logger.error("Unexpected error ending game", e);
@@ -360,14 +358,14 @@ public class LobbyController {
         /**
          * Close a lobby
          * @param closeLobbyDTO DTO containing close data
-         * @param request HttpServletRequest for authentication
+         * @param principal The authenticated user
          * @return ResponseEntity with status
          */
         @PostMapping("/close")
-        public ResponseEntity<?> closeLobby(@Valid @RequestBody JoinLobbyDTO closeLobbyDTO, HttpServletRequest request) {
+        public ResponseEntity<?> closeLobby(@Valid @RequestBody JoinLobbyDTO closeLobbyDTO, @CurrentUser ClerkClaims principal) {
             try {
-                // Verify authentication
-                String userId = authUtils.getUserIdFromToken(request);
+                // User resolved by the authentication interceptor
+                String userId = principal.getUserId();
                 
                 String lobbyCode = closeLobbyDTO.getLobbyCode();
                 
@@ -392,7 +390,7 @@ public class LobbyController {
                 ));
                 
             } catch (IllegalArgumentException e) {
-                logger.error("Error closing lobby", e);
+                logger.warn("Error closing lobby: {}", e.getMessage());
                 return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             } catch (Exception e) {
                 logger.error("Unexpected error closing lobby", e);
@@ -405,16 +403,16 @@ public class LobbyController {
          * Update lobby settings
          * @param lobbyCode The lobby code
          * @param settingsDTO DTO containing updated settings
-         * @param request HttpServletRequest for authentication
+         * @param principal The authenticated user
          * @return ResponseEntity with updated lobby
          */
         @PutMapping("/{lobbyCode}/settings")
         public ResponseEntity<?> updateLobbySettings(
                 @PathVariable String lobbyCode, 
                 @Valid @RequestBody LobbySettingsDTO settingsDTO,
-                HttpServletRequest request) {
+                @CurrentUser ClerkClaims principal) {
             try {
-                String hostId = authUtils.getUserIdFromToken(request);
+                String hostId = principal.getUserId();
                 
                 Lobby updatedLobby = lobbyService.updateLobbySettings(
                     lobbyCode, 
@@ -431,10 +429,10 @@ public class LobbyController {
                 lobbyDTO.setPlayerInLobby(true);
                 
                 // Fetch user info for all players
-                Map<String, Map<String, Object>> userInfoMap = getUserInfoForLobby(updatedLobby);
+                Map<String, PlayerProfileDTO> profiles = getPlayerProfilesForLobby(updatedLobby);
                 
                 // Create response DTO
-                LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, userInfoMap, hostId);
+                LobbyResponseDTO responseDTO = LobbyResponseDTO.fromLobbyDTO(lobbyDTO, profiles, hostId);
                 
                 // Set additional properties if provided
                 if (settingsDTO.getIsPrivate() != null) {
@@ -448,7 +446,7 @@ public class LobbyController {
                 return ResponseEntity.ok(responseDTO);
                 
             } catch (IllegalArgumentException e) {
-                logger.error("Error updating lobby settings", e);
+                logger.warn("Error updating lobby settings: {}", e.getMessage());
                 return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
             } catch (Exception e) {
                 logger.error("Unexpected error updating lobby settings", e);
@@ -476,32 +474,16 @@ public class LobbyController {
         }
         
         /**
-         * Helper method to fetch user information for all players in a lobby
+         * Helper method to fetch the profiles of all players in a lobby with a single lookup
          * @param lobby The lobby
-         * @return Map of user IDs to user info maps
+         * @return Map of user IDs to player profiles
          */
-        private Map<String, Map<String, Object>> getUserInfoForLobby(Lobby lobby) {
-            Map<String, Map<String, Object>> userInfoMap = new HashMap<>();
-            
-            for (String playerId : lobby.getPlayerIds()) {
-                try {
-                    Optional<User> userOpt = userService.findByClerkUserId(playerId);
-                    if (userOpt.isPresent()) {
-                        User user = userOpt.get();
-                        
-                        Map<String, Object> userInfo = new HashMap<>();
-                        userInfo.put("id", user.getId());
-                        userInfo.put("username", user.getUsername());
-                        userInfo.put("displayName", user.getDisplayName() != null ? user.getDisplayName() : user.getUsername());
-                        userInfo.put("profilePicture", user.getProfilePicture());
-                        
-                        userInfoMap.put(playerId, userInfo);
-                    }
-                } catch (Exception e) {
-                    logger.warn("Error fetching user info for player {}: {}", playerId, e.getMessage());
-                }
+        private Map<String, PlayerProfileDTO> getPlayerProfilesForLobby(Lobby lobby) {
+            try {
+                return userService.findPlayerProfiles(lobby.getPlayerIds());
+            } catch (Exception e) {
+                logger.warn("Error fetching player profiles for lobby {}: {}", lobby.getLobbyCode(), e.getMessage());
+                return new HashMap<>();
             }
-            
-            return userInfoMap;
         }
     }
\ No newline at end of file
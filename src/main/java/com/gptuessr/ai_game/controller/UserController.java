@@ -1,11 +1,17 @@
 package com.gptuessr.ai_game.controller;
 
 import com.gptuessr.ai_game.entity.User;
+import com.gptuessr.ai_game.service.ClerkWebhookProcessor;
 import com.gptuessr.ai_game.service.UserService;
+import com.gptuessr.ai_game.util.ClerkClaims;
+import com.gptuessr.ai_game.util.CurrentUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -31,6 +37,12 @@ public class UserController {
     @Autowired
     private UserService userService;
     
+    @Autowired
+    private ClerkWebhookProcessor clerkWebhookProcessor;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
     @Value("${clerk.webhook.secret}")
     private String clerkWebhookSecret;
     
@@ -49,54 +61,46 @@ public class UserController {
             @RequestHeader("svix-signature") String svix_signature,
             @RequestBody String payload) {
         
-        logger.info("Received Clerk webhook: {}", svix_id);
+        logger.debug("Received Clerk webhook: {}", svix_id);
+        Timer.Sample sample = Timer.start(meterRegistry);
         
         // Verify webhook signature
         if (!verifyWebhookSignature(svix_id, svix_timestamp, svix_signature, payload)) {
             logger.warn("Invalid webhook signature");
+            recordWebhook(sample, "invalid_signature");
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("Invalid signature");
         }
         
-        try {
-            // Parse event type from payload
-            String eventType = extractEventType(payload);
-            String userId = extractUserId(payload);
-            
-            if (userId == null) {
-                logger.warn("No user ID found in payload");
+        // Apply the event in the background; Clerk only needs to know it was received
+        ClerkWebhookProcessor.EnqueueResult result = clerkWebhookProcessor.enqueue(svix_id, payload);
+        switch (result) {
+            case QUEUE_FULL:
+                logger.warn("Webhook queue full, asking Clerk to retry {}", svix_id);
+                recordWebhook(sample, "queue_full");
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "30")
+                    .body("Webhook queue full");
+            case DUPLICATE:
+                logger.debug("Ignoring redelivered webhook {}", svix_id);
+                recordWebhook(sample, "duplicate");
+                return ResponseEntity.ok().build();
+            default:
+                recordWebhook(sample, "accepted");
                 return ResponseEntity.ok().build();
-            }
-            
-            logger.info("Processing webhook event: {} for user: {}", eventType, userId);
-            
-            switch (eventType) {
-                case "user.created":
-                    handleUserCreated(payload);
-                    break;
-                case "user.updated":
-                    handleUserUpdated(payload);
-                    break;
-                case "user.deleted":
-                    handleUserDeleted(payload);
-                    break;
-                case "session.created":
-                    handleSessionCreated(payload);
-                    break;
-                case "session.ended":
-                    handleSessionEnded(payload);
-                    break;
-                default:
-                    logger.info("Unhandled webhook event: {}", eventType);
-            }
-            
-            return ResponseEntity.ok().build();
-            
-        } catch (Exception e) {
-            logger.error("Error processing webhook", e);
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error processing webhook");
         }
     }
     
+    /**
+     * Record the time taken to acknowledge a webhook call
+     * @param sample The timer sample started when the webhook arrived
+     * @param outcome accepted, duplicate, queue_full or invalid_signature
+     */
+    private void recordWebhook(Timer.Sample sample, String outcome) {
+        sample.stop(Timer.builder("clerk.webhook")
+            .tag("outcome", outcome)
+            .register(meterRegistry));
+    }
+    
     /**
      * API endpoint to manually register or update a user from Clerk
      * @param userData Map containing user data
@@ -204,121 +208,42 @@ public class UserController {
     }
     
     /**
-     * Get user information by Clerk user ID
-     * @param clerkUserId The unique user ID from Clerk
+     * Get the authenticated user
+     * @param principal The authenticated user
      * @return ResponseEntity with user data
      */
-    @GetMapping("/{clerkUserId}")
-    public ResponseEntity<?> getUserByClerkId(@PathVariable String clerkUserId) {
+    @GetMapping("/me")
+    public ResponseEntity<?> getCurrentUser(@CurrentUser ClerkClaims principal) {
         try {
-            Optional<User> user = userService.findByClerkUserId(clerkUserId);
+            Optional<User> user = userService.findByClerkUserId(principal.getUserId());
             if (user.isPresent()) {
                 return ResponseEntity.ok(user.get());
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
             }
         } catch (Exception e) {
-            logger.error("Error fetching user", e);
+            logger.error("Error fetching current user", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching user: " + e.getMessage());
         }
     }
     
     /**
-     * Handle user.created webhook event
-     * @param payload The webhook payload
-     */
-    private void handleUserCreated(String payload) {
-        try {
-            // Extract user data from payload
-            String clerkUserId = extractUserId(payload);
-            String username = extractUsername(payload);
-            String email = extractEmail(payload);
-            String firstName = extractFirstName(payload);
-            String lastName = extractLastName(payload);
-            String profilePicture = extractProfilePicture(payload);
-            Map<String, String> providerInfo = extractProviderInfo(payload);
-            
-            if (clerkUserId != null && username != null && email != null) {
-                userService.registerClerkUser(clerkUserId, username, email, firstName, lastName, profilePicture, providerInfo);
-            }
-        } catch (Exception e) {
-            logger.error("Error handling user.created webhook", e);
-        }
-    }
-    
-    /**
-     * Handle user.updated webhook event
-     * @param payload The webhook payload
-     */
-    private void handleUserUpdated(String payload) {
-        try {
-            String clerkUserId = extractUserId(payload);
-            
-            if (clerkUserId != null) {
-                Map<String, Object> userData = new HashMap<>();
-                
-                String username = extractUsername(payload);
-                if (username != null) userData.put("username", username);
-                
-                String email = extractEmail(payload);
-                if (email != null) userData.put("email", email);
-                
-                String firstName = extractFirstName(payload);
-                if (firstName != null) userData.put("firstName", firstName);
-                
-                String lastName = extractLastName(payload);
-                if (lastName != null) userData.put("lastName", lastName);
-                
-                String profilePicture = extractProfilePicture(payload);
-                if (profilePicture != null) userData.put("profilePicture", profilePicture);
-                
-                userService.updateUserInfo(clerkUserId, userData);
-            }
-        } catch (Exception e) {
-            logger.error("Error handling user.updated webhook", e);
-        }
-    }
-    
-    /**
-     * Handle user.deleted webhook event
-     * @param payload The webhook payload
-     */
-    private void handleUserDeleted(String payload) {
-        // Implement user deletion logic if needed
-        // For example, you might want to anonymize user data rather than delete it
-        logger.info("User deleted webhook received. Implement deletion logic if needed.");
-    }
-    
-    /**
-     * Handle session.created webhook event
-     * @param payload The webhook payload
-     */
-    private void handleSessionCreated(String payload) {
-        try {
-            String clerkUserId = extractUserId(payload);
-            String sessionId = extractSessionId(payload);
-            
-            if (clerkUserId != null && sessionId != null) {
-                userService.updateUserOnLogin(clerkUserId, sessionId);
-            }
-        } catch (Exception e) {
-            logger.error("Error handling session.created webhook", e);
-        }
-    }
-    
-    /**
-     * Handle session.ended webhook event
-     * @param payload The webhook payload
+     * Get user information by Clerk user ID
+     * @param clerkUserId The unique user ID from Clerk
+     * @return ResponseEntity with user data
      */
-    private void handleSessionEnded(String payload) {
+    @GetMapping("/{clerkUserId}")
+    public ResponseEntity<?> getUserByClerkId(@PathVariable String clerkUserId) {
         try {
-            String clerkUserId = extractUserId(payload);
-            
-            if (clerkUserId != null) {
-                userService.updateUserLogout(clerkUserId);
+            Optional<User> user = userService.findByClerkUserId(clerkUserId);
+            if (user.isPresent()) {
+                return ResponseEntity.ok(user.get());
+            } else {
+                return ResponseEntity.status(HttpStatus.NOT_FOUND).body("User not found");
             }
         } catch (Exception e) {
-            logger.error("Error handling session.ended webhook", e);
+            logger.error("Error fetching user", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Error fetching user: " + e.getMessage());
         }
     }
     
@@ -361,175 +286,4 @@ public class UserController {
             return false;
         }
     }
-    
-    /**
-     * Extract event type from payload
-     * @param payload The webhook payload
-     * @return The event type string
-     */
-    private String extractEventType(String payload) {
-        // Simple string-based extraction - in a production environment,
-        // you'd want to use a proper JSON parser
-        int typeIndex = payload.indexOf("\"type\":\"");
-        if (typeIndex != -1) {
-            int startIndex = typeIndex + 8;
-            int endIndex = payload.indexOf("\"", startIndex);
-            return payload.substring(startIndex, endIndex);
-        }
-        return null;
-    }
-    
-    /**
-     * Extract user ID from payload
-     * @param payload The webhook payload
-     * @return The user ID string
-     */
-    private String extractUserId(String payload) {
-        // Simple string-based extraction
-        int idIndex = payload.indexOf("\"id\":\"");
-        if (idIndex != -1) {
-            int startIndex = idIndex + 6;
-            int endIndex = payload.indexOf("\"", startIndex);
-            return payload.substring(startIndex, endIndex);
-        }
-        
-        // Try alternative format
-        idIndex = payload.indexOf("\"user_id\":\"");
-        if (idIndex != -1) {
-            int startIndex = idIndex + 11;
-            int endIndex = payload.indexOf("\"", startIndex);
-            return payload.substring(startIndex, endIndex);
-        }
-        
-        return null;
-    }
-    
-    /**
-     * Extract username from payload
-     * @param payload The webhook payload
-     * @return The username string
-     */
-    private String extractUsername(String payload) {
-        int usernameIndex = payload.indexOf("\"username\":\"");
-        if (usernameIndex != -1) {
-            int startIndex = usernameIndex + 12;
-            int endIndex = payload.indexOf("\"", startIndex);
-            return payload.substring(startIndex, endIndex);
-        }
-        return null;
-    }
-    
-    /**
-     * Extract email from payload
-     * @param payload The webhook payload
-     * @return The email string
-     */
-    private String extractEmail(String payload) {
-        int emailIndex = payload.indexOf("\"email_addresses\":[");
-        if (emailIndex != -1) {
-            int emailValueIndex = payload.indexOf("\"email_address\":\"", emailIndex);
-            if (emailValueIndex != -1) {
-                int startIndex = emailValueIndex + 17;
-                int endIndex = payload.indexOf("\"", startIndex);
-                return payload.substring(startIndex, endIndex);
-            }
-        }
-        return null;
-    }
-    
-    /**
-     * Extract first name from payload
-     * @param payload The webhook payload
-     * @return The first name string
-     */
-    private String extractFirstName(String payload) {
-        int firstNameIndex = payload.indexOf("\"first_name\":\"");
-        if (firstNameIndex != -1) {
-            int startIndex = firstNameIndex + 14;
-            int endIndex = payload.indexOf("\"", startIndex);
-            return payload.substring(startIndex, endIndex);
-        }
-        return null;
-    }
-    
-    /**
-     * Extract last name from payload
-     * @param payload The webhook payload
-     * @return The last name string
-     */
-    private String extractLastName(String payload) {
-        int lastNameIndex = payload.indexOf("\"last_name\":\"");
-        if (lastNameIndex != -1) {
-            int startIndex = lastNameIndex + 13;
-            int endIndex = payload.indexOf("\"", startIndex);
-            return payload.substring(startIndex, endIndex);
-        }
-        return null;
-    }
-    
-    /**
-     * Extract profile picture from payload
-     * @param payload The webhook payload
-     * @return The profile picture URL
-     */
-    private String extractProfilePicture(String payload) {
-        int imageIndex = payload.indexOf("\"image_url\":\"");
-        if (imageIndex != -1) {
-            int startIndex = imageIndex + 13;
-            int endIndex = payload.indexOf("\"", startIndex);
-            return payload.substring(startIndex, endIndex);
-        }
-        return null;
-    }
-    
-    /**
-     * Extract session ID from payload
-     * @param payload The webhook payload
-     * @return The session ID string
-     */
-    private String extractSessionId(String payload) {
-        int sessionIndex = payload.indexOf("\"id\":\"");
-        if (sessionIndex != -1) {
-            int startIndex = sessionIndex + 6;
-            int endIndex = payload.indexOf("\"", startIndex);
-            return payload.substring(startIndex, endIndex);
-        }
-        return null;
-    }
-    
-    /**
-     * Extract provider information from payload
-     * @param payload The webhook payload
-     * @return Map of provider names to provider IDs
-     */
-    private Map<String, String> extractProviderInfo(String payload) {
-        Map<String, String> providerInfo = new HashMap<>();
-        
-        // This is a simplified approach - in production, use a proper JSON parser
-        int oauthIndex = payload.indexOf("\"oauth_accounts\":[");
-        if (oauthIndex != -1) {
-            int endIndex = payload.indexOf("]", oauthIndex);
-            String oauthSection = payload.substring(oauthIndex, endIndex);
-            
-            // Extract provider name
-            int providerIndex = oauthSection.indexOf("\"provider\":\"");
-            if (providerIndex != -1) {
-                int startIndex = providerIndex + 12;
-                int providerEndIndex = oauthSection.indexOf("\"", startIndex);
-                String provider = oauthSection.substring(startIndex, providerEndIndex);
-                
-                // Extract provider ID
-                int providerIdIndex = oauthSection.indexOf("\"provider_user_id\":\"");
-                if (providerIdIndex != -1) {
-                    int idStartIndex = providerIdIndex + 20;
-                    int idEndIndex = oauthSection.indexOf("\"", idStartIndex);
-                    String providerId = oauthSection.substring(idStartIndex, idEndIndex);
-                    
-                    providerInfo.put(provider, providerId);
-                }
-            }
-        }
-        
-        return providerInfo;
-    }
 }
\ No newline at end of file
@@ -0,0 +1,78 @@
+package com.gptuessr.ai_game.dto;
+
+import java.util.Map;
+
+/**
+ * The fields of a Clerk webhook event that the user handlers need
+ */
+public class ClerkWebhookEvent {
+
+    private final String type;
+
+    private final String userId;
+
+    private final String sessionId;
+
+    private final String username;
+
+    private final String email;
+
+    private final String firstName;
+
+    private final String lastName;
+
+    private final String profilePicture;
+
+    private final Map<String, String> providerInfo;
+
+    // Constructors
+    public ClerkWebhookEvent(String type, String userId, String sessionId, String username, String email,
+                             String firstName, String lastName, String profilePicture, Map<String, String> providerInfo) {
+        this.type = type;
+        this.userId = userId;
+        this.sessionId = sessionId;
+        this.username = username;
+        this.email = email;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.profilePicture = profilePicture;
+        this.providerInfo = providerInfo;
+    }
+
+    // Getters
+    public String getType() {
+        return type;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getProfilePicture() {
+        return profilePicture;
+    }
+
+    public Map<String, String> getProviderInfo() {
+        return providerInfo;
+    }
+}
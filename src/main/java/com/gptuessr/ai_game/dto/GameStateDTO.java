@@ -0,0 +1,230 @@
+package com.gptuessr.ai_game.dto;
+
+import com.gptuessr.ai_game.entity.Game;
+import com.gptuessr.ai_game.entity.Guess;
+import com.gptuessr.ai_game.entity.Round;
+import com.gptuessr.ai_game.util.PlayerScore;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Snapshot of a running game sent to players.
+ * The prompt of the round being guessed is withheld; it is revealed together with
+ * the round's scores once the round is completed. Besides the scores by player, the
+ * snapshot carries them in rank order; those rankings are immutable lists that the game
+ * replaces when scores change, so they are shared instead of copied or re-sorted.
+ */
+public class GameStateDTO {
+
+    private String gameId;
+    
+    private String lobbyCode;
+    
+    private String status;
+    
+    private int currentRound;
+    
+    private int totalRounds;
+    
+    private String currentPrompter;
+    
+    private String roundStatus;
+    
+    private String imageUrl;
+    
+    private int timeLimit;
+    
+    private List<String> guessedPlayerIds = new ArrayList<>();
+    
+    private Map<String, Integer> playerScores = new HashMap<>();
+    
+    // Players with their total scores, best first
+    private List<PlayerScore> leaderboard = new ArrayList<>();
+    
+    private String previousPrompt;
+    
+    private Map<String, Integer> previousRoundScores = new HashMap<>();
+    
+    // Guessers of the last completed round with their scores, best first
+    private List<PlayerScore> previousRoundRanking = new ArrayList<>();
+    
+    private String previousBestGuesserId;
+    
+    // Constructors
+    public GameStateDTO() {
+    }
+    
+    /**
+     * Build a snapshot of a game that stays valid while the game goes on.
+     * Scores and guesses are copied; the rankings are shared since the game never changes them.
+     * @param game The game
+     * @param lobbyCode The code of the lobby the game is played in
+     * @return The snapshot
+     */
+    public static GameStateDTO fromGame(Game game, String lobbyCode) {
+        GameStateDTO dto = new GameStateDTO();
+        dto.gameId = game.getId();
+        dto.lobbyCode = lobbyCode;
+        dto.status = game.getStatus().toString();
+        dto.currentRound = game.getCurrentRound();
+        dto.totalRounds = game.getTotalRounds();
+        dto.currentPrompter = game.getCurrentPrompter();
+        dto.playerScores = new HashMap<>(game.getPlayerScores());
+        dto.leaderboard = game.getFinalRanking();
+        
+        Round lastCompleted = null;
+        for (Round round : game.getRounds()) {
+            if (round.getRoundNumber() == game.getCurrentRound() && round.getStatus() != Round.RoundStatus.COMPLETED) {
+                dto.roundStatus = round.getStatus().toString();
+                dto.imageUrl = round.getGeneratedImageUrl();
+                dto.timeLimit = round.getTimeLimit();
+                dto.guessedPlayerIds = new ArrayList<>(round.getPlayerGuesses().keySet());
+            } else if (round.getStatus() == Round.RoundStatus.COMPLETED) {
+                // Rounds are in order, so the last completed one wins
+                lastCompleted = round;
+            }
+        }
+        if (lastCompleted != null) {
+            dto.previousPrompt = lastCompleted.getPromptText();
+            dto.previousRoundScores = new HashMap<>();
+            for (Guess guess : lastCompleted.getPlayerGuesses().values()) {
+                dto.previousRoundScores.put(guess.getPlayerId(), guess.getScore());
+            }
+            dto.previousRoundRanking = lastCompleted.getRoundRanking();
+            dto.previousBestGuesserId = lastCompleted.getBestGuesserId();
+        }
+        
+        return dto;
+    }
+    
+    // Getters and Setters
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
+
+    public String getLobbyCode() {
+        return lobbyCode;
+    }
+
+    public void setLobbyCode(String lobbyCode) {
+        this.lobbyCode = lobbyCode;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getCurrentRound() {
+        return currentRound;
+    }
+
+    public void setCurrentRound(int currentRound) {
+        this.currentRound = currentRound;
+    }
+
+    public int getTotalRounds() {
+        return totalRounds;
+    }
+
+    public void setTotalRounds(int totalRounds) {
+        this.totalRounds = totalRounds;
+    }
+
+    public String getCurrentPrompter() {
+        return currentPrompter;
+    }
+
+    public void setCurrentPrompter(String currentPrompter) {
+        this.currentPrompter = currentPrompter;
+    }
+
+    public String getRoundStatus() {
+        return roundStatus;
+    }
+
+    public void setRoundStatus(String roundStatus) {
+        this.roundStatus = roundStatus;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    public int getTimeLimit() {
+        return timeLimit;
+    }
+
+    public void setTimeLimit(int timeLimit) {
+        this.timeLimit = timeLimit;
+    }
+
+    public List<String> getGuessedPlayerIds() {
+        return guessedPlayerIds;
+    }
+
+    public void setGuessedPlayerIds(List<String> guessedPlayerIds) {
+        this.guessedPlayerIds = guessedPlayerIds;
+    }
+    
+    public Map<String, Integer> getPlayerScores() {
+        return playerScores;
+    }
+
+    public void setPlayerScores(Map<String, Integer> playerScores) {
+        this.playerScores = playerScores;
+    }
+    
+    public List<PlayerScore> getLeaderboard() {
+        return leaderboard;
+    }
+    
+    public void setLeaderboard(List<PlayerScore> leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+
+    public String getPreviousPrompt() {
+        return previousPrompt;
+    }
+
+    public void setPreviousPrompt(String previousPrompt) {
+        this.previousPrompt = previousPrompt;
+    }
+    
+    public Map<String, Integer> getPreviousRoundScores() {
+        return previousRoundScores;
+    }
+
+    public void setPreviousRoundScores(Map<String, Integer> previousRoundScores) {
+        this.previousRoundScores = previousRoundScores;
+    }
+    
+    public List<PlayerScore> getPreviousRoundRanking() {
+        return previousRoundRanking;
+    }
+    
+    public void setPreviousRoundRanking(List<PlayerScore> previousRoundRanking) {
+        this.previousRoundRanking = previousRoundRanking;
+    }
+    
+    public String getPreviousBestGuesserId() {
+        return previousBestGuesserId;
+    }
+    
+    public void setPreviousBestGuesserId(String previousBestGuesserId) {
+        this.previousBestGuesserId = previousBestGuesserId;
+    }
+}
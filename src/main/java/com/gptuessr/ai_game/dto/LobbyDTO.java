@@ -43,6 +43,8 @@ public class LobbyDTO {
     
     private int playerCount;
     
+    private long sequence;
+    
     private boolean isPlayerInLobby;
     
     private boolean isHost;
@@ -65,6 +67,7 @@ public class LobbyDTO {
         this.endedAt = lobby.getEndedAt();
         this.gameSettings = new ArrayList<>(lobby.getGameSettings());
         this.playerCount = lobby.getPlayerIds().size();
+        this.sequence = lobby.getSequence();
     }
     
     // Convert LobbyDTO to Lobby entity
@@ -200,6 +203,14 @@ public class LobbyDTO {
         this.playerCount = playerCount;
     }
 
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+
     public boolean isPlayerInLobby() {
         return isPlayerInLobby;
     }
@@ -0,0 +1,130 @@
+package com.gptuessr.ai_game.dto;
+
+import com.gptuessr.ai_game.entity.Lobby;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delta pushed to lobby subscribers whenever the lobby changes.
+ * Only the changed fields and players are sent. A client whose last seen sequence is not
+ * exactly one below the sequence of an event has missed a change and should reload the
+ * lobby snapshot from GET /api/lobbies/{lobbyCode}.
+ */
+public class LobbyEventDTO {
+    
+    public enum Type {
+        PLAYER_JOINED,
+        PLAYER_LEFT,
+        SETTINGS_UPDATED,
+        GAME_STARTED,
+        GAME_ENDED,
+        LOBBY_CLOSED
+    }
+    
+    private Type type;
+    
+    private String lobbyCode;
+    
+    private long sequence;
+    
+    private String playerId;
+    
+    private Map<String, Object> changes = new LinkedHashMap<>();
+    
+    private List<LobbyResponseDTO.PlayerDTO> addedPlayers = new ArrayList<>();
+    
+    private List<String> removedPlayerIds = new ArrayList<>();
+    
+    private LocalDateTime timestamp;
+    
+    // Constructors
+    public LobbyEventDTO() {
+    }
+    
+    public LobbyEventDTO(Type type, Lobby lobby, String playerId) {
+        this.type = type;
+        this.lobbyCode = lobby.getLobbyCode();
+        this.sequence = lobby.getSequence();
+        this.playerId = playerId;
+        this.timestamp = LocalDateTime.now();
+    }
+    
+    /**
+     * Record a changed lobby field
+     * @param field The field name as used in LobbyResponseDTO
+     * @param value The new value
+     * @return This event
+     */
+    public LobbyEventDTO change(String field, Object value) {
+        this.changes.put(field, value);
+        return this;
+    }
+    
+    // Getters and Setters
+    public Type getType() {
+        return type;
+    }
+    
+    public void setType(Type type) {
+        this.type = type;
+    }
+    
+    public String getLobbyCode() {
+        return lobbyCode;
+    }
+    
+    public void setLobbyCode(String lobbyCode) {
+        this.lobbyCode = lobbyCode;
+    }
+    
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+    
+    public String getPlayerId() {
+        return playerId;
+    }
+    
+    public void setPlayerId(String playerId) {
+        this.playerId = playerId;
+    }
+    
+    public Map<String, Object> getChanges() {
+        return changes;
+    }
+    
+    public void setChanges(Map<String, Object> changes) {
+        this.changes = changes;
+    }
+    
+    public List<LobbyResponseDTO.PlayerDTO> getAddedPlayers() {
+        return addedPlayers;
+    }
+    
+    public void setAddedPlayers(List<LobbyResponseDTO.PlayerDTO> addedPlayers) {
+        this.addedPlayers = addedPlayers;
+    }
+    
+    public List<String> getRemovedPlayerIds() {
+        return removedPlayerIds;
+    }
+    
+    public void setRemovedPlayerIds(List<String> removedPlayerIds) {
+        this.removedPlayerIds = removedPlayerIds;
+    }
+    
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+    
+    public void setTimestamp(LocalDateTime timestamp) {
+        this.timestamp = timestamp;
+    }
+}
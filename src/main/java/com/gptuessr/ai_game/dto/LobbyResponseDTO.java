@@ -27,6 +27,7 @@ public class LobbyResponseDTO {
     private String difficulty;
     private boolean isCurrentUserHost;
     private boolean isCurrentUserInLobby;
+    private long sequence;
     
     // Constructors
     public LobbyResponseDTO() {
@@ -102,8 +103,8 @@ public class LobbyResponseDTO {
         }
     }
     
-    // Factory method to create response from LobbyDTO and UserMap
-    public static LobbyResponseDTO fromLobbyDTO(LobbyDTO lobbyDTO, Map<String, Map<String, Object>> userInfoMap, String currentUserId) {
+    // Factory method to create response from LobbyDTO and player profiles
+    public static LobbyResponseDTO fromLobbyDTO(LobbyDTO lobbyDTO, Map<String, PlayerProfileDTO> profiles, String currentUserId) {
         LobbyResponseDTO response = new LobbyResponseDTO();
         
         response.setId(lobbyDTO.getId());
@@ -117,11 +118,12 @@ public class LobbyResponseDTO {
         response.setStartedAt(lobbyDTO.getStartedAt());
         response.setEndedAt(lobbyDTO.getEndedAt());
         response.setGameSettings(lobbyDTO.getGameSettings());
+        response.setSequence(lobbyDTO.getSequence());
         
         // Set host name if available
-        if (userInfoMap.containsKey(lobbyDTO.getHostId())) {
-            Map<String, Object> hostInfo = userInfoMap.get(lobbyDTO.getHostId());
-            response.setHostName((String) hostInfo.get("displayName"));
+        PlayerProfileDTO hostProfile = profiles.get(lobbyDTO.getHostId());
+        if (hostProfile != null) {
+            response.setHostName(hostProfile.getVisibleName());
         }
         
         // Set current user flags
@@ -130,25 +132,35 @@ public class LobbyResponseDTO {
         
         // Convert player list
         for (String playerId : lobbyDTO.getPlayerIds()) {
-            PlayerDTO playerDTO = new PlayerDTO();
-            playerDTO.setId(playerId);
-            playerDTO.setHost(playerId.equals(lobbyDTO.getHostId()));
-            playerDTO.setReady(true); // Default to ready, adjust as needed
-            
-            // Add user details if available
-            if (userInfoMap.containsKey(playerId)) {
-                Map<String, Object> userInfo = userInfoMap.get(playerId);
-                playerDTO.setUsername((String) userInfo.get("username"));
-                playerDTO.setDisplayName((String) userInfo.get("displayName"));
-                playerDTO.setProfilePicture((String) userInfo.get("profilePicture"));
-            }
-            
-            response.getPlayers().add(playerDTO);
+            response.getPlayers().add(toPlayerDTO(playerId, lobbyDTO.getHostId(), profiles.get(playerId)));
         }
         
         return response;
     }
     
+    /**
+     * Build the player entry shown in a lobby
+     * @param playerId The player user ID
+     * @param hostId The host user ID of the lobby
+     * @param profile The player profile, may be null
+     * @return The player DTO
+     */
+    public static PlayerDTO toPlayerDTO(String playerId, String hostId, PlayerProfileDTO profile) {
+        PlayerDTO playerDTO = new PlayerDTO();
+        playerDTO.setId(playerId);
+        playerDTO.setHost(playerId.equals(hostId));
+        playerDTO.setReady(true); // Default to ready, adjust as needed
+        
+        // Add user details if available
+        if (profile != null) {
+            playerDTO.setUsername(profile.getUsername());
+            playerDTO.setDisplayName(profile.getVisibleName());
+            playerDTO.setProfilePicture(profile.getProfilePicture());
+        }
+        
+        return playerDTO;
+    }
+    
     // Getters and Setters
     public String getId() {
         return id;
@@ -285,4 +297,12 @@ public class LobbyResponseDTO {
     public void setCurrentUserInLobby(boolean currentUserInLobby) {
         isCurrentUserInLobby = currentUserInLobby;
     }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
 }
@@ -0,0 +1,55 @@
+package com.gptuessr.ai_game.dto;
+
+/**
+ * Projection of the user fields shown next to a player in a lobby
+ */
+public class PlayerProfileDTO {
+
+    private final String id;
+
+    private final String clerkUserId;
+
+    private final String username;
+
+    private final String displayName;
+
+    private final String profilePicture;
+
+    // Constructors
+    public PlayerProfileDTO(String id, String clerkUserId, String username, String displayName, String profilePicture) {
+        this.id = id;
+        this.clerkUserId = clerkUserId;
+        this.username = username;
+        this.displayName = displayName;
+        this.profilePicture = profilePicture;
+    }
+
+    // Getters
+    public String getId() {
+        return id;
+    }
+
+    public String getClerkUserId() {
+        return clerkUserId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getProfilePicture() {
+        return profilePicture;
+    }
+
+    /**
+     * Get the name shown to other players, falling back to the username
+     * @return The display name or username
+     */
+    public String getVisibleName() {
+        return displayName != null ? displayName : username;
+    }
+}
@@ -0,0 +1,27 @@
+package com.gptuessr.ai_game.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * DTO for a player's guess of the current round's prompt
+ */
+public class SubmitGuessDTO {
+    
+    @NotBlank(message = "Guess is required")
+    @Size(max = 500, message = "Guess cannot exceed 500 characters")
+    private String guessText;
+    
+    // Constructors
+    public SubmitGuessDTO() {
+    }
+    
+    // Getters and Setters
+    public String getGuessText() {
+        return guessText;
+    }
+
+    public void setGuessText(String guessText) {
+        this.guessText = guessText;
+    }
+}
@@ -0,0 +1,37 @@
+package com.gptuessr.ai_game.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+/**
+ * DTO for the prompter's prompt of the current round
+ */
+public class SubmitPromptDTO {
+    
+    @NotBlank(message = "Prompt is required")
+    @Size(max = 500, message = "Prompt cannot exceed 500 characters")
+    private String promptText;
+    
+    private String imageUrl;
+    
+    // Constructors
+    public SubmitPromptDTO() {
+    }
+    
+    // Getters and Setters
+    public String getPromptText() {
+        return promptText;
+    }
+
+    public void setPromptText(String promptText) {
+        this.promptText = promptText;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+}
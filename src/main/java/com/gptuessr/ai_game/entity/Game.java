@@ -1,6 +1,9 @@
 package com.gptuessr.ai_game.entity;
 
+import com.gptuessr.ai_game.util.PlayerScore;
+import com.gptuessr.ai_game.util.Scoreboard;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -34,6 +37,13 @@ public class Game {
     
     private LocalDateTime endedAt;
     
+    // Node running the game; after a restart only this node resumes it
+    private String ownerNode;
+    
+    // Totals in rank order, rebuilt from playerScores after loading and kept in step with it
+    @Transient
+    private Scoreboard scoreboard;
+    
     // Constructors
     public Game() {
         this.startedAt = LocalDateTime.now();
@@ -85,11 +95,15 @@ public class Game {
 
     public void setPlayerIds(List<String> playerIds) {
         this.playerIds = playerIds;
+        this.scoreboard = null;
     }
     
     public void removePlayer(String playerId) {
         this.playerIds.remove(playerId);
         this.playerScores.remove(playerId);
+        if (this.scoreboard != null) {
+            this.scoreboard.remove(playerId);
+        }
     }
 
     public int getCurrentRound() {
@@ -138,29 +152,35 @@ public class Game {
 
     public void setPlayerScores(Map<String, Integer> playerScores) {
         this.playerScores = playerScores;
+        this.scoreboard = null;
     }
     
     public void updatePlayerScore(String playerId, int scoreToAdd) {
+        // Build the scoreboard from the totals before they change, or the points would count twice
+        Scoreboard board = getScoreboard();
         int currentScore = this.playerScores.getOrDefault(playerId, 0);
         this.playerScores.put(playerId, currentScore + scoreToAdd);
+        board.add(playerId, scoreToAdd);
+    }
+    
+    /**
+     * Add the scores of a closed round to the totals and rank the round and the game once,
+     * so rankings, best guesser and winner are plain reads afterwards
+     * @param round The round, its guesses already scored
+     */
+    public void applyRoundScores(Round round) {
+        for (Guess guess : round.getPlayerGuesses().values()) {
+            updatePlayerScore(guess.getPlayerId(), guess.getScore());
+        }
+        round.rankGuesses();
+        getScoreboard().getRanking();
     }
     
     public String getWinner() {
         if (this.status != GameStatus.FINISHED) {
             return null;
         }
-        
-        String winnerId = null;
-        int highestScore = -1;
-        
-        for (Map.Entry<String, Integer> entry : this.playerScores.entrySet()) {
-            if (entry.getValue() > highestScore) {
-                highestScore = entry.getValue();
-                winnerId = entry.getKey();
-            }
-        }
-        
-        return winnerId;
+        return getScoreboard().getLeader();
     }
 
     public GameStatus getStatus() {
@@ -187,13 +207,30 @@ public class Game {
         this.endedAt = endedAt;
     }
     
+    public String getOwnerNode() {
+        return ownerNode;
+    }
+
+    public void setOwnerNode(String ownerNode) {
+        this.ownerNode = ownerNode;
+    }
+    
     public boolean isGameOver() {
         return this.currentRound > this.totalRounds;
     }
     
-    public List<Map.Entry<String, Integer>> getFinalRanking() {
-        List<Map.Entry<String, Integer>> sortedEntries = new ArrayList<>(this.playerScores.entrySet());
-        sortedEntries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
-        return sortedEntries;
+    /**
+     * Get the players with their total scores from best to worst
+     * @return Immutable ranking, shared until the scores change
+     */
+    public List<PlayerScore> getFinalRanking() {
+        return getScoreboard().getRanking();
+    }
+    
+    private Scoreboard getScoreboard() {
+        if (this.scoreboard == null) {
+            this.scoreboard = new Scoreboard(this.playerIds, this.playerScores);
+        }
+        return this.scoreboard;
     }
 }
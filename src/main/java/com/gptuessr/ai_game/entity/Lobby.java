@@ -1,6 +1,8 @@
 package com.gptuessr.ai_game.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -32,8 +34,21 @@ public class Lobby {
     
     private LocalDateTime endedAt;
     
+    // Set when the lobby is closed; closed lobbies expire through a TTL index on this field
+    private LocalDateTime closedAt;
+    
     private List<String> gameSettings = new ArrayList<>();
     
+    @Version
+    private Long version;
+    
+    // Sequence number of the last change, assigned by the lobby registry and not persisted
+    @Transient
+    private long sequence;
+    
+    // Sequence numbers below this value have been handed out to a lobby registry
+    private long sequenceCeiling;
+    
     // Constructors
     public Lobby() {
         this.createdAt = LocalDateTime.now();
@@ -163,6 +178,14 @@ public class Lobby {
         this.endedAt = endedAt;
     }
 
+    public LocalDateTime getClosedAt() {
+        return closedAt;
+    }
+
+    public void setClosedAt(LocalDateTime closedAt) {
+        this.closedAt = closedAt;
+    }
+
     public List<String> getGameSettings() {
         return gameSettings;
     }
@@ -171,6 +194,30 @@ public class Lobby {
         this.gameSettings = gameSettings;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public long getSequence() {
+        return sequence;
+    }
+    
+    public void setSequence(long sequence) {
+        this.sequence = sequence;
+    }
+    
+    public long getSequenceCeiling() {
+        return sequenceCeiling;
+    }
+    
+    public void setSequenceCeiling(long sequenceCeiling) {
+        this.sequenceCeiling = sequenceCeiling;
+    }
+    
     public void addGameSetting(String setting) {
         this.gameSettings.add(setting);
     }
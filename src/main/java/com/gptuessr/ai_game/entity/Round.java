@@ -1,7 +1,11 @@
 package com.gptuessr.ai_game.entity;
 
+import com.gptuessr.ai_game.util.PlayerScore;
+import org.springframework.data.annotation.Transient;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,6 +30,10 @@ public class Round {
     
     private int timeLimit;
     
+    // Guesses by score, computed once the guesses are scored; null while it may still change
+    @Transient
+    private List<PlayerScore> ranking;
+    
     // Constructor
     public Round() {
         this.status = RoundStatus.WAITING_FOR_PROMPT;
@@ -88,10 +96,12 @@ public class Round {
 
     public void setPlayerGuesses(Map<String, Guess> playerGuesses) {
         this.playerGuesses = playerGuesses;
+        this.ranking = null;
     }
     
     public void addPlayerGuess(String playerId, Guess guess) {
         this.playerGuesses.put(playerId, guess);
+        this.ranking = null;
     }
 
     public RoundStatus getStatus() {
@@ -126,30 +136,58 @@ public class Round {
         this.timeLimit = timeLimit;
     }
     
-    public List<Map.Entry<String, Integer>> getRoundRanking() {
-        Map<String, Integer> roundScores = new HashMap<>();
-        
-        for (Map.Entry<String, Guess> entry : this.playerGuesses.entrySet()) {
-            roundScores.put(entry.getKey(), entry.getValue().getScore());
+    /**
+     * Get the guessers with their scores from best to worst
+     * @return Immutable ranking
+     */
+    public List<PlayerScore> getRoundRanking() {
+        if (this.ranking != null) {
+            return this.ranking;
         }
-        
-        List<Map.Entry<String, Integer>> sortedEntries = new ArrayList<>(roundScores.entrySet());
-        sortedEntries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
-        return sortedEntries;
+        List<PlayerScore> computed = computeRanking();
+        if (this.status == RoundStatus.COMPLETED) {
+            // Scores of a completed round no longer change, e.g. after loading a stored game
+            this.ranking = computed;
+        }
+        return computed;
+    }
+    
+    /**
+     * Rank the guesses once they are scored; later ranking reads return this result
+     */
+    public void rankGuesses() {
+        this.ranking = computeRanking();
     }
     
     public String getBestGuesserId() {
-        String bestGuesserId = null;
-        int highestScore = -1;
-        
+        List<PlayerScore> roundRanking = getRoundRanking();
+        return roundRanking.isEmpty() ? null : roundRanking.get(0).playerId();
+    }
+    
+    private List<PlayerScore> computeRanking() {
+        int count = this.playerGuesses.size();
+        String[] playerIds = new String[count];
+        int[] scores = new int[count];
+        int i = 0;
         for (Map.Entry<String, Guess> entry : this.playerGuesses.entrySet()) {
-            if (entry.getValue().getScore() > highestScore) {
-                highestScore = entry.getValue().getScore();
-                bestGuesserId = entry.getKey();
-            }
+            playerIds[i] = entry.getKey();
+            scores[i] = entry.getValue().getScore();
+            i++;
         }
         
-        return bestGuesserId;
+        // Sort primitive keys: negated score in the high half, guess index in the low half
+        long[] keys = new long[count];
+        for (i = 0; i < count; i++) {
+            keys[i] = (-(long) scores[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+        
+        List<PlayerScore> entries = new ArrayList<>(count);
+        for (long key : keys) {
+            int index = (int) key;
+            entries.add(new PlayerScore(playerIds[index], scores[index]));
+        }
+        return Collections.unmodifiableList(entries);
     }
     
     public boolean areAllGuessesSubmitted(List<String> playerIds) {
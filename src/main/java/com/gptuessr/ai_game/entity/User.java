@@ -1,7 +1,6 @@
 package com.gptuessr.ai_game.entity;
 
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
@@ -16,13 +15,11 @@ public class User {
     @Id
     private String id;
    
-    @Indexed(unique = true)
     private String username;
    
     private String email;
    
     // Clerk Integration fields
-    @Indexed(unique = true)
     private String clerkUserId;
     
     private String clerkSessionId;
@@ -0,0 +1,17 @@
+package com.gptuessr.ai_game.repository;
+
+import com.gptuessr.ai_game.entity.Game;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GameRepository extends MongoRepository<Game, String> {
+    Optional<Game> findFirstByLobbyIdOrderByStartedAtDesc(String lobbyId);
+    
+    List<Game> findByStatus(Game.GameStatus status);
+    
+    List<Game> findByStatusAndOwnerNode(Game.GameStatus status, String ownerNode);
+}
@@ -9,7 +9,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface LobbyRepository extends MongoRepository<Lobby, String> {
+public interface LobbyRepository extends MongoRepository<Lobby, String>, LobbyRepositoryCustom {
     Optional<Lobby> findByLobbyCode(String lobbyCode);
     
     List<Lobby> findByHostId(String hostId);
@@ -0,0 +1,62 @@
+package com.gptuessr.ai_game.repository;
+
+import com.gptuessr.ai_game.entity.Lobby;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Atomic lobby updates that cannot be expressed as derived queries
+ */
+public interface LobbyRepositoryCustom {
+    
+    /**
+     * Add a player in a single update that only matches a waiting lobby with free capacity
+     * @param lobbyCode The lobby code
+     * @param playerId The player user ID
+     * @return The updated lobby or null if the lobby was not joinable or already contained the player
+     */
+    Lobby addPlayerIfJoinable(String lobbyCode, String playerId);
+    
+    /**
+     * Remove a player in a single update
+     * @param lobbyCode The lobby code
+     * @param playerId The player user ID
+     * @return The updated lobby or null if the player was not in the lobby
+     */
+    Lobby removePlayer(String lobbyCode, String playerId);
+    
+    /**
+     * Write the lobby state except the player list, which is only changed atomically.
+     * The write only applies if the document still has the lobby's version, and a lobby
+     * that is already closed in the database is never reopened.
+     * @param lobby The lobby state to write, with the version it is based on
+     * @return The new document version or null if the version did not match or the lobby no longer exists or was closed
+     */
+    Long saveState(Lobby lobby);
+    
+    /**
+     * Load a lobby and reserve a block of sequence numbers for it in one update.
+     * The block starts at the previous ceiling, so it lies above every number reserved
+     * before, also by other nodes. The document version is not changed.
+     * @param lobbyCode The lobby code
+     * @param count Number of sequence numbers to reserve
+     * @return The lobby with the raised ceiling, the block ends just below it; null if the lobby does not exist
+     */
+    Lobby reserveSequences(String lobbyCode, long count);
+    
+    /**
+     * Close all stale lobbies with a single server-side update
+     * @param waitingCreatedBefore WAITING lobbies created before this time are closed
+     * @param inProgressStartedBefore IN_PROGRESS lobbies started before this time are closed
+     * @param closedAt The close time to record
+     * @return The number of closed lobbies
+     */
+    long closeStaleLobbies(LocalDateTime waitingCreatedBefore, LocalDateTime inProgressStartedBefore, LocalDateTime closedAt);
+    
+    /**
+     * Count the lobbies of every status but CLOSED with a single aggregation
+     * @return Map of status to number of lobbies, CLOSED and statuses without lobbies are absent
+     */
+    Map<Lobby.GameStatus, Long> countLobbiesByStatus();
+}
@@ -0,0 +1,120 @@
+package com.gptuessr.ai_game.repository;
+
+import com.gptuessr.ai_game.entity.Lobby;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.ArrayOperators;
+import org.springframework.data.mongodb.core.aggregation.ComparisonOperators;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * MongoTemplate based implementation of the atomic lobby updates
+ */
+public class LobbyRepositoryImpl implements LobbyRepositoryCustom {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Override
+    public Lobby addPlayerIfJoinable(String lobbyCode, String playerId) {
+        // Capacity is checked server-side so concurrent joins cannot overfill the lobby
+        Query query = new Query(Criteria.where("lobbyCode").is(lobbyCode)
+                .and("status").is(Lobby.GameStatus.WAITING)
+                .and("playerIds").ne(playerId)
+                .andOperator(Criteria.expr(ComparisonOperators.Lt
+                        .valueOf(ArrayOperators.Size.lengthOfArray("playerIds"))
+                        .lessThan("maxPlayers"))));
+        
+        Update update = new Update()
+                .addToSet("playerIds", playerId)
+                .inc("version", 1);
+        
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Lobby.class);
+    }
+    
+    @Override
+    public Lobby removePlayer(String lobbyCode, String playerId) {
+        Query query = new Query(Criteria.where("lobbyCode").is(lobbyCode)
+                .and("playerIds").is(playerId));
+        
+        Update update = new Update()
+                .pull("playerIds", playerId)
+                .inc("version", 1);
+        
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Lobby.class);
+    }
+    
+    @Override
+    public Long saveState(Lobby lobby) {
+        // Only written over the version the state was based on, so a stale copy cannot overwrite a newer one
+        Criteria criteria = Criteria.where("id").is(lobby.getId()).and("version").is(lobby.getVersion());
+        if (lobby.getStatus() != Lobby.GameStatus.CLOSED) {
+            // Closing is final, a stale in-memory copy must not reopen the lobby
+            criteria.and("status").ne(Lobby.GameStatus.CLOSED);
+        }
+        Query query = new Query(criteria);
+        query.fields().include("version");
+        
+        Update update = new Update()
+                .set("status", lobby.getStatus())
+                .set("maxPlayers", lobby.getMaxPlayers())
+                .set("numberOfRounds", lobby.getNumberOfRounds())
+                .set("timeLimit", lobby.getTimeLimit())
+                .set("startedAt", lobby.getStartedAt())
+                .set("endedAt", lobby.getEndedAt())
+                .set("closedAt", lobby.getClosedAt())
+                .set("gameSettings", lobby.getGameSettings())
+                .inc("version", 1);
+        
+        Lobby updated = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Lobby.class);
+        return updated != null ? updated.getVersion() : null;
+    }
+    
+    @Override
+    public Lobby reserveSequences(String lobbyCode, long count) {
+        Query query = new Query(Criteria.where("lobbyCode").is(lobbyCode));
+        Update update = new Update().inc("sequenceCeiling", count);
+        
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Lobby.class);
+    }
+    
+    @Override
+    public long closeStaleLobbies(LocalDateTime waitingCreatedBefore, LocalDateTime inProgressStartedBefore, LocalDateTime closedAt) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where("status").is(Lobby.GameStatus.WAITING).and("createdAt").lt(waitingCreatedBefore),
+                Criteria.where("status").is(Lobby.GameStatus.IN_PROGRESS).and("startedAt").lt(inProgressStartedBefore)));
+        
+        Update update = new Update()
+                .set("status", Lobby.GameStatus.CLOSED)
+                .set("closedAt", closedAt)
+                .inc("version", 1);
+        
+        return mongoTemplate.updateMulti(query, update, Lobby.class).getModifiedCount();
+    }
+    
+    @Override
+    public Map<Lobby.GameStatus, Long> countLobbiesByStatus() {
+        // Closed lobbies wait for the TTL index and would make the group scan most of the collection
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("status").ne(Lobby.GameStatus.CLOSED)),
+                Aggregation.group("status").count().as("count"));
+        
+        Map<Lobby.GameStatus, Long> counts = new EnumMap<>(Lobby.GameStatus.class);
+        for (Document result : mongoTemplate.aggregate(aggregation, Lobby.class, Document.class)) {
+            Object status = result.get("_id");
+            if (status != null) {
+                counts.put(Lobby.GameStatus.valueOf(status.toString()), ((Number) result.get("count")).longValue());
+            }
+        }
+        return counts;
+    }
+}
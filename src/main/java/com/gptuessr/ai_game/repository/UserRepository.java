@@ -1,9 +1,12 @@
 package com.gptuessr.ai_game.repository;
 
+import com.gptuessr.ai_game.dto.PlayerProfileDTO;
 import com.gptuessr.ai_game.entity.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -14,4 +17,5 @@ public interface UserRepository extends MongoRepository<User, String> {
     boolean existsByUsername(String username);
     boolean existsByEmail(String email);
     boolean existsByClerkUserId(String clerkUserId);
+    List<PlayerProfileDTO> findByClerkUserIdIn(Collection<String> clerkUserIds);
 }
\ No newline at end of file
@@ -0,0 +1,361 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.dto.ClerkWebhookEvent;
+import com.gptuessr.ai_game.util.ClerkWebhookEventParser;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Applies verified Clerk webhook events off the request thread.
+ * The controller only verifies the signature and enqueues; events are deduplicated by
+ * svix-id, held in a bounded queue and applied in batches by a single worker. Within a
+ * batch, repeated user.updated or session.created events for one user collapse into the
+ * latest one, since each carries the full current state. A full queue is reported to the
+ * caller so Clerk retries later instead of the server buffering without limit.
+ * The queue lives in memory only: events already acknowledged with 200 but not yet applied
+ * are lost if the process dies, and Clerk will not redeliver them. Shutdown drains the queue
+ * for up to clerk.webhook.shutdown-timeout-ms; after a crash, the affected users are
+ * corrected by their next user.updated or session event, or by replaying the window
+ * from the Clerk dashboard.
+ */
+@Service
+public class ClerkWebhookProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClerkWebhookProcessor.class);
+    
+    // Event types used as metric tags; anything else is tagged "other" to bound the tag values
+    private static final Set<String> KNOWN_WEBHOOK_EVENTS = Set.of(
+        "user.created", "user.updated", "user.deleted", "session.created", "session.ended");
+    
+    // Events whose latest payload supersedes earlier ones for the same user
+    private static final Set<String> COALESCED_EVENTS = Set.of("user.updated", "session.created");
+    
+    private static final long POLL_INTERVAL_MS = 200;
+    
+    public enum EnqueueResult {
+        ACCEPTED,
+        DUPLICATE,
+        QUEUE_FULL
+    }
+    
+    private record PendingEvent(String svixId, String payload, long enqueuedNanos) {
+    }
+    
+    private record ParsedEvent(ClerkWebhookEvent event, long enqueuedNanos) {
+    }
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private ClerkWebhookEventParser eventParser;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Creates a thread per task, virtual unless spring.threads.virtual.enabled is off; the worker
+    // runs for the lifetime of the application and would otherwise pin a pooled thread
+    @Autowired
+    private SimpleAsyncTaskExecutorBuilder taskExecutorBuilder;
+    
+    @Value("${clerk.webhook.queue-capacity:10000}")
+    private int queueCapacity;
+    
+    @Value("${clerk.webhook.batch-size:100}")
+    private int batchSize;
+    
+    @Value("${clerk.webhook.dedupe-ttl-hours:24}")
+    private long dedupeTtlHours;
+    
+    @Value("${clerk.webhook.dedupe-max-size:100000}")
+    private long dedupeMaxSize;
+    
+    @Value("${clerk.webhook.shutdown-timeout-ms:10000}")
+    private long shutdownTimeoutMs;
+    
+    private BlockingQueue<PendingEvent> queue;
+    
+    // svix-ids seen recently; Clerk redelivers with the same id when it misses an acknowledgement
+    private Cache<String, Boolean> seenIds;
+    
+    private CompletableFuture<Void> worker;
+    
+    private volatile boolean running;
+    
+    private Counter duplicateCounter;
+    
+    private Counter rejectedCounter;
+    
+    private Counter coalescedCounter;
+    
+    private Timer queueWaitTimer;
+    
+    /**
+     * Create the queue and the dedupe cache, register the metrics and start the worker
+     */
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        seenIds = Caffeine.newBuilder()
+                .maximumSize(dedupeMaxSize)
+                .expireAfterWrite(Duration.ofHours(dedupeTtlHours))
+                .build();
+        
+        Gauge.builder("clerk.webhook.queue.size", queue, BlockingQueue::size)
+            .description("Webhook events waiting to be applied")
+            .register(meterRegistry);
+        Gauge.builder("clerk.webhook.queue.remaining", queue, BlockingQueue::remainingCapacity)
+            .description("Free slots before webhooks are refused")
+            .register(meterRegistry);
+        duplicateCounter = Counter.builder("clerk.webhook.duplicates").register(meterRegistry);
+        rejectedCounter = Counter.builder("clerk.webhook.rejected").register(meterRegistry);
+        coalescedCounter = Counter.builder("clerk.webhook.coalesced").register(meterRegistry);
+        queueWaitTimer = Timer.builder("clerk.webhook.queue.wait").register(meterRegistry);
+        
+        running = true;
+        worker = taskExecutorBuilder.threadNamePrefix("clerk-webhook-worker-").build().submitCompletable(this::runWorker);
+    }
+    
+    /**
+     * Stop accepting work and give the worker time to apply what is still queued
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        try {
+            worker.get(shutdownTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("Stopped with {} webhook events still queued", queue.size());
+        } catch (ExecutionException e) {
+            logger.error("Webhook worker failed", e.getCause());
+        }
+    }
+    
+    /**
+     * Queue a verified webhook event for processing
+     * @param svixId The svix-id header, unique per event and kept across redeliveries
+     * @param payload The raw webhook payload
+     * @return Whether the event was accepted, was a duplicate, or was refused because the queue is full
+     */
+    public EnqueueResult enqueue(String svixId, String payload) {
+        if (seenIds.asMap().putIfAbsent(svixId, Boolean.TRUE) != null) {
+            duplicateCounter.increment();
+            return EnqueueResult.DUPLICATE;
+        }
+        
+        if (!running || !queue.offer(new PendingEvent(svixId, payload, System.nanoTime()))) {
+            // Forget the id so Clerk's retry is accepted once there is room
+            seenIds.invalidate(svixId);
+            rejectedCounter.increment();
+            return EnqueueResult.QUEUE_FULL;
+        }
+        return EnqueueResult.ACCEPTED;
+    }
+    
+    /**
+     * Worker loop: wait for an event, drain up to a batch and apply it; keeps draining after stop()
+     */
+    private void runWorker() {
+        List<PendingEvent> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEvent first = queue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                applyBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error("Error applying webhook batch", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    /**
+     * Coalesce a batch and apply the remaining events in arrival order
+     * @param batch The events taken from the queue
+     */
+    private void applyBatch(List<PendingEvent> batch) {
+        List<ParsedEvent> events = coalesce(batch);
+        logger.debug("Applying {} webhook events ({} received)", events.size(), batch.size());
+        
+        for (ParsedEvent parsed : events) {
+            ClerkWebhookEvent event = parsed.event();
+            queueWaitTimer.record(System.nanoTime() - parsed.enqueuedNanos(), TimeUnit.NANOSECONDS);
+            Timer.Sample sample = Timer.start(meterRegistry);
+            String outcome = "success";
+            try {
+                apply(event);
+            } catch (Exception e) {
+                logger.error("Error processing webhook event {}", event.getType(), e);
+                outcome = "error";
+            }
+            String eventTag = event.getType() != null && KNOWN_WEBHOOK_EVENTS.contains(event.getType()) ? event.getType() : "other";
+            sample.stop(Timer.builder("clerk.webhook.apply")
+                .tag("event", eventTag)
+                .tag("outcome", event.getUserId() == null ? "ignored" : outcome)
+                .register(meterRegistry));
+        }
+    }
+    
+    /**
+     * Parse a batch and collapse consecutive superseding events per user
+     * @param batch The events taken from the queue
+     * @return The events to apply, in arrival order
+     */
+    private List<ParsedEvent> coalesce(List<PendingEvent> batch) {
+        List<ParsedEvent> events = new ArrayList<>(batch.size());
+        // Position of each user's latest event in the result
+        Map<String, Integer> latestByUser = new HashMap<>();
+        
+        for (PendingEvent pending : batch) {
+            ClerkWebhookEvent event;
+            try {
+                event = eventParser.parse(pending.payload());
+            } catch (IllegalArgumentException e) {
+                logger.warn("Dropping webhook {}: {}", pending.svixId(), e.getMessage());
+                continue;
+            }
+            String type = event.getType();
+            String userId = event.getUserId();
+            ParsedEvent parsed = new ParsedEvent(event, pending.enqueuedNanos());
+            
+            Integer latest = userId == null ? null : latestByUser.get(userId);
+            if (latest != null && COALESCED_EVENTS.contains(type) && type.equals(events.get(latest).event().getType())) {
+                // Replace in place so the user's events keep their relative order
+                events.set(latest, parsed);
+                coalescedCounter.increment();
+                continue;
+            }
+            
+            if (userId != null) {
+                latestByUser.put(userId, events.size());
+            }
+            events.add(parsed);
+        }
+        
+        return events;
+    }
+    
+    /**
+     * Dispatch an event to its handler; handler failures propagate so the batch records them
+     * @param event The parsed event
+     */
+    private void apply(ClerkWebhookEvent event) {
+        if (event.getUserId() == null) {
+            logger.warn("No user ID found in payload");
+            return;
+        }
+        
+        logger.debug("Processing webhook event: {} for user: {}", event.getType(), event.getUserId());
+        
+        switch (event.getType() == null ? "" : event.getType()) {
+            case "user.created":
+                handleUserCreated(event);
+                break;
+            case "user.updated":
+                handleUserUpdated(event);
+                break;
+            case "user.deleted":
+                handleUserDeleted(event);
+                break;
+            case "session.created":
+                handleSessionCreated(event);
+                break;
+            case "session.ended":
+                handleSessionEnded(event);
+                break;
+            default:
+                logger.info("Unhandled webhook event: {}", event.getType());
+        }
+    }
+    
+    /**
+     * Handle user.created webhook event
+     * @param event The webhook event
+     */
+    private void handleUserCreated(ClerkWebhookEvent event) {
+        if (event.getUsername() != null && event.getEmail() != null) {
+            userService.registerClerkUser(event.getUserId(), event.getUsername(), event.getEmail(),
+                event.getFirstName(), event.getLastName(), event.getProfilePicture(), event.getProviderInfo());
+        }
+    }
+    
+    /**
+     * Handle user.updated webhook event
+     * @param event The webhook event
+     */
+    private void handleUserUpdated(ClerkWebhookEvent event) {
+        Map<String, Object> userData = new HashMap<>();
+        
+        if (event.getUsername() != null) userData.put("username", event.getUsername());
+        if (event.getEmail() != null) userData.put("email", event.getEmail());
+        if (event.getFirstName() != null) userData.put("firstName", event.getFirstName());
+        if (event.getLastName() != null) userData.put("lastName", event.getLastName());
+        if (event.getProfilePicture() != null) userData.put("profilePicture", event.getProfilePicture());
+        
+        userService.updateUserInfo(event.getUserId(), userData);
+    }
+    
+    /**
+     * Handle user.deleted webhook event
+     * @param event The webhook event
+     */
+    private void handleUserDeleted(ClerkWebhookEvent event) {
+        // Implement user deletion logic if needed
+        // For example, you might want to anonymize user data rather than delete it
+        logger.info("User deleted webhook received. Implement deletion logic if needed.");
+        
+        // Stop showing the deleted user's cached profile in lobbies
+        userService.invalidatePlayerProfile(event.getUserId());
+    }
+    
+    /**
+     * Handle session.created webhook event
+     * @param event The webhook event
+     */
+    private void handleSessionCreated(ClerkWebhookEvent event) {
+        if (event.getSessionId() != null) {
+            userService.updateUserOnLogin(event.getUserId(), event.getSessionId());
+        }
+    }
+    
+    /**
+     * Handle session.ended webhook event
+     * @param event The webhook event
+     */
+    private void handleSessionEnded(ClerkWebhookEvent event) {
+        userService.updateUserLogout(event.getUserId());
+    }
+}
@@ -0,0 +1,209 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Guess;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Scores guesses by meaning as well as wording, so paraphrases such as "puppy at the seaside"
+ * for "a dog on a beach" still earn points.
+ * Texts are embedded as the mean of their words' static vectors, looked up in a memory-mapped
+ * WordVectorTable, and compared by cosine similarity; the result is blended with the lexical
+ * accuracy. The prompt is embedded once when it is submitted. When a round closes, all of its
+ * guesses are embedded into the rows of one float matrix and compared with the prompt, large
+ * rounds split across the fork-join pool. Without a configured vector table, or for texts with no known words,
+ * scoring is purely lexical.
+ */
+@Component
+@Primary
+public class EmbeddingGuessScorer implements GuessScorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmbeddingGuessScorer.class);
+    
+    @Autowired
+    private LexicalGuessScorer lexicalScorer;
+    
+    // GloVe/word2vec text file or converted binary table; empty disables embeddings
+    @Value("${game.scoring.embedding.vectors-path:}")
+    private String vectorsPath;
+    
+    @Value("${game.scoring.embedding.max-words:200000}")
+    private int maxWords;
+    
+    @Value("${game.scoring.embedding.semantic-weight:0.6}")
+    private double semanticWeight;
+    
+    // Cosine similarity of unrelated texts is rarely zero; anything below this counts as unrelated
+    @Value("${game.scoring.embedding.similarity-floor:0.3}")
+    private double similarityFloor;
+    
+    private WordVectorTable table;
+    
+    /**
+     * A prompt with its lexical features and its unit-length embedding
+     */
+    private static final class PromptEmbedding implements PreparedPrompt {
+        
+        private final PromptFeatures features;
+        
+        // null when no word of the prompt has a vector
+        private final float[] vector;
+        
+        private PromptEmbedding(PromptFeatures features, float[] vector) {
+            this.features = features;
+            this.vector = vector;
+        }
+        
+        @Override
+        public String getPromptText() {
+            return features.getPromptText();
+        }
+    }
+    
+    /**
+     * Map the word vector table if one is configured
+     */
+    @PostConstruct
+    public void init() {
+        if (vectorsPath == null || vectorsPath.isBlank()) {
+            logger.info("No word vector table configured, scoring guesses lexically");
+            return;
+        }
+        try {
+            table = WordVectorTable.open(Path.of(vectorsPath), maxWords);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load word vectors from " + vectorsPath, e);
+        }
+        logger.info("Mapped {} word vectors with {} dimensions from {}",
+            table.getWordCount(), table.getDimensions(), vectorsPath);
+    }
+    
+    @Override
+    public PreparedPrompt prepare(String promptText) {
+        PromptFeatures features = lexicalScorer.prepare(promptText);
+        if (table == null) {
+            return features;
+        }
+        
+        float[] vector = new float[table.getDimensions()];
+        if (embed(promptText, vector, 0, new LexicalGuessScorer.Scratch()) == 0) {
+            return new PromptEmbedding(features, null);
+        }
+        normalize(vector);
+        return new PromptEmbedding(features, vector);
+    }
+    
+    @Override
+    public void scoreRound(PreparedPrompt prompt, Collection<Guess> guesses, long timeLimitMs) {
+        if (!(prompt instanceof PromptEmbedding embedding)) {
+            lexicalScorer.scoreRound(prompt, guesses, timeLimitMs);
+            return;
+        }
+        if (embedding.vector == null) {
+            lexicalScorer.scoreRound(embedding.features, guesses, timeLimitMs);
+            return;
+        }
+        
+        Guess[] batch = guesses.toArray(new Guess[0]);
+        int dimensions = table.getDimensions();
+        // One row per guess; pieces scored in parallel write disjoint rows
+        float[] matrix = new float[batch.length * dimensions];
+        GuessScoringTask.scoreAll(batch.length, lexicalScorer.getParallelThreshold(), () -> {
+            LexicalGuessScorer.Scratch buffers = new LexicalGuessScorer.Scratch();
+            return i -> scoreGuess(embedding, batch[i], matrix, i * dimensions, timeLimitMs, buffers);
+        });
+    }
+    
+    private void scoreGuess(PromptEmbedding prompt, Guess guess, float[] matrix, int offset, long timeLimitMs,
+                            LexicalGuessScorer.Scratch buffers) {
+        String text = guess.getGuessText();
+        double accuracy = 0;
+        if (text != null) {
+            accuracy = lexicalScorer.accuracy(prompt.features, text, buffers);
+            if (embed(text, matrix, offset, buffers) > 0) {
+                double similarity = cosine(matrix, offset, prompt.vector);
+                double semantic = Math.max(0, (similarity - similarityFloor) / (1 - similarityFloor));
+                accuracy = Math.min(1.0, semanticWeight * semantic + (1 - semanticWeight) * accuracy);
+            }
+        }
+        guess.setAccuracy(accuracy);
+        guess.setScore(lexicalScorer.points(accuracy, guess.getResponseTimeMs(), timeLimitMs));
+    }
+    
+    /**
+     * Sum the vectors of a text's content words into a row of a matrix
+     * @param text The text
+     * @param matrix Target matrix, row-major
+     * @param offset Start of the row
+     * @param buffers Scratch buffers of the calling piece
+     * @return Number of words that had a vector
+     */
+    private int embed(CharSequence text, float[] matrix, int offset, LexicalGuessScorer.Scratch buffers) {
+        char[] word = buffers.word;
+        int length = 0;
+        int known = 0;
+        
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? Character.toLowerCase(text.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (length == word.length) {
+                    word = buffers.word = Arrays.copyOf(word, word.length * 2);
+                }
+                word[length++] = c;
+                continue;
+            }
+            if (length > 0 && !lexicalScorer.isStopWord(word, length)) {
+                int index = table.indexOf(LexicalGuessScorer.hash(word, length));
+                if (index < 0) {
+                    // Tables hold inflected forms too, but fall back to the stem for rare ones
+                    index = table.indexOf(LexicalGuessScorer.hash(word, LexicalGuessScorer.stem(word, length)));
+                }
+                if (index >= 0) {
+                    table.addVector(index, matrix, offset);
+                    known++;
+                }
+            }
+            length = 0;
+        }
+        return known;
+    }
+    
+    /**
+     * Cosine similarity of a row of a matrix with a unit-length vector
+     * @param matrix Row-major matrix
+     * @param offset Start of the row
+     * @param prompt Unit-length vector, as long as a row
+     * @return The similarity
+     */
+    private static double cosine(float[] matrix, int offset, float[] prompt) {
+        float dot = 0;
+        float norm = 0;
+        for (int d = 0; d < prompt.length; d++) {
+            float value = matrix[offset + d];
+            dot += value * prompt[d];
+            norm += value * value;
+        }
+        return norm == 0 ? 0 : dot / Math.sqrt(norm);
+    }
+    
+    private static void normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float scale = (float) (1 / Math.sqrt(norm));
+        for (int d = 0; d < vector.length; d++) {
+            vector[d] *= scale;
+        }
+    }
+}
@@ -0,0 +1,590 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.dto.GameStateDTO;
+import com.gptuessr.ai_game.entity.Game;
+import com.gptuessr.ai_game.entity.Guess;
+import com.gptuessr.ai_game.entity.Lobby;
+import com.gptuessr.ai_game.entity.Round;
+import com.gptuessr.ai_game.repository.GameRepository;
+import com.gptuessr.ai_game.ws.GameEventPublisher;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the games of this node in memory.
+ * Every live game has its own mailbox and all changes to it are applied one at a time
+ * from that mailbox, so a game never needs locks and games never wait on each other.
+ * Prompts and guesses only change memory; the Game document is written to MongoDB when
+ * a game starts, at every round boundary and when it ends.
+ * Rounds are closed by the RoundDeadlineScheduler when the prompter or the guessers run
+ * out of time, or right away once every guess is in; guesses are scored when the round closes.
+ * After a restart the node resumes the games it was running from their last checkpoint,
+ * and a game is aborted when its lobby is closed underneath it.
+ */
+@Service
+public class GameService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameService.class);
+    
+    // Time allowed on shutdown for each game to write its last checkpoint
+    private static final long SHUTDOWN_CHECKPOINT_TIMEOUT_SECONDS = 5;
+    
+    @Autowired
+    private GameRepository gameRepository;
+    
+    @Autowired
+    private LobbyService lobbyService;
+    
+    @Autowired
+    private GameEventPublisher gameEventPublisher;
+    
+    @Autowired
+    private RoundDeadlineScheduler roundDeadlineScheduler;
+    
+    @Autowired
+    private GuessScorer guessScorer;
+    
+    // Mailboxes are drained on the application task executor, which uses virtual threads unless
+    // spring.threads.virtual.enabled is off; a checkpoint blocking on MongoDB only holds up its own game
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor mailboxExecutor;
+    
+    @Value("${game.prompt-timeout-seconds:60}")
+    private long promptTimeoutSeconds;
+    
+    @Value("${game.node-id:local}")
+    private String nodeId;
+    
+    // Live games by lobby code
+    private final Map<String, LiveGame> liveGames = new ConcurrentHashMap<>();
+    
+    /**
+     * A game owned by this node together with its mailbox.
+     * The game and the fields below it are only touched by the task draining the mailbox.
+     */
+    private static final class LiveGame {
+
+        final String lobbyCode;
+        
+        final Game game;
+        
+        final int timeLimit;
+        
+        final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+        
+        final AtomicBoolean draining = new AtomicBoolean();
+        
+        // When the current round started accepting guesses
+        long guessPhaseStartedNanos;
+        
+        // Deadline of the current round phase, cancelled when the phase ends early
+        RoundDeadlineScheduler.Deadline deadline;
+        
+        // The current round's prompt as prepared by the scorer, null until the prompt is in
+        GuessScorer.PreparedPrompt preparedPrompt;
+        
+        LiveGame(String lobbyCode, Game game, int timeLimit) {
+            this.lobbyCode = lobbyCode;
+            this.game = game;
+            this.timeLimit = timeLimit;
+        }
+    }
+    
+    /**
+     * Start a game in a lobby: flips the lobby to IN_PROGRESS and opens the first round
+     * @param lobbyCode The lobby code
+     * @param hostId The host user ID
+     * @return The updated lobby
+     * @throws IllegalArgumentException if the lobby cannot start a game
+     */
+    public Lobby startGame(String lobbyCode, String hostId) {
+        // The lobby refuses a second start while a game is running, so only one caller gets here per game
+        Lobby lobby = lobbyService.startGame(lobbyCode, hostId);
+        
+        Game game = new Game(lobby.getId(), new ArrayList<>(lobby.getPlayerIds()), lobby.getNumberOfRounds());
+        game.setOwnerNode(nodeId);
+        openRound(game, lobby.getTimeLimit());
+        try {
+            game = gameRepository.insert(game);
+        } catch (RuntimeException e) {
+            // Without a stored game the lobby must not stay IN_PROGRESS
+            lobbyService.endGame(lobbyCode);
+            throw e;
+        }
+        
+        LiveGame live = new LiveGame(lobbyCode, game, lobby.getTimeLimit());
+        liveGames.put(lobbyCode, live);
+        logger.info("Started game {} in lobby {} with {} rounds", game.getId(), lobbyCode, game.getTotalRounds());
+        
+        call(live, () -> {
+            armDeadline(live, Duration.ofSeconds(promptTimeoutSeconds));
+            publishState(live);
+            return null;
+        });
+        return lobby;
+    }
+    
+    /**
+     * Submit the prompt for the current round; only the round's prompter may do so
+     * @param lobbyCode The lobby code
+     * @param playerId The user ID of the prompter
+     * @param promptText The prompt the other players have to guess
+     * @param imageUrl The URL of the image generated from the prompt (optional)
+     * @return The game state after the prompt was accepted
+     * @throws IllegalArgumentException if no game is running or the round does not accept a prompt
+     */
+    public GameStateDTO submitPrompt(String lobbyCode, String playerId, String promptText, String imageUrl) {
+        LiveGame live = getLiveGame(lobbyCode);
+        
+        return call(live, () -> {
+            Round round = activeRound(live);
+            if (!playerId.equals(round.getPrompterId())) {
+                throw new IllegalArgumentException("Only the prompter can submit the prompt");
+            }
+            if (round.getStatus() != Round.RoundStatus.WAITING_FOR_PROMPT) {
+                throw new IllegalArgumentException("The prompt for this round was already submitted");
+            }
+            
+            round.setPromptText(promptText);
+            round.setGeneratedImageUrl(imageUrl);
+            live.preparedPrompt = guessScorer.prepare(promptText);
+            round.setStatus(Round.RoundStatus.WAITING_FOR_GUESSES);
+            round.setStartedAt(LocalDateTime.now());
+            live.guessPhaseStartedNanos = System.nanoTime();
+            armDeadline(live, Duration.ofSeconds(round.getTimeLimit()));
+            logger.debug("Round {} of lobby {} is open for guesses", round.getRoundNumber(), lobbyCode);
+            
+            return publishState(live);
+        });
+    }
+    
+    /**
+     * Submit a guess for the current round.
+     * The guess is only recorded in memory; when the last expected guess arrives the round is closed.
+     * @param lobbyCode The lobby code
+     * @param playerId The user ID of the guessing player
+     * @param guessText The guess
+     * @return The number of guesses received so far in this round
+     * @throws IllegalArgumentException if no game is running or the guess is not allowed
+     */
+    public int submitGuess(String lobbyCode, String playerId, String guessText) {
+        LiveGame live = getLiveGame(lobbyCode);
+        
+        return call(live, () -> {
+            Game game = live.game;
+            Round round = activeRound(live);
+            if (!game.getPlayerIds().contains(playerId)) {
+                throw new IllegalArgumentException("Player is not part of this game");
+            }
+            if (playerId.equals(round.getPrompterId())) {
+                throw new IllegalArgumentException("The prompter cannot guess");
+            }
+            if (round.getStatus() != Round.RoundStatus.WAITING_FOR_GUESSES) {
+                throw new IllegalArgumentException("This round is not accepting guesses");
+            }
+            if (round.getPlayerGuesses().containsKey(playerId)) {
+                throw new IllegalArgumentException("Guess already submitted for this round");
+            }
+            
+            long responseTimeMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - live.guessPhaseStartedNanos);
+            round.addPlayerGuess(playerId, new Guess(playerId, guessText, responseTimeMs));
+            int guesses = round.getPlayerGuesses().size();
+            
+            if (round.areAllGuessesSubmitted(game.getPlayerIds())) {
+                completeRound(live);
+            }
+            return guesses;
+        });
+    }
+    
+    /**
+     * Get the state of the game in a lobby, falling back to the last stored game when none is running
+     * @param lobbyCode The lobby code
+     * @return The game state
+     * @throws IllegalArgumentException if the lobby never had a game
+     */
+    public GameStateDTO getGameState(String lobbyCode) {
+        LiveGame live = liveGames.get(lobbyCode);
+        if (live != null) {
+            return call(live, () -> GameStateDTO.fromGame(live.game, lobbyCode));
+        }
+        
+        Lobby lobby = lobbyService.findByLobbyCode(lobbyCode)
+            .orElseThrow(() -> new IllegalArgumentException("Lobby not found"));
+        Game game = gameRepository.findFirstByLobbyIdOrderByStartedAtDesc(lobby.getId())
+            .orElseThrow(() -> new IllegalArgumentException("No game found for this lobby"));
+        return GameStateDTO.fromGame(game, lobbyCode);
+    }
+    
+    /**
+     * End the game in a lobby before all rounds were played, then end the lobby's game
+     * @param lobbyCode The lobby code
+     * @param hostId The host user ID
+     * @return The updated lobby
+     * @throws IllegalArgumentException if the lobby does not exist or the user is not its host
+     */
+    public Lobby endGame(String lobbyCode, String hostId) {
+        Lobby lobby = lobbyService.findByLobbyCode(lobbyCode)
+            .orElseThrow(() -> new IllegalArgumentException("Lobby not found"));
+        if (!hostId.equals(lobby.getHostId())) {
+            logger.warn("Cannot end game: User {} is not the host of lobby {}", hostId, lobbyCode);
+            throw new IllegalArgumentException("Only the host can end the game");
+        }
+        
+        LiveGame live = liveGames.get(lobbyCode);
+        if (live != null) {
+            call(live, () -> {
+                finishGame(live, Game.GameStatus.ABORTED);
+                return null;
+            });
+        }
+        return lobbyService.endGame(lobbyCode);
+    }
+    
+    /**
+     * Abort the game of a lobby that was closed while the game was running
+     * @param event The closed lobby
+     */
+    @EventListener
+    public void onLobbyClosed(LobbyService.LobbyClosedEvent event) {
+        LiveGame live = liveGames.get(event.lobbyCode());
+        if (live == null) {
+            return;
+        }
+        
+        try {
+            call(live, () -> {
+                if (live.game.getStatus() == Game.GameStatus.IN_PROGRESS) {
+                    finishGame(live, Game.GameStatus.ABORTED);
+                }
+                return null;
+            });
+        } catch (RuntimeException e) {
+            logger.error("Failed to abort game {} of closed lobby {}: {}", live.game.getId(), live.lobbyCode, e.getMessage());
+        }
+    }
+    
+    /**
+     * Resume the games this node was running when it stopped, so their lobbies do not stay
+     * IN_PROGRESS without a game; games whose lobby is gone or no longer in progress are aborted
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverGames() {
+        for (Game game : gameRepository.findByStatusAndOwnerNode(Game.GameStatus.IN_PROGRESS, nodeId)) {
+            try {
+                recoverGame(game);
+            } catch (Exception e) {
+                logger.error("Failed to recover game {}: {}", game.getId(), e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Write a last checkpoint of every live game before the node stops
+     */
+    @PreDestroy
+    public void checkpointAll() {
+        for (LiveGame live : liveGames.values()) {
+            try {
+                submit(live, () -> {
+                    checkpoint(live);
+                    return null;
+                }).get(SHUTDOWN_CHECKPOINT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                logger.error("Failed to checkpoint game {} on shutdown: {}", live.game.getId(), e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Resume a checkpointed game, or abort it when its lobby does not run a game anymore
+     * @param game The stored game
+     */
+    private void recoverGame(Game game) {
+        Lobby lobby = lobbyService.findById(game.getLobbyId()).orElse(null);
+        if (lobby == null || lobby.getStatus() != Lobby.GameStatus.IN_PROGRESS) {
+            game.setStatus(Game.GameStatus.ABORTED);
+            game.setEndedAt(LocalDateTime.now());
+            gameRepository.save(game);
+            logger.info("Aborted game {} interrupted by a restart, its lobby is {}",
+                game.getId(), lobby == null ? "gone" : lobby.getStatus());
+            return;
+        }
+        
+        LiveGame live = new LiveGame(lobby.getLobbyCode(), game, lobby.getTimeLimit());
+        if (liveGames.putIfAbsent(live.lobbyCode, live) != null) {
+            return;
+        }
+        call(live, () -> {
+            resumeRound(live);
+            publishState(live);
+            return null;
+        });
+        logger.info("Resumed game {} in lobby {} at round {}", game.getId(), live.lobbyCode, game.getCurrentRound());
+    }
+    
+    /**
+     * Restart the clock of the current round after a restart. Runs in the game's mailbox.
+     * A round that was taking guesses keeps them and gets its full time limit again;
+     * any other round starts over from the prompt.
+     * @param live The resumed game
+     */
+    private void resumeRound(LiveGame live) {
+        Round round = currentRound(live.game);
+        if (round.getStatus() == Round.RoundStatus.WAITING_FOR_GUESSES && round.getPromptText() != null) {
+            live.preparedPrompt = guessScorer.prepare(round.getPromptText());
+            round.setStartedAt(LocalDateTime.now());
+            live.guessPhaseStartedNanos = System.nanoTime();
+            armDeadline(live, Duration.ofSeconds(round.getTimeLimit()));
+            return;
+        }
+        
+        round.setStatus(Round.RoundStatus.WAITING_FOR_PROMPT);
+        round.setPromptText(null);
+        round.setGeneratedImageUrl(null);
+        round.getPlayerGuesses().clear();
+        armDeadline(live, Duration.ofSeconds(promptTimeoutSeconds));
+    }
+    
+    /**
+     * Close the current round, add its scores and open the next round or finish the game.
+     * Runs in the game's mailbox.
+     * @param live The game
+     */
+    private void completeRound(LiveGame live) {
+        Game game = live.game;
+        Round round = currentRound(game);
+        cancelDeadline(live);
+        
+        round.setStatus(Round.RoundStatus.EVALUATING_GUESSES);
+        if (live.preparedPrompt != null) {
+            guessScorer.scoreRound(live.preparedPrompt, round.getPlayerGuesses().values(),
+                TimeUnit.SECONDS.toMillis(round.getTimeLimit()));
+            live.preparedPrompt = null;
+        }
+        game.applyRoundScores(round);
+        round.setStatus(Round.RoundStatus.COMPLETED);
+        round.setEndedAt(LocalDateTime.now());
+        logger.debug("Completed round {} of lobby {} with {} guesses",
+            round.getRoundNumber(), live.lobbyCode, round.getPlayerGuesses().size());
+        
+        game.incrementCurrentRound();
+        if (game.isGameOver()) {
+            finishGame(live, Game.GameStatus.FINISHED);
+            try {
+                lobbyService.endGame(live.lobbyCode);
+            } catch (RuntimeException e) {
+                // The game is stored as finished; the last guess must not fail because of the lobby
+                logger.error("Failed to end lobby {} after game {} finished: {}", live.lobbyCode, game.getId(), e.getMessage());
+            }
+            return;
+        }
+        
+        openRound(game, live.timeLimit);
+        armDeadline(live, Duration.ofSeconds(promptTimeoutSeconds));
+        checkpoint(live);
+        publishState(live);
+    }
+    
+    /**
+     * Mark a game as over, store it and stop tracking it. Runs in the game's mailbox.
+     * @param live The game
+     * @param status FINISHED or ABORTED
+     */
+    private void finishGame(LiveGame live, Game.GameStatus status) {
+        Game game = live.game;
+        game.setStatus(status);
+        game.setEndedAt(LocalDateTime.now());
+        cancelDeadline(live);
+        liveGames.remove(live.lobbyCode, live);
+        
+        checkpoint(live);
+        publishState(live);
+        logger.info("Game {} in lobby {} ended: {}", game.getId(), live.lobbyCode, status);
+    }
+    
+    /**
+     * Close the current round phase when its time is up. Runs in the game's mailbox.
+     * @param live The game
+     * @param roundNumber The round the deadline was set for
+     * @param phase The round status the deadline was set for
+     */
+    private void onDeadline(LiveGame live, int roundNumber, Round.RoundStatus phase) {
+        Game game = live.game;
+        Round round = currentRound(game);
+        if (game.getStatus() != Game.GameStatus.IN_PROGRESS || round.getRoundNumber() != roundNumber
+                || round.getStatus() != phase) {
+            // The phase already ended; the deadline lost the race against the last guess
+            return;
+        }
+        
+        if (phase == Round.RoundStatus.WAITING_FOR_PROMPT) {
+            logger.debug("Prompter {} missed round {} of lobby {}", round.getPrompterId(), roundNumber, live.lobbyCode);
+        } else {
+            logger.debug("Time is up for round {} of lobby {}", roundNumber, live.lobbyCode);
+        }
+        live.deadline = null;
+        completeRound(live);
+    }
+    
+    /**
+     * Replace the deadline of the game with one for the current round phase
+     * @param live The game
+     * @param delay Time left for the phase
+     */
+    private void armDeadline(LiveGame live, Duration delay) {
+        cancelDeadline(live);
+        Round round = currentRound(live.game);
+        int roundNumber = round.getRoundNumber();
+        Round.RoundStatus phase = round.getStatus();
+        live.deadline = roundDeadlineScheduler.schedule(delay, () -> submit(live, () -> {
+            onDeadline(live, roundNumber, phase);
+            return null;
+        }));
+    }
+    
+    private static void cancelDeadline(LiveGame live) {
+        if (live.deadline != null) {
+            live.deadline.cancel();
+            live.deadline = null;
+        }
+    }
+    
+    /**
+     * Add the round for the game's current round number, rotating the prompter through the players
+     * @param game The game
+     * @param timeLimit The time limit for guesses in seconds
+     */
+    private static void openRound(Game game, int timeLimit) {
+        int roundNumber = game.getCurrentRound();
+        String prompterId = game.getPlayerIds().get((roundNumber - 1) % game.getPlayerIds().size());
+        
+        game.addRound(new Round(roundNumber, prompterId, timeLimit));
+        game.setCurrentPrompter(prompterId);
+    }
+    
+    private static Round currentRound(Game game) {
+        return game.getRounds().get(game.getRounds().size() - 1);
+    }
+    
+    /**
+     * Get the current round of a game that is still being played. Runs in the game's mailbox.
+     * @param live The game
+     * @return The current round
+     * @throws IllegalArgumentException if the game ended while the command was queued
+     */
+    private static Round activeRound(LiveGame live) {
+        if (live.game.getStatus() != Game.GameStatus.IN_PROGRESS) {
+            throw new IllegalArgumentException("No game is running in this lobby");
+        }
+        return currentRound(live.game);
+    }
+    
+    /**
+     * Store the game document; a failed write is logged and retried at the next boundary
+     * @param live The game
+     */
+    private void checkpoint(LiveGame live) {
+        try {
+            gameRepository.save(live.game);
+        } catch (Exception e) {
+            logger.error("Failed to checkpoint game {} in lobby {}: {}", live.game.getId(), live.lobbyCode, e.getMessage());
+        }
+    }
+    
+    private GameStateDTO publishState(LiveGame live) {
+        GameStateDTO state = GameStateDTO.fromGame(live.game, live.lobbyCode);
+        gameEventPublisher.publish(state);
+        return state;
+    }
+    
+    private LiveGame getLiveGame(String lobbyCode) {
+        LiveGame live = liveGames.get(lobbyCode);
+        if (live == null) {
+            throw new IllegalArgumentException("No game is running in this lobby");
+        }
+        return live;
+    }
+    
+    /**
+     * Run a command in the game's mailbox and wait for its result
+     * @param live The game
+     * @param command The command
+     * @return The command's result
+     */
+    private <T> T call(LiveGame live, Callable<T> command) {
+        try {
+            return submit(live, command).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Queue a command in the game's mailbox
+     * @param live The game
+     * @param command The command
+     * @return Future completed with the command's result
+     */
+    private <T> CompletableFuture<T> submit(LiveGame live, Callable<T> command) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        live.mailbox.add(() -> {
+            try {
+                result.complete(command.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        scheduleDrain(live);
+        return result;
+    }
+    
+    private void scheduleDrain(LiveGame live) {
+        if (live.draining.compareAndSet(false, true)) {
+            mailboxExecutor.execute(() -> drain(live));
+        }
+    }
+    
+    /**
+     * Run the queued commands of a game one after another
+     * @param live The game
+     */
+    private void drain(LiveGame live) {
+        Runnable command;
+        while ((command = live.mailbox.poll()) != null) {
+            command.run();
+        }
+        live.draining.set(false);
+        
+        // A command queued between the last poll and the reset would otherwise wait for the next submit
+        if (!live.mailbox.isEmpty()) {
+            scheduleDrain(live);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Guess;
+
+import java.util.Collection;
+
+/**
+ * Strategy for scoring the guesses of a round against its prompt.
+ * prepare() runs once when the prompt is submitted and its result is kept for the round;
+ * scoreRound() runs once when the round closes and scores all of its guesses together.
+ */
+public interface GuessScorer {
+
+    /**
+     * Prompt-side state of one round, immutable once prepared
+     */
+    interface PreparedPrompt {
+        
+        String getPromptText();
+    }
+    
+    /**
+     * Precompute everything about a prompt that does not depend on the guesses
+     * @param promptText The round's prompt
+     * @return The prepared prompt
+     */
+    PreparedPrompt prepare(String promptText);
+    
+    /**
+     * Set the accuracy and score of every guess of a round
+     * @param prompt The prompt prepared by this scorer
+     * @param guesses The round's guesses
+     * @param timeLimitMs The time players had to guess
+     */
+    void scoreRound(PreparedPrompt prompt, Collection<Guess> guesses, long timeLimitMs);
+}
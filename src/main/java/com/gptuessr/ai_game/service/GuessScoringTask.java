@@ -0,0 +1,68 @@
+package com.gptuessr.ai_game.service;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Fork-join task scoring a range of a round's guesses.
+ * The range is split in halves until the pieces are small enough to score directly; each
+ * guess is scored independently and only writes its own Guess, so pieces need no locking.
+ * Each piece asks for its own scoring function, so scratch buffers are shared by the guesses
+ * of one piece but never between threads.
+ */
+final class GuessScoringTask extends RecursiveAction {
+
+    private static final int MIN_CHUNK = 32;
+    
+    private final Supplier<IntConsumer> scorer;
+    
+    private final int from;
+    
+    private final int to;
+    
+    private final int chunk;
+    
+    private GuessScoringTask(Supplier<IntConsumer> scorer, int from, int to, int chunk) {
+        this.scorer = scorer;
+        this.from = from;
+        this.to = to;
+        this.chunk = chunk;
+    }
+    
+    /**
+     * Score guesses 0 to count - 1, in parallel on the common pool once there are enough of them.
+     * Returns when all guesses are scored.
+     * @param count Number of guesses
+     * @param parallelThreshold Smallest count scored in parallel
+     * @param scorer Creates a function scoring the guess with the given index, once per piece
+     */
+    static void scoreAll(int count, int parallelThreshold, Supplier<IntConsumer> scorer) {
+        if (count < parallelThreshold) {
+            IntConsumer scoreGuess = scorer.get();
+            for (int i = 0; i < count; i++) {
+                scoreGuess.accept(i);
+            }
+            return;
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        // A few pieces per worker so a slow piece does not leave the others idle
+        int chunk = Math.max(MIN_CHUNK, count / (pool.getParallelism() * 4));
+        pool.invoke(new GuessScoringTask(scorer, 0, count, chunk));
+    }
+    
+    @Override
+    protected void compute() {
+        if (to - from <= chunk) {
+            IntConsumer scoreGuess = scorer.get();
+            for (int i = from; i < to; i++) {
+                scoreGuess.accept(i);
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        invokeAll(new GuessScoringTask(scorer, from, middle, chunk),
+            new GuessScoringTask(scorer, middle, to, chunk));
+    }
+}
@@ -0,0 +1,380 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Guess;
+import com.gptuessr.ai_game.util.LongIntHashMap;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Scores guesses by how much of the prompt's wording they reproduce.
+ * Both texts are lower-cased, split into words, stripped of stop words and reduced to a
+ * light stem; a guess word matches a prompt word when the stems are equal or both are in
+ * the same synonym group. The word F1 score is blended with the overlap of character
+ * trigrams, which catches typos and compound words, into an accuracy between 0 and 1.
+ * All prompt-side work happens once in prepare(); scoring a guess walks its characters
+ * once and only touches primitive tables and scratch buffers that belong to the piece of
+ * the round being scored, so a round allocates buffers per piece rather than per guess.
+ */
+@Component
+public class LexicalGuessScorer implements GuessScorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LexicalGuessScorer.class);
+    
+    private static final String[] STOP_WORDS = {
+        "a", "an", "the", "of", "on", "in", "at", "to", "for", "from", "with", "and", "or", "by",
+        "is", "are", "was", "were", "be", "it", "its", "this", "that", "these", "those", "as",
+        "into", "onto", "over", "under", "near", "some", "very", "his", "her", "their", "my"
+    };
+    
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    
+    @Autowired
+    private ResourceLoader resourceLoader;
+    
+    @Value("${game.scoring.synonyms-location:classpath:scoring/synonyms.txt}")
+    private String synonymsLocation;
+    
+    @Value("${game.scoring.max-points:100}")
+    private int maxPoints;
+    
+    @Value("${game.scoring.time-bonus-points:20}")
+    private int timeBonusPoints;
+    
+    @Value("${game.scoring.time-bonus-min-accuracy:0.3}")
+    private double timeBonusMinAccuracy;
+    
+    @Value("${game.scoring.word-weight:0.7}")
+    private double wordWeight;
+    
+    // Below this many guesses, forking costs more than scoring on the caller's thread
+    @Value("${game.scoring.parallel-threshold:256}")
+    private int parallelThreshold;
+    
+    // Stem hash -> synonym group
+    private LongIntHashMap synonymGroups = new LongIntHashMap(16);
+    
+    // Word hash -> 0 for every stop word
+    private final LongIntHashMap stopWords = new LongIntHashMap(STOP_WORDS.length);
+    
+    /**
+     * Buffers reused across the guesses scored one after another by one piece of a round.
+     * Created per piece instead of per thread: mailbox tasks run on a fresh virtual thread
+     * each time, so a thread-local would be rebuilt for every round anyway.
+     */
+    static final class Scratch {
+        
+        char[] word = new char[32];
+        
+        long[] matchedWords = new long[1];
+    }
+    
+    /**
+     * Hash the stop words and load the synonym groups
+     */
+    @PostConstruct
+    public void init() {
+        for (String stopWord : STOP_WORDS) {
+            stopWords.putIfAbsent(hash(stopWord.toCharArray(), stopWord.length()), 0);
+        }
+        
+        Resource resource = resourceLoader.getResource(synonymsLocation);
+        if (!resource.exists()) {
+            logger.warn("No synonym list at {}, scoring exact words only", synonymsLocation);
+            return;
+        }
+        
+        LongIntHashMap groups = new LongIntHashMap(1024);
+        int groupCount = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                for (String word : line.split(",")) {
+                    char[] chars = word.trim().toLowerCase().toCharArray();
+                    if (chars.length > 0) {
+                        // A word in two groups keeps its first group
+                        groups.putIfAbsent(hash(chars, stem(chars, chars.length)), groupCount);
+                    }
+                }
+                groupCount++;
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to load synonyms from " + synonymsLocation, e);
+        }
+        synonymGroups = groups;
+        logger.info("Loaded {} synonym groups with {} words", groupCount, groups.size());
+    }
+    
+    /**
+     * Precompute the prompt-side tables of a round
+     * @param promptText The round's prompt
+     * @return The prompt features
+     */
+    @Override
+    public PromptFeatures prepare(String promptText) {
+        LongIntHashMap stemIndex = new LongIntHashMap(16);
+        LongIntHashMap groupIndex = new LongIntHashMap(16);
+        char[] word = new char[Math.max(32, promptText.length())];
+        int length = 0;
+        
+        for (int i = 0; i <= promptText.length(); i++) {
+            char c = i < promptText.length() ? Character.toLowerCase(promptText.charAt(i)) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word[length++] = c;
+                continue;
+            }
+            if (length > 0 && !isStopWord(word, length)) {
+                long stemHash = hash(word, stem(word, length));
+                int index = stemIndex.putIfAbsent(stemHash, stemIndex.size());
+                int group = synonymGroups.get(stemHash);
+                if (group != LongIntHashMap.MISSING) {
+                    groupIndex.putIfAbsent(group, index);
+                }
+            }
+            length = 0;
+        }
+        
+        LongIntHashMap trigrams = new LongIntHashMap(promptText.length() + 2);
+        long window = 0;
+        int filled = 0;
+        boolean lastWasSpace = true;
+        for (int i = 0; i <= promptText.length(); i++) {
+            char c = i < promptText.length() ? normalizeForTrigram(promptText.charAt(i)) : ' ';
+            if (c == ' ' && lastWasSpace) {
+                continue;
+            }
+            lastWasSpace = c == ' ';
+            window = (window << 16 | c) & 0xFFFF_FFFF_FFFFL;
+            if (++filled >= 3) {
+                trigrams.putIfAbsent(window, 0);
+            }
+        }
+        
+        return new PromptFeatures(promptText, stemIndex, groupIndex, stemIndex.size(), trigrams, trigrams.size());
+    }
+    
+    /**
+     * Compute how close a guess is to the prompt
+     * @param features The prompt features of the round
+     * @param guessText The guess
+     * @param buffers Scratch buffers of the calling piece, not shared with other threads
+     * @return Accuracy between 0 and 1
+     */
+    double accuracy(PromptFeatures features, CharSequence guessText, Scratch buffers) {
+        int promptWords = features.getWordCount();
+        long[] matched = buffers.matchedWords;
+        int matchedWordsLength = (promptWords + 63) >>> 6;
+        if (matched.length < matchedWordsLength) {
+            matched = buffers.matchedWords = new long[matchedWordsLength];
+        }
+        for (int i = 0; i < matchedWordsLength; i++) {
+            matched[i] = 0;
+        }
+        
+        char[] word = buffers.word;
+        int length = 0;
+        int guessWords = 0;
+        int matchingGuessWords = 0;
+        int distinctMatches = 0;
+        
+        long window = 0;
+        int filled = 0;
+        boolean lastWasSpace = true;
+        int guessTrigrams = 0;
+        int sharedTrigrams = 0;
+        
+        for (int i = 0; i <= guessText.length(); i++) {
+            char raw = i < guessText.length() ? guessText.charAt(i) : ' ';
+            
+            // Character trigrams over the normalized text
+            char t = normalizeForTrigram(raw);
+            if (!(t == ' ' && lastWasSpace)) {
+                lastWasSpace = t == ' ';
+                window = (window << 16 | t) & 0xFFFF_FFFF_FFFFL;
+                if (++filled >= 3) {
+                    guessTrigrams++;
+                    if (features.hasTrigram(window)) {
+                        sharedTrigrams++;
+                    }
+                }
+            }
+            
+            // Words
+            char c = Character.toLowerCase(raw);
+            if (Character.isLetterOrDigit(c)) {
+                if (length == word.length) {
+                    word = buffers.word = Arrays.copyOf(word, word.length * 2);
+                }
+                word[length++] = c;
+                continue;
+            }
+            if (length > 0 && !isStopWord(word, length)) {
+                guessWords++;
+                long stemHash = hash(word, stem(word, length));
+                int index = features.matchWord(stemHash, synonymGroups.get(stemHash));
+                if (index != LongIntHashMap.MISSING) {
+                    matchingGuessWords++;
+                    long bit = 1L << index;
+                    if ((matched[index >>> 6] & bit) == 0) {
+                        matched[index >>> 6] |= bit;
+                        distinctMatches++;
+                    }
+                }
+            }
+            length = 0;
+        }
+        
+        double wordScore = 0;
+        if (promptWords > 0 && guessWords > 0 && distinctMatches > 0) {
+            double recall = (double) distinctMatches / promptWords;
+            double precision = (double) matchingGuessWords / guessWords;
+            wordScore = 2 * precision * recall / (precision + recall);
+        }
+        
+        double trigramScore = 0;
+        if (features.getTrigramCount() + guessTrigrams > 0) {
+            trigramScore = Math.min(1.0, 2.0 * sharedTrigrams / (features.getTrigramCount() + guessTrigrams));
+        }
+        
+        return wordWeight * wordScore + (1 - wordWeight) * trigramScore;
+    }
+    
+    @Override
+    public void scoreRound(PreparedPrompt prompt, Collection<Guess> guesses, long timeLimitMs) {
+        PromptFeatures features = (PromptFeatures) prompt;
+        Guess[] batch = guesses.toArray(new Guess[0]);
+        GuessScoringTask.scoreAll(batch.length, parallelThreshold, () -> {
+            Scratch buffers = new Scratch();
+            return i -> score(features, batch[i], timeLimitMs, buffers);
+        });
+    }
+    
+    /**
+     * Smallest round whose guesses are scored in parallel
+     * @return The number of guesses
+     */
+    int getParallelThreshold() {
+        return parallelThreshold;
+    }
+    
+    /**
+     * Set the accuracy and score of a guess
+     * @param features The prompt features of the round
+     * @param guess The guess
+     * @param timeLimitMs The time players had to guess
+     * @param buffers Scratch buffers of the calling piece
+     */
+    void score(PromptFeatures features, Guess guess, long timeLimitMs, Scratch buffers) {
+        double accuracy = guess.getGuessText() == null ? 0 : accuracy(features, guess.getGuessText(), buffers);
+        guess.setAccuracy(accuracy);
+        guess.setScore(points(accuracy, guess.getResponseTimeMs(), timeLimitMs));
+    }
+    
+    /**
+     * Turn an accuracy into points; reasonable guesses earn a bonus for answering early
+     * @param accuracy Accuracy between 0 and 1
+     * @param responseTimeMs Time the player took
+     * @param timeLimitMs Time players had to guess
+     * @return The points
+     */
+    public int points(double accuracy, long responseTimeMs, long timeLimitMs) {
+        int points = (int) Math.round(accuracy * maxPoints);
+        if (accuracy >= timeBonusMinAccuracy && timeLimitMs > 0) {
+            double remaining = Math.max(0, 1 - (double) responseTimeMs / timeLimitMs);
+            points += (int) Math.round(remaining * timeBonusPoints);
+        }
+        return points;
+    }
+    
+    /**
+     * Strip common English inflections in place
+     * @param word Lower-case letters
+     * @param length Length of the word in the buffer
+     * @return Length of the stem
+     */
+    static int stem(char[] word, int length) {
+        if (length > 4 && endsWith(word, length, "ies")) {
+            length -= 2;
+            word[length - 1] = 'y';
+        } else if (length > 4 && endsWith(word, length, "es")
+                && (endsWith(word, length - 2, "s") || endsWith(word, length - 2, "x")
+                    || endsWith(word, length - 2, "ch") || endsWith(word, length - 2, "sh"))) {
+            length -= 2;
+        } else if (length > 3 && word[length - 1] == 's' && word[length - 2] != 's' && word[length - 2] != 'u') {
+            length -= 1;
+        }
+        
+        if (length > 5 && endsWith(word, length, "ing")) {
+            length = undouble(word, length - 3);
+        } else if (length > 4 && endsWith(word, length, "ed")) {
+            length = undouble(word, length - 2);
+        }
+        
+        if (length > 4 && endsWith(word, length, "ly")) {
+            length -= 2;
+        }
+        return length;
+    }
+    
+    // "running" -> "runn" -> "run"
+    private static int undouble(char[] word, int length) {
+        char last = word[length - 1];
+        if (length > 2 && last == word[length - 2] && last != 'l' && last != 's' && last != 'z'
+                && Character.isLetter(last)) {
+            return length - 1;
+        }
+        return length;
+    }
+    
+    private static boolean endsWith(char[] word, int length, String suffix) {
+        int offset = length - suffix.length();
+        if (offset < 0) {
+            return false;
+        }
+        for (int i = 0; i < suffix.length(); i++) {
+            if (word[offset + i] != suffix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Check whether a lower-case word is a stop word
+     * @param word The buffer holding the word
+     * @param length Length of the word
+     * @return true if the word carries no meaning for scoring
+     */
+    boolean isStopWord(char[] word, int length) {
+        return stopWords.get(hash(word, length)) != LongIntHashMap.MISSING;
+    }
+    
+    static long hash(char[] word, int length) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < length; i++) {
+            hash = (hash ^ word[i]) * FNV_PRIME;
+        }
+        return hash;
+    }
+    
+    private static char normalizeForTrigram(char c) {
+        return Character.isLetterOrDigit(c) ? Character.toLowerCase(c) : ' ';
+    }
+}
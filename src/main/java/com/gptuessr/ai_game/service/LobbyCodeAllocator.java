@@ -0,0 +1,68 @@
+package com.gptuessr.ai_game.service;
+
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out lobby codes without asking the database whether a code is taken.
+ * A counter is walked through a fixed permutation of all 32^6 = 2^30 codes, so
+ * codes from one node never repeat before the whole code space is used and
+ * consecutive codes do not look sequential. Each node starts at a random point
+ * of the sequence; the rare overlap between nodes is caught by the unique index
+ * on lobbyCode and resolved by taking the next code.
+ */
+@Component
+public class LobbyCodeAllocator {
+
+    private static final String ALPHABET = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+
+    private static final int CODE_LENGTH = 6;
+
+    // 5 bits per character
+    private static final int CODE_BITS = 5 * CODE_LENGTH;
+
+    private static final long CODE_MASK = (1L << CODE_BITS) - 1;
+
+    // Odd multiplier, which makes the multiplication a bijection modulo 2^30
+    private static final long MULTIPLIER = 0x2545F491L;
+
+    private final AtomicLong counter = new AtomicLong(new SecureRandom().nextLong() & CODE_MASK);
+
+    /**
+     * Get the next lobby code
+     * @return A 6-character lobby code
+     */
+    public String nextCode() {
+        return encode(permute(counter.getAndIncrement() & CODE_MASK));
+    }
+
+    /**
+     * Scramble a counter value; every step is invertible, so distinct inputs give distinct codes
+     * @param value Counter value below 2^30
+     * @return Permuted value below 2^30
+     */
+    static long permute(long value) {
+        long x = value;
+        x = (x * MULTIPLIER) & CODE_MASK;
+        x ^= x >>> 15;
+        x = (x * MULTIPLIER) & CODE_MASK;
+        x ^= x >>> 13;
+        return x;
+    }
+
+    /**
+     * Encode a 30-bit value as 6 characters of the lobby code alphabet
+     * @param value Value below 2^30
+     * @return The lobby code
+     */
+    static String encode(long value) {
+        char[] code = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            code[i] = ALPHABET.charAt((int) (value & 31));
+            value >>>= 5;
+        }
+        return new String(code);
+    }
+}
@@ -0,0 +1,612 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Lobby;
+import com.gptuessr.ai_game.repository.LobbyRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Node-local registry holding the live state of every lobby touched on this node.
+ * Reads are served from memory, mutations are applied in memory under a per-lobby lock
+ * and written back to the LobbyRepository by a scheduled flush, so several mutations of
+ * the same lobby between two flushes cost a single document write.
+ * The player list is the exception: it is only changed by atomic repository updates,
+ * which keeps joins and leaves correct when several writers race for the same lobby.
+ * Flushes are conditional on the document version. When another writer got there first and
+ * only changed the player list, local changes are rebased onto the new version; when it
+ * changed the lobby state as well, the database copy wins and local changes are dropped.
+ * Every change increments the lobby sequence number, which clients use to detect
+ * missed delta messages. Sequence numbers come from blocks reserved in the lobby document
+ * when a lobby is first changed, so a lobby reloaded after eviction, a restart or on another
+ * node continues above every number sent before and clients see a gap instead of a reused number.
+ * A lobby may be changed by another node while this node only reads it, so an entry without
+ * unflushed local changes is read again from the database once it is older than the read refresh
+ * interval; reads never serve a copy more than that interval behind the database.
+ */
+@Component
+public class LobbyRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LobbyRegistry.class);
+    
+    // Sequence numbers reserved per round trip; a lobby rarely sees more changes while it is live
+    static final long SEQUENCE_BLOCK = 1000;
+    
+    @Autowired
+    private LobbyRepository lobbyRepository;
+    
+    @Autowired
+    private LobbyStatusCounter lobbyStatusCounter;
+    
+    @Value("${lobby.registry.idle-eviction-ms:1800000}")
+    private long idleEvictionMs;
+    
+    @Value("${lobby.registry.read-refresh-ms:5000}")
+    private long readRefreshMs;
+    
+    private final Map<String, Entry> lobbies = new ConcurrentHashMap<>();
+    
+    private final Set<String> dirtyLobbyCodes = ConcurrentHashMap.newKeySet();
+    
+    // Serializes flushes; a lock instead of a monitor so virtual threads waiting on Mongo I/O are not pinned
+    private final ReentrantLock flushLock = new ReentrantLock();
+    
+    /**
+     * Live state of a single lobby. All access to the lobby goes through the entry lock,
+     * which may be held across an atomic repository update.
+     */
+    private static final class Entry {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Lobby lobby;
+        // The lobby state as last read from or written to the database
+        private Lobby persisted;
+        // End of the reserved sequence block, exclusive
+        private long sequenceLimit;
+        private long lastAccess;
+        // When the live copy was last read from or written to the database
+        private long syncedAt;
+        private boolean evicted;
+        
+        private Entry(Lobby lobby) {
+            this.lobby = lobby;
+            this.persisted = copyOf(lobby);
+            this.sequenceLimit = lobby.getSequenceCeiling();
+            this.lastAccess = System.currentTimeMillis();
+            this.syncedAt = lastAccess;
+        }
+    }
+    
+    /**
+     * Find a lobby by its code, loading it from the repository on first access and
+     * reading it again once the live copy is older than the read refresh interval
+     * @param lobbyCode The lobby code
+     * @return Optional containing a snapshot of the lobby if found
+     */
+    public Optional<Lobby> find(String lobbyCode) {
+        Entry entry = entryFor(lobbyCode);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        
+        entry.lock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (now - entry.syncedAt >= readRefreshMs && !refresh(lobbyCode, entry)) {
+                return Optional.empty();
+            }
+            entry.lastAccess = now;
+            return Optional.of(copyOf(entry.lobby));
+        } finally {
+            entry.lock.unlock();
+        }
+    }
+    
+    /**
+     * Register a freshly persisted lobby so that subsequent reads are served from memory
+     * @param lobby The saved lobby
+     * @return A snapshot of the registered lobby
+     */
+    public Lobby register(Lobby lobby) {
+        Entry entry = new Entry(copyOf(lobby));
+        lobbies.put(lobby.getLobbyCode(), entry);
+        lobbyStatusCounter.created(lobby.getStatus());
+        return copyOf(lobby);
+    }
+    
+    /**
+     * Apply a mutation to the live lobby and schedule it for persistence.
+     * The mutation runs under the lobby lock; if it throws, the lobby is not marked dirty.
+     * The listener also runs under the lobby lock, so the deltas it publishes leave in sequence order;
+     * it must not wait for other lobbies or games.
+     * @param lobbyCode The lobby code
+     * @param mutation The mutation to apply
+     * @param listener Receives the snapshot of the lobby after the mutation
+     * @return A snapshot of the lobby after the mutation
+     * @throws IllegalArgumentException if the lobby does not exist
+     */
+    public Lobby update(String lobbyCode, Consumer<Lobby> mutation, Consumer<Lobby> listener) {
+        while (true) {
+            Entry entry = entryFor(lobbyCode);
+            if (entry == null) {
+                throw new IllegalArgumentException("Lobby not found");
+            }
+            
+            entry.lock.lock();
+            try {
+                // The entry was evicted between lookup and lock, load it again
+                if (entry.evicted) {
+                    continue;
+                }
+                
+                reserveSequence(lobbyCode, entry);
+                Lobby.GameStatus previousStatus = entry.lobby.getStatus();
+                mutation.accept(entry.lobby);
+                lobbyStatusCounter.transition(previousStatus, entry.lobby.getStatus());
+                nextSequence(lobbyCode, entry);
+                entry.lastAccess = System.currentTimeMillis();
+                dirtyLobbyCodes.add(lobbyCode);
+                return notifyListener(entry, listener);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Run an atomic repository update under the lobby lock and adopt its result.
+     * The update receives the live lobby for validation only and must not modify it.
+     * Only the player list and version are taken from the returned document, so
+     * unflushed in-memory changes are kept. The listener runs under the lobby lock as for update.
+     * @param lobbyCode The lobby code
+     * @param atomicUpdate The repository update returning the updated document
+     * @param listener Receives the snapshot of the lobby after the update
+     * @return A snapshot of the lobby after the update
+     * @throws IllegalArgumentException if the lobby does not exist
+     */
+    public Lobby updateAtomically(String lobbyCode, Function<Lobby, Lobby> atomicUpdate, Consumer<Lobby> listener) {
+        while (true) {
+            Entry entry = entryFor(lobbyCode);
+            if (entry == null) {
+                throw new IllegalArgumentException("Lobby not found");
+            }
+            
+            entry.lock.lock();
+            try {
+                if (entry.evicted) {
+                    continue;
+                }
+                
+                reserveSequence(lobbyCode, entry);
+                Lobby updated = atomicUpdate.apply(entry.lobby);
+                if (sameState(updated, entry.persisted)) {
+                    entry.lobby.setPlayerIds(new ArrayList<>(updated.getPlayerIds()));
+                    adoptVersion(entry, updated.getVersion());
+                } else {
+                    // The returned document shows another writer changed the lobby state
+                    rebase(lobbyCode, entry, updated);
+                }
+                nextSequence(lobbyCode, entry);
+                entry.lastAccess = System.currentTimeMillis();
+                entry.syncedAt = entry.lastAccess;
+                return notifyListener(entry, listener);
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Apply a mutation to every live lobby matching a filter and schedule them for persistence.
+     * The listener runs under the lobby lock as for update.
+     * @param filter Selects the lobbies to mutate, evaluated under the lobby lock
+     * @param mutation The mutation to apply
+     * @param listener Receives the snapshot of each lobby after the mutation
+     * @return Snapshots of the mutated lobbies
+     */
+    public List<Lobby> updateMatching(Predicate<Lobby> filter, Consumer<Lobby> mutation, Consumer<Lobby> listener) {
+        List<Lobby> updated = new ArrayList<>();
+        for (Map.Entry<String, Entry> mapEntry : lobbies.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            entry.lock.lock();
+            try {
+                if (entry.evicted || !filter.test(entry.lobby)) {
+                    continue;
+                }
+                
+                try {
+                    reserveSequence(mapEntry.getKey(), entry);
+                } catch (IllegalArgumentException e) {
+                    // Removed from the database, drop the stale copy
+                    entry.evicted = true;
+                    lobbies.remove(mapEntry.getKey(), entry);
+                    continue;
+                }
+                Lobby.GameStatus previousStatus = entry.lobby.getStatus();
+                mutation.accept(entry.lobby);
+                lobbyStatusCounter.transition(previousStatus, entry.lobby.getStatus());
+                nextSequence(mapEntry.getKey(), entry);
+                dirtyLobbyCodes.add(mapEntry.getKey());
+                updated.add(notifyListener(entry, listener));
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        return updated;
+    }
+    
+    /**
+     * Replace repository results with the live in-memory state where available
+     * @param lobbies Lobbies loaded from the repository
+     * @return The lobbies with live state applied
+     */
+    public List<Lobby> overlay(List<Lobby> lobbies) {
+        List<Lobby> result = new ArrayList<>(lobbies.size());
+        for (Lobby lobby : lobbies) {
+            Entry entry = this.lobbies.get(lobby.getLobbyCode());
+            if (entry == null) {
+                result.add(lobby);
+                continue;
+            }
+            entry.lock.lock();
+            try {
+                result.add(copyOf(entry.lobby));
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Write all dirty lobbies back to the repository and evict lobbies that are
+     * no longer needed in memory. Multiple mutations since the last flush are
+     * coalesced into one write per lobby.
+     */
+    @Scheduled(fixedDelayString = "${lobby.registry.flush-interval-ms:500}")
+    public void flush() {
+        flushLock.lock();
+        try {
+            Iterator<String> iterator = dirtyLobbyCodes.iterator();
+            while (iterator.hasNext()) {
+                String lobbyCode = iterator.next();
+                iterator.remove();
+                
+                Entry entry = lobbies.get(lobbyCode);
+                if (entry == null) {
+                    continue;
+                }
+                
+                Lobby snapshot;
+                entry.lock.lock();
+                try {
+                    snapshot = copyOf(entry.lobby);
+                } finally {
+                    entry.lock.unlock();
+                }
+                
+                try {
+                    // Write everything but the player list, which is kept up to date atomically
+                    Long version = lobbyRepository.saveState(snapshot);
+                    Lobby current = version == null ? lobbyRepository.findById(snapshot.getId()).orElse(null) : null;
+                    entry.lock.lock();
+                    try {
+                        if (version != null) {
+                            adoptVersion(entry, version);
+                            entry.persisted = snapshot;
+                            entry.syncedAt = System.currentTimeMillis();
+                        } else if (current == null || current.getStatus() == Lobby.GameStatus.CLOSED) {
+                            // Closed or deleted in the database, drop the stale copy and reload on next access
+                            logger.info("Lobby {} was closed or removed in the database, evicting live copy", lobbyCode);
+                            entry.evicted = true;
+                            lobbies.remove(lobbyCode, entry);
+                        } else if (rebase(lobbyCode, entry, current)) {
+                            // Retry on top of the other writer's version
+                            dirtyLobbyCodes.add(lobbyCode);
+                        }
+                    } finally {
+                        entry.lock.unlock();
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to persist lobby {}, retrying on next flush", lobbyCode, e);
+                    dirtyLobbyCodes.add(lobbyCode);
+                }
+            }
+            
+            evictInactive();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    /**
+     * Reset the lobby status counts from the database. Runs under the flush lock right after a
+     * flush, so the database holds every change but those made since, and passes the status
+     * changes of live lobbies that are still unflushed to be added to the stored counts.
+     */
+    @Scheduled(fixedDelayString = "${lobby.status-counter.reconcile-interval-ms:60000}")
+    public void reconcileStatusCounts() {
+        flushLock.lock();
+        try {
+            flush();
+            lobbyStatusCounter.reconcile(this::unflushedStatusChanges);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+    
+    /**
+     * Sum up the status changes of live lobbies that differ from their database copy
+     * @return The change in number of lobbies per status
+     */
+    private Map<Lobby.GameStatus, Long> unflushedStatusChanges() {
+        Map<Lobby.GameStatus, Long> changes = new EnumMap<>(Lobby.GameStatus.class);
+        for (Entry entry : lobbies.values()) {
+            entry.lock.lock();
+            try {
+                Lobby.GameStatus stored = entry.persisted.getStatus();
+                Lobby.GameStatus live = entry.lobby.getStatus();
+                if (!entry.evicted && stored != live) {
+                    changes.merge(stored, -1L, Long::sum);
+                    changes.merge(live, 1L, Long::sum);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+        return changes;
+    }
+    
+    /**
+     * Persist pending changes before the application shuts down
+     */
+    @PreDestroy
+    public void shutdown() {
+        logger.info("Flushing {} pending lobby changes before shutdown", dirtyLobbyCodes.size());
+        flush();
+    }
+    
+    /**
+     * Remove closed, finished and idle lobbies that have no pending changes
+     */
+    private void evictInactive() {
+        long idleThreshold = System.currentTimeMillis() - idleEvictionMs;
+        
+        for (Map.Entry<String, Entry> mapEntry : lobbies.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            entry.lock.lock();
+            try {
+                if (dirtyLobbyCodes.contains(mapEntry.getKey())) {
+                    continue;
+                }
+                
+                Lobby.GameStatus status = entry.lobby.getStatus();
+                boolean inactive = status == Lobby.GameStatus.CLOSED || status == Lobby.GameStatus.FINISHED;
+                if (inactive || entry.lastAccess < idleThreshold) {
+                    entry.evicted = true;
+                    lobbies.remove(mapEntry.getKey(), entry);
+                }
+            } finally {
+                entry.lock.unlock();
+            }
+        }
+    }
+    
+    /**
+     * Read a live lobby again from the database so a copy that is only read on this node
+     * picks up changes made by other nodes. Skipped while the copy has changes that are not
+     * written yet; the flush of those changes detects any newer document. Must be called
+     * under the entry lock.
+     * @param lobbyCode The lobby code
+     * @param entry The live entry
+     * @return false if the lobby no longer exists and the entry was evicted
+     */
+    private boolean refresh(String lobbyCode, Entry entry) {
+        if (!sameState(entry.lobby, entry.persisted)) {
+            return true;
+        }
+        
+        Lobby current = lobbyRepository.findByLobbyCode(lobbyCode).orElse(null);
+        if (current == null) {
+            entry.evicted = true;
+            lobbies.remove(lobbyCode, entry);
+            dirtyLobbyCodes.remove(lobbyCode);
+            return false;
+        }
+        
+        if (!Objects.equals(current.getVersion(), entry.lobby.getVersion())) {
+            Lobby.GameStatus previousStatus = entry.lobby.getStatus();
+            copyState(current, entry.lobby);
+            entry.lobby.setPlayerIds(new ArrayList<>(current.getPlayerIds()));
+            entry.lobby.setVersion(current.getVersion());
+            lobbyStatusCounter.transition(previousStatus, current.getStatus());
+            entry.persisted = copyOf(entry.lobby);
+        }
+        // Another node reserved sequence numbers and may have sent deltas with them
+        if (current.getSequenceCeiling() > entry.sequenceLimit) {
+            entry.lobby.setSequence(Math.max(entry.lobby.getSequence(), current.getSequenceCeiling()));
+        }
+        entry.syncedAt = System.currentTimeMillis();
+        return true;
+    }
+    
+    /**
+     * Move the live lobby onto a newer database document written by another writer.
+     * Must be called under the entry lock.
+     * @param lobbyCode The lobby code
+     * @param entry The live entry
+     * @param current The newer document
+     * @return true if local changes were kept because the other writer only changed the player list
+     */
+    private boolean rebase(String lobbyCode, Entry entry, Lobby current) {
+        entry.lobby.setPlayerIds(new ArrayList<>(current.getPlayerIds()));
+        entry.lobby.setVersion(current.getVersion());
+        if (sameState(current, entry.persisted)) {
+            return true;
+        }
+        
+        logger.warn("Lobby {} was changed by another writer, discarding unflushed local changes", lobbyCode);
+        Lobby.GameStatus previousStatus = entry.lobby.getStatus();
+        copyState(current, entry.lobby);
+        lobbyStatusCounter.transition(previousStatus, current.getStatus());
+        entry.persisted = copyOf(entry.lobby);
+        dirtyLobbyCodes.remove(lobbyCode);
+        // Skip a sequence number so clients notice the change and fetch the full state
+        nextSequence(lobbyCode, entry);
+        return false;
+    }
+    
+    /**
+     * Check whether two copies of a lobby have the same state apart from players and version.
+     * Times are compared at the millisecond precision MongoDB stores.
+     */
+    private static boolean sameState(Lobby a, Lobby b) {
+        return a.getStatus() == b.getStatus()
+            && a.getMaxPlayers() == b.getMaxPlayers()
+            && a.getNumberOfRounds() == b.getNumberOfRounds()
+            && a.getTimeLimit() == b.getTimeLimit()
+            && Objects.equals(toMillis(a.getStartedAt()), toMillis(b.getStartedAt()))
+            && Objects.equals(toMillis(a.getEndedAt()), toMillis(b.getEndedAt()))
+            && Objects.equals(toMillis(a.getClosedAt()), toMillis(b.getClosedAt()))
+            && Objects.equals(a.getGameSettings(), b.getGameSettings());
+    }
+    
+    private static LocalDateTime toMillis(LocalDateTime time) {
+        return time == null ? null : time.truncatedTo(ChronoUnit.MILLIS);
+    }
+    
+    /**
+     * Make sure the entry has a sequence number left for its next change, reserving a new
+     * block if the current one is used up. Must be called under the entry lock.
+     * @param lobbyCode The lobby code
+     * @param entry The live entry
+     * @throws IllegalArgumentException if the lobby no longer exists
+     */
+    private void reserveSequence(String lobbyCode, Entry entry) {
+        if (entry.lobby.getSequence() + 1 < entry.sequenceLimit) {
+            return;
+        }
+        
+        Lobby reserved = lobbyRepository.reserveSequences(lobbyCode, SEQUENCE_BLOCK);
+        if (reserved == null) {
+            throw new IllegalArgumentException("Lobby not found");
+        }
+        // Continues seamlessly unless another node reserved numbers in between
+        long start = reserved.getSequenceCeiling() - SEQUENCE_BLOCK;
+        entry.lobby.setSequence(Math.max(entry.lobby.getSequence(), start - 1));
+        entry.sequenceLimit = reserved.getSequenceCeiling();
+    }
+    
+    /**
+     * Assign the next sequence number to the live lobby. Callers reserve before changing the
+     * lobby, so a failed reservation does not leave a change without a sequence number.
+     * @param lobbyCode The lobby code
+     * @param entry The live entry
+     */
+    private void nextSequence(String lobbyCode, Entry entry) {
+        reserveSequence(lobbyCode, entry);
+        entry.lobby.setSequence(entry.lobby.getSequence() + 1);
+    }
+    
+    /**
+     * Move the live version forward to a version written to the repository
+     * @param entry The live entry
+     * @param version The persisted version, may be null
+     */
+    private static void adoptVersion(Entry entry, Long version) {
+        Long current = entry.lobby.getVersion();
+        if (version != null && (current == null || version > current)) {
+            entry.lobby.setVersion(version);
+        }
+    }
+    
+    /**
+     * Get the live entry for a lobby, loading it from the repository if necessary
+     * @param lobbyCode The lobby code
+     * @return The entry or null if the lobby does not exist
+     */
+    private Entry entryFor(String lobbyCode) {
+        Entry entry = lobbies.get(lobbyCode);
+        if (entry != null) {
+            return entry;
+        }
+        
+        // A plain read, so lookups of unknown codes and lobbies that are only read cost no write.
+        // Starting at the stored ceiling puts the snapshot above every number sent before the reload;
+        // the first change reserves a block from there
+        Lobby lobby = lobbyRepository.findByLobbyCode(lobbyCode).orElse(null);
+        if (lobby == null) {
+            return null;
+        }
+        lobby.setSequence(lobby.getSequenceCeiling());
+        
+        Entry fresh = new Entry(lobby);
+        Entry existing = lobbies.putIfAbsent(lobbyCode, fresh);
+        return existing != null ? existing : fresh;
+    }
+    
+    /**
+     * Hand a snapshot of a changed lobby to its listener. Must be called under the entry lock.
+     * @param entry The live entry
+     * @param listener The listener
+     * @return The snapshot
+     */
+    private static Lobby notifyListener(Entry entry, Consumer<Lobby> listener) {
+        Lobby snapshot = copyOf(entry.lobby);
+        listener.accept(snapshot);
+        return snapshot;
+    }
+    
+    /**
+     * Create a detached copy of a lobby so callers never share the live instance
+     * @param lobby The lobby to copy
+     * @return The copy
+     */
+    private static Lobby copyOf(Lobby lobby) {
+        Lobby copy = new Lobby();
+        copy.setId(lobby.getId());
+        copy.setLobbyCode(lobby.getLobbyCode());
+        copy.setHostId(lobby.getHostId());
+        copy.setPlayerIds(new ArrayList<>(lobby.getPlayerIds()));
+        copy.setCreatedAt(lobby.getCreatedAt());
+        copyState(lobby, copy);
+        copy.setVersion(lobby.getVersion());
+        copy.setSequence(lobby.getSequence());
+        return copy;
+    }
+    
+    /**
+     * Copy the fields written by a flush
+     * @param from The source lobby
+     * @param to The target lobby
+     */
+    private static void copyState(Lobby from, Lobby to) {
+        to.setMaxPlayers(from.getMaxPlayers());
+        to.setNumberOfRounds(from.getNumberOfRounds());
+        to.setTimeLimit(from.getTimeLimit());
+        to.setStatus(from.getStatus());
+        to.setStartedAt(from.getStartedAt());
+        to.setEndedAt(from.getEndedAt());
+        to.setClosedAt(from.getClosedAt());
+        to.setGameSettings(new ArrayList<>(from.getGameSettings()));
+    }
+}
@@ -1,30 +1,69 @@
 package com.gptuessr.ai_game.service;
 
+import com.gptuessr.ai_game.dto.LobbyEventDTO;
+import com.gptuessr.ai_game.dto.LobbyResponseDTO;
+import com.gptuessr.ai_game.dto.PlayerProfileDTO;
 import com.gptuessr.ai_game.entity.Lobby;
-import com.gptuessr.ai_game.entity.User;
 import com.gptuessr.ai_game.repository.LobbyRepository;
-import com.gptuessr.ai_game.repository.UserRepository;
+import com.gptuessr.ai_game.ws.LobbyEventPublisher;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
 
 @Service
 public class LobbyService {
 
     private static final Logger logger = LoggerFactory.getLogger(LobbyService.class);
     
+    // Codes only collide when another node handed out the same code, so a few attempts are plenty
+    private static final int MAX_LOBBY_CODE_ATTEMPTS = 5;
+    
     @Autowired
     private LobbyRepository lobbyRepository;
     
     @Autowired
-    private UserRepository userRepository;
+    private LobbyRegistry lobbyRegistry;
+    
+    @Autowired
+    private LobbyEventPublisher lobbyEventPublisher;
+    
+    @Autowired
+    private UserService userService;
+    
+    @Autowired
+    private LobbyCodeAllocator lobbyCodeAllocator;
+    
+    @Autowired
+    private LobbyStatusCounter lobbyStatusCounter;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+    
+    @Value("${lobby.cleanup.waiting-max-age-hours:24}")
+    private long waitingMaxAgeHours;
+    
+    @Value("${lobby.cleanup.in-progress-max-age-hours:6}")
+    private long inProgressMaxAgeHours;
+    
+    /**
+     * Published on this node after a lobby was closed through the registry
+     * @param lobbyCode The code of the closed lobby
+     */
+    public record LobbyClosedEvent(String lobbyCode) {
+    }
     
     /**
      * Create a new game lobby
@@ -36,59 +75,38 @@ public class LobbyService {
      * @return The created lobby
      */
     public Lobby createLobby(String hostId, int numberOfRounds, int timeLimit, int maxPlayers, List<String> gameSettings) {
-        logger.info("Creating new lobby for host: {}", hostId);
+        logger.debug("Creating new lobby for host: {}", hostId);
         
-        // Verify host exists
-        Optional<User> hostUser = userRepository.findByClerkUserId(hostId);
-        if (hostUser.isEmpty()) {
+        // Verify host exists, served from the profile cache in the common case
+        if (!userService.findPlayerProfiles(List.of(hostId)).containsKey(hostId)) {
             logger.error("Cannot create lobby: Host user not found with ID: {}", hostId);
             throw new IllegalArgumentException("Host user not found");
         }
         
-        // Generate unique lobby code
-        String lobbyCode = generateUniqueLobbyCode();
-        
-        // Create new lobby
-        Lobby lobby = new Lobby(hostId, lobbyCode, numberOfRounds, timeLimit);
-        lobby.setMaxPlayers(maxPlayers);
-        
-        // Add game settings if provided
-        if (gameSettings != null && !gameSettings.isEmpty()) {
-            lobby.setGameSettings(gameSettings);
-        }
-        
-        // Save and return the lobby
-        Lobby savedLobby = lobbyRepository.save(lobby);
-        logger.info("Successfully created lobby with code: {} for host: {}", lobbyCode, hostId);
-        
-        return savedLobby;
-    }
-    
-    /**
-     * Generate a unique lobby code
-     * @return A unique lobby code
-     */
-    private String generateUniqueLobbyCode() {
-        Random random = new Random();
-        String lobbyCode;
-        boolean isUnique = false;
-        
-        // Keep generating until we find a unique code
-        do {
-            StringBuilder codeBuilder = new StringBuilder();
-            String characters = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
+        // Insert with a freshly allocated code; the unique index on lobbyCode rejects the rare clash
+        for (int attempt = 1; ; attempt++) {
+            Lobby lobby = new Lobby(hostId, lobbyCodeAllocator.nextCode(), numberOfRounds, timeLimit);
+            lobby.setMaxPlayers(maxPlayers);
             
-            // Generate a 6-character code
-            for (int i = 0; i < 6; i++) {
-                codeBuilder.append(characters.charAt(random.nextInt(characters.length())));
+            // Add game settings if provided
+            if (gameSettings != null && !gameSettings.isEmpty()) {
+                lobby.setGameSettings(gameSettings);
             }
             
-            lobbyCode = codeBuilder.toString();
-            isUnique = !lobbyRepository.existsByLobbyCode(lobbyCode);
-            
-        } while (!isUnique);
-        
-        return lobbyCode;
+            try {
+                // Save the lobby and keep its live state in memory
+                Lobby savedLobby = lobbyRegistry.register(lobbyRepository.insert(lobby));
+                logger.info("Successfully created lobby with code: {} for host: {}", savedLobby.getLobbyCode(), hostId);
+                
+                return savedLobby;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= MAX_LOBBY_CODE_ATTEMPTS) {
+                    logger.error("Cannot create lobby: No free lobby code after {} attempts", attempt);
+                    throw new IllegalStateException("Could not allocate a lobby code", e);
+                }
+                logger.warn("Lobby code {} already taken, retrying", lobby.getLobbyCode());
+            }
+        }
     }
     
     /**
@@ -97,7 +115,16 @@ public class LobbyService {
      * @return Optional containing the lobby if found
      */
     public Optional<Lobby> findByLobbyCode(String lobbyCode) {
-        return lobbyRepository.findByLobbyCode(lobbyCode);
+        return lobbyRegistry.find(lobbyCode);
+    }
+    
+    /**
+     * Find a lobby by its document ID
+     * @param lobbyId The lobby document ID
+     * @return Optional containing the live lobby if found
+     */
+    public Optional<Lobby> findById(String lobbyId) {
+        return lobbyRepository.findById(lobbyId).flatMap(stored -> lobbyRegistry.find(stored.getLobbyCode()));
     }
     
     /**
@@ -106,7 +133,7 @@ public class LobbyService {
      * @return List of lobbies created by the host
      */
     public List<Lobby> findLobbiesByHost(String hostId) {
-        return lobbyRepository.findByHostId(hostId);
+        return lobbyRegistry.overlay(lobbyRepository.findByHostId(hostId));
     }
     
     /**
@@ -115,7 +142,7 @@ public class LobbyService {
      * @return List of lobbies the player is in
      */
     public List<Lobby> findLobbiesByPlayer(String playerId) {
-        return lobbyRepository.findByPlayerIdsContaining(playerId);
+        return lobbyRegistry.overlay(lobbyRepository.findByPlayerIdsContaining(playerId));
     }
     
     /**
@@ -126,53 +153,117 @@ public class LobbyService {
      * @throws IllegalArgumentException if lobby is full or player is already in lobby
      */
     public Lobby joinLobby(String lobbyCode, String playerId) {
-        logger.info("Player {} attempting to join lobby: {}", playerId, lobbyCode);
+        logger.debug("Player {} attempting to join lobby: {}", playerId, lobbyCode);
         
         // Find lobby
-        Optional<Lobby> optionalLobby = lobbyRepository.findByLobbyCode(lobbyCode);
+        Optional<Lobby> optionalLobby = lobbyRegistry.find(lobbyCode);
         if (optionalLobby.isEmpty()) {
             logger.error("Cannot join lobby: Lobby not found with code: {}", lobbyCode);
-            throw new IllegalArgumentException("Lobby not found");
+            throw joinRejected("not_found", "Lobby not found");
         }
         
         Lobby lobby = optionalLobby.get();
-        
-        // Check if lobby is in WAITING status
-        if (lobby.getStatus() != Lobby.GameStatus.WAITING) {
-            logger.error("Cannot join lobby: Lobby is not in WAITING status. Current status: {}", lobby.getStatus());
-            throw new IllegalArgumentException("Cannot join lobby: Game already in progress or finished");
-        }
-        
-        // Check if lobby is full
-        if (lobby.isLobbyFull()) {
-            logger.error("Cannot join lobby: Lobby is full. Current players: {}, Max: {}", 
-                lobby.getPlayerIds().size(), lobby.getMaxPlayers());
-            throw new IllegalArgumentException("Lobby is full");
-        }
+        checkJoinable(lobby);
         
         // Check if player is already in lobby
         if (lobby.containsPlayer(playerId)) {
-            logger.info("Player {} is already in lobby {}", playerId, lobbyCode);
+            logger.debug("Player {} is already in lobby {}", playerId, lobbyCode);
             return lobby;
         }
         
-        // Verify player exists
-        Optional<User> playerUser = userRepository.findById(playerId);
-        if (playerUser.isEmpty()) {
+        // Verify player exists (player IDs are Clerk user IDs), served from the profile cache in the common case
+        PlayerProfileDTO profile = userService.findPlayerProfiles(List.of(playerId)).get(playerId);
+        if (profile == null) {
             logger.error("Cannot join lobby: Player user not found with ID: {}", playerId);
-            throw new IllegalArgumentException("Player user not found");
+            throw joinRejected("unknown_player", "Player user not found");
         }
         
-        // Add player to lobby
-        lobby.addPlayer(playerId);
-        
-        // Save and return updated lobby
-        Lobby updatedLobby = lobbyRepository.save(lobby);
-        logger.info("Player {} successfully joined lobby {}", playerId, lobbyCode);
+        // Add player with a single guarded update instead of read-modify-write
+        Lobby updatedLobby = lobbyRegistry.updateAtomically(lobbyCode, live -> {
+            // Unflushed in-memory changes (game started, smaller maxPlayers) also block the join
+            checkJoinable(live);
+            
+            Lobby joined = lobbyRepository.addPlayerIfJoinable(lobbyCode, playerId);
+            if (joined != null) {
+                return joined;
+            }
+            
+            // The guarded update did not match, find out why from the stored lobby
+            Lobby stored = lobbyRepository.findByLobbyCode(lobbyCode)
+                .orElseThrow(() -> joinRejected("not_found", "Lobby not found"));
+            if (stored.containsPlayer(playerId)) {
+                return stored;
+            }
+            checkJoinable(stored);
+            throw joinRejected("full", "Lobby is full");
+        }, joined -> publishPlayerJoined(joined, playerId, profile));
+        logger.debug("Player {} successfully joined lobby {}", playerId, lobbyCode);
         
         return updatedLobby;
     }
     
+    /**
+     * Publish the delta for a joined player, including the profile needed to display them
+     * @param lobby The lobby after the join
+     * @param playerId The player user ID
+     * @param profile The player's profile
+     */
+    private void publishPlayerJoined(Lobby lobby, String playerId, PlayerProfileDTO profile) {
+        LobbyEventDTO event = new LobbyEventDTO(LobbyEventDTO.Type.PLAYER_JOINED, lobby, playerId)
+            .change("playerCount", lobby.getPlayerIds().size());
+        event.getAddedPlayers().add(LobbyResponseDTO.toPlayerDTO(playerId, lobby.getHostId(), profile));
+        lobbyEventPublisher.publish(event);
+    }
+    
+    /**
+     * Publish the delta for a closed lobby
+     * @param lobby The lobby after closing
+     */
+    private void publishLobbyClosed(Lobby lobby) {
+        lobbyEventPublisher.publish(new LobbyEventDTO(LobbyEventDTO.Type.LOBBY_CLOSED, lobby, null)
+            .change("status", lobby.getStatus().toString()));
+    }
+    
+    /**
+     * Tell local listeners, such as a game still running in the lobby, that a lobby was closed.
+     * Called after the lobby lock is released, since a game may need the lobby to finish a command.
+     * @param lobby The lobby after closing
+     */
+    private void announceLobbyClosed(Lobby lobby) {
+        applicationEventPublisher.publishEvent(new LobbyClosedEvent(lobby.getLobbyCode()));
+    }
+    
+    /**
+     * Check that a lobby accepts new players
+     * @param lobby The lobby
+     * @throws IllegalArgumentException if the lobby is not waiting or is full
+     */
+    private void checkJoinable(Lobby lobby) {
+        // Check if lobby is in WAITING status
+        if (lobby.getStatus() != Lobby.GameStatus.WAITING) {
+            logger.error("Cannot join lobby: Lobby is not in WAITING status. Current status: {}", lobby.getStatus());
+            throw joinRejected("not_waiting", "Cannot join lobby: Game already in progress or finished");
+        }
+        
+        // Check if lobby is full
+        if (lobby.isLobbyFull()) {
+            logger.error("Cannot join lobby: Lobby is full. Current players: {}, Max: {}",
+                lobby.getPlayerIds().size(), lobby.getMaxPlayers());
+            throw joinRejected("full", "Lobby is full");
+        }
+    }
+    
+    /**
+     * Count a refused join by reason and build the exception reported to the client
+     * @param reason Metric tag: not_found, unknown_player, not_waiting or full
+     * @param message The error message
+     * @return The exception to throw
+     */
+    private IllegalArgumentException joinRejected(String reason, String message) {
+        meterRegistry.counter("lobby.join.rejections", "reason", reason).increment();
+        return new IllegalArgumentException(message);
+    }
+    
     /**
      * Leave a lobby
      * @param lobbyCode The lobby code
@@ -180,10 +271,10 @@ public class LobbyService {
      * @return The updated lobby or null if lobby should be closed
      */
     public Lobby leaveLobby(String lobbyCode, String playerId) {
-        logger.info("Player {} attempting to leave lobby: {}", playerId, lobbyCode);
+        logger.debug("Player {} attempting to leave lobby: {}", playerId, lobbyCode);
         
         // Find lobby
-        Optional<Lobby> optionalLobby = lobbyRepository.findByLobbyCode(lobbyCode);
+        Optional<Lobby> optionalLobby = lobbyRegistry.find(lobbyCode);
         if (optionalLobby.isEmpty()) {
             logger.error("Cannot leave lobby: Lobby not found with code: {}", lobbyCode);
             throw new IllegalArgumentException("Lobby not found");
@@ -206,12 +297,21 @@ public class LobbyService {
             closeLobby(lobbyCode);
             return null;
         } else {
-            // Remove player from lobby
-            lobby.removePlayer(playerId);
-            
-            // Save and return updated lobby
-            Lobby updatedLobby = lobbyRepository.save(lobby);
-            logger.info("Player {} successfully left lobby {}", playerId, lobbyCode);
+            // Remove player from lobby with a single atomic update
+            Lobby updatedLobby = lobbyRegistry.updateAtomically(lobbyCode, live -> {
+                Lobby left = lobbyRepository.removePlayer(lobbyCode, playerId);
+                if (left == null) {
+                    logger.error("Cannot leave lobby: Player {} not in lobby {}", playerId, lobbyCode);
+                    throw new IllegalArgumentException("Player not in lobby");
+                }
+                return left;
+            }, left -> {
+                LobbyEventDTO event = new LobbyEventDTO(LobbyEventDTO.Type.PLAYER_LEFT, left, playerId)
+                    .change("playerCount", left.getPlayerIds().size());
+                event.getRemovedPlayerIds().add(playerId);
+                lobbyEventPublisher.publish(event);
+            });
+            logger.debug("Player {} successfully left lobby {}", playerId, lobbyCode);
             
             return updatedLobby;
         }
@@ -225,35 +325,32 @@ public class LobbyService {
      * @throws IllegalArgumentException if minimum requirements not met
      */
     public Lobby startGame(String lobbyCode, String hostId) {
-        logger.info("Host {} attempting to start game in lobby: {}", hostId, lobbyCode);
-        
-        // Find lobby
-        Optional<Lobby> optionalLobby = lobbyRepository.findByLobbyCode(lobbyCode);
-        if (optionalLobby.isEmpty()) {
-            logger.error("Cannot start game: Lobby not found with code: {}", lobbyCode);
-            throw new IllegalArgumentException("Lobby not found");
-        }
+        logger.debug("Host {} attempting to start game in lobby: {}", hostId, lobbyCode);
         
-        Lobby lobby = optionalLobby.get();
-        
-        // Verify that the request is from the host
-        if (!hostId.equals(lobby.getHostId())) {
-            logger.error("Cannot start game: User {} is not the host of lobby {}", hostId, lobbyCode);
-            throw new IllegalArgumentException("Only the host can start the game");
-        }
-        
-        // Check if lobby has minimum required players
-        if (!lobby.hasMinimumPlayers()) {
-            logger.error("Cannot start game: Not enough players. Current players: {}", lobby.getPlayerIds().size());
-            throw new IllegalArgumentException("Not enough players to start the game (minimum 3)");
-        }
-        
-        // Update lobby status and start time
-        lobby.setStatus(Lobby.GameStatus.IN_PROGRESS);
-        lobby.setStartedAt(LocalDateTime.now());
+        Lobby updatedLobby = lobbyRegistry.update(lobbyCode, lobby -> {
+            // Verify that the request is from the host
+            if (!hostId.equals(lobby.getHostId())) {
+                logger.error("Cannot start game: User {} is not the host of lobby {}", hostId, lobbyCode);
+                throw new IllegalArgumentException("Only the host can start the game");
+            }
+            
+            // A running game owns the lobby until it ends
+            if (lobby.getStatus() == Lobby.GameStatus.IN_PROGRESS || lobby.getStatus() == Lobby.GameStatus.CLOSED) {
+                throw new IllegalArgumentException("Game cannot be started in a lobby that is " + lobby.getStatus());
+            }
+            
+            // Check if lobby has minimum required players
+            if (!lobby.hasMinimumPlayers()) {
+                logger.error("Cannot start game: Not enough players. Current players: {}", lobby.getPlayerIds().size());
+                throw new IllegalArgumentException("Not enough players to start the game (minimum 3)");
+            }
         
-        // Save and return updated lobby
-        Lobby updatedLobby = lobbyRepository.save(lobby);
+            // Update lobby status and start time
+            lobby.setStatus(Lobby.GameStatus.IN_PROGRESS);
+            lobby.setStartedAt(LocalDateTime.now());
+        }, started -> lobbyEventPublisher.publish(new LobbyEventDTO(LobbyEventDTO.Type.GAME_STARTED, started, hostId)
+            .change("status", started.getStatus().toString())
+            .change("startedAt", started.getStartedAt())));
         logger.info("Game successfully started in lobby {}", lobbyCode);
         
         return updatedLobby;
@@ -265,23 +362,15 @@ public class LobbyService {
      * @return The updated lobby
      */
     public Lobby endGame(String lobbyCode) {
-        logger.info("Ending game in lobby: {}", lobbyCode);
-        
-        // Find lobby
-        Optional<Lobby> optionalLobby = lobbyRepository.findByLobbyCode(lobbyCode);
-        if (optionalLobby.isEmpty()) {
-            logger.error("Cannot end game: Lobby not found with code: {}", lobbyCode);
-            throw new IllegalArgumentException("Lobby not found");
-        }
-        
-        Lobby lobby = optionalLobby.get();
+        logger.debug("Ending game in lobby: {}", lobbyCode);
         
         // Update lobby status and end time
-        lobby.setStatus(Lobby.GameStatus.FINISHED);
-        lobby.setEndedAt(LocalDateTime.now());
-        
-        // Save and return updated lobby
-        Lobby updatedLobby = lobbyRepository.save(lobby);
+        Lobby updatedLobby = lobbyRegistry.update(lobbyCode, lobby -> {
+            lobby.setStatus(Lobby.GameStatus.FINISHED);
+            lobby.setEndedAt(LocalDateTime.now());
+        }, ended -> lobbyEventPublisher.publish(new LobbyEventDTO(LobbyEventDTO.Type.GAME_ENDED, ended, null)
+            .change("status", ended.getStatus().toString())
+            .change("endedAt", ended.getEndedAt())));
         logger.info("Game successfully ended in lobby {}", lobbyCode);
         
         return updatedLobby;
@@ -292,23 +381,21 @@ public class LobbyService {
      * @param lobbyCode The lobby code
      */
     public void closeLobby(String lobbyCode) {
-        logger.info("Closing lobby: {}", lobbyCode);
-        
-        // Find lobby
-        Optional<Lobby> optionalLobby = lobbyRepository.findByLobbyCode(lobbyCode);
-        if (optionalLobby.isEmpty()) {
-            logger.error("Cannot close lobby: Lobby not found with code: {}", lobbyCode);
-            throw new IllegalArgumentException("Lobby not found");
-        }
-        
-        Lobby lobby = optionalLobby.get();
+        logger.debug("Closing lobby: {}", lobbyCode);
         
         // Update lobby status
-        lobby.setStatus(Lobby.GameStatus.CLOSED);
-        
-        // Save the updated lobby
-        lobbyRepository.save(lobby);
+        Lobby closedLobby = lobbyRegistry.update(lobbyCode, LobbyService::markClosed, this::publishLobbyClosed);
         logger.info("Lobby {} successfully closed", lobbyCode);
+        announceLobbyClosed(closedLobby);
+    }
+    
+    /**
+     * Mark a lobby as closed; the close time starts the TTL after which MongoDB deletes it
+     * @param lobby The live lobby
+     */
+    private static void markClosed(Lobby lobby) {
+        lobby.setStatus(Lobby.GameStatus.CLOSED);
+        lobby.setClosedAt(LocalDateTime.now());
     }
     
     /**
@@ -323,77 +410,110 @@ public class LobbyService {
      */
     public Lobby updateLobbySettings(String lobbyCode, String hostId, Integer numberOfRounds, 
                                     Integer timeLimit, Integer maxPlayers, List<String> gameSettings) {
-        logger.info("Updating settings for lobby: {}", lobbyCode);
-        
-        // Find lobby
-        Optional<Lobby> optionalLobby = lobbyRepository.findByLobbyCode(lobbyCode);
-        if (optionalLobby.isEmpty()) {
-            logger.error("Cannot update lobby: Lobby not found with code: {}", lobbyCode);
-            throw new IllegalArgumentException("Lobby not found");
-        }
-        
-        Lobby lobby = optionalLobby.get();
+        logger.debug("Updating settings for lobby: {}", lobbyCode);
         
-        // Verify that the request is from the host
-        if (!hostId.equals(lobby.getHostId())) {
-            logger.error("Cannot update lobby: User {} is not the host of lobby {}", hostId, lobbyCode);
-            throw new IllegalArgumentException("Only the host can update lobby settings");
-        }
-        
-        // Check if game has already started
-        if (lobby.getStatus() != Lobby.GameStatus.WAITING) {
-            logger.error("Cannot update lobby: Game has already started or lobby is closed");
-            throw new IllegalArgumentException("Cannot update settings after game has started");
-        }
-        
-        // Update settings
-        if (numberOfRounds != null) {
-            lobby.setNumberOfRounds(numberOfRounds);
-        }
+        Lobby updatedLobby = lobbyRegistry.update(lobbyCode, lobby -> {
+            // Verify that the request is from the host
+            if (!hostId.equals(lobby.getHostId())) {
+                logger.error("Cannot update lobby: User {} is not the host of lobby {}", hostId, lobbyCode);
+                throw new IllegalArgumentException("Only the host can update lobby settings");
+            }
         
-        if (timeLimit != null) {
-            lobby.setTimeLimit(timeLimit);
-        }
+            // Check if game has already started
+            if (lobby.getStatus() != Lobby.GameStatus.WAITING) {
+                logger.error("Cannot update lobby: Game has already started or lobby is closed");
+                throw new IllegalArgumentException("Cannot update settings after game has started");
+            }
         
-        if (maxPlayers != null) {
-            // Ensure max players is not less than current players
-            if (maxPlayers < lobby.getPlayerIds().size()) {
+            // Ensure max players is not less than current players before touching anything
+            if (maxPlayers != null && maxPlayers < lobby.getPlayerIds().size()) {
                 logger.error("Cannot set max players to less than current players count");
                 throw new IllegalArgumentException("Max players cannot be less than current player count");
             }
-            lobby.setMaxPlayers(maxPlayers);
-        }
         
-        if (gameSettings != null) {
-            lobby.setGameSettings(gameSettings);
-        }
+            // Update settings
+            if (numberOfRounds != null) {
+                lobby.setNumberOfRounds(numberOfRounds);
+            }
         
-        // Save and return updated lobby
-        Lobby updatedLobby = lobbyRepository.save(lobby);
+            if (timeLimit != null) {
+                lobby.setTimeLimit(timeLimit);
+            }
+            
+            if (maxPlayers != null) {
+                lobby.setMaxPlayers(maxPlayers);
+            }
+            
+            if (gameSettings != null) {
+                lobby.setGameSettings(gameSettings);
+            }
+        }, updated -> {
+            // Only send the settings that were part of the request
+            LobbyEventDTO event = new LobbyEventDTO(LobbyEventDTO.Type.SETTINGS_UPDATED, updated, hostId);
+            if (numberOfRounds != null) {
+                event.change("numberOfRounds", updated.getNumberOfRounds());
+            }
+            if (timeLimit != null) {
+                event.change("timeLimit", updated.getTimeLimit());
+            }
+            if (maxPlayers != null) {
+                event.change("maxPlayers", updated.getMaxPlayers());
+            }
+            if (gameSettings != null) {
+                event.change("gameSettings", updated.getGameSettings());
+            }
+            lobbyEventPublisher.publish(event);
+        });
         logger.info("Successfully updated settings for lobby {}", lobbyCode);
         
         return updatedLobby;
     }
     
     /**
-     * Clean up old lobbies
-     * Scheduled to run daily at midnight
+     * Clean up old lobbies: WAITING lobbies that never started and IN_PROGRESS lobbies abandoned mid-game.
+     * Runs every few minutes so each run only closes the lobbies that became stale since the last one.
      */
-    @Scheduled(cron = "0 0 0 * * ?")
+    @Scheduled(fixedDelayString = "${lobby.cleanup.interval-ms:300000}")
     public void cleanupOldLobbies() {
-        logger.info("Running scheduled cleanup of old lobbies");
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime waitingCutoff = now.minusHours(waitingMaxAgeHours);
+        LocalDateTime inProgressCutoff = now.minusHours(inProgressMaxAgeHours);
+        
+        // Close live lobbies through the registry so their subscribers are notified
+        List<Lobby> closedLive = lobbyRegistry.updateMatching(
+            lobby -> isStale(lobby, waitingCutoff, inProgressCutoff), LobbyService::markClosed, this::publishLobbyClosed);
+        for (Lobby closedLobby : closedLive) {
+            announceLobbyClosed(closedLobby);
+        }
         
-        // Find lobbies in WAITING status that are older than 24 hours
-        LocalDateTime oneDayAgo = LocalDateTime.now().minusDays(1);
-        List<Lobby> oldLobbies = lobbyRepository.findByStatusAndCreatedAtBefore(Lobby.GameStatus.WAITING, oneDayAgo);
+        // Close everything else in one update; live copies loaded meanwhile cannot reopen them
+        long closedStored = lobbyRepository.closeStaleLobbies(waitingCutoff, inProgressCutoff, now);
         
-        logger.info("Found {} old lobbies to clean up", oldLobbies.size());
+        if (!closedLive.isEmpty() || closedStored > 0) {
+            logger.info("Closed stale lobbies: {} live, {} stored", closedLive.size(), closedStored);
+        }
         
-        for (Lobby lobby : oldLobbies) {
-            lobby.setStatus(Lobby.GameStatus.CLOSED);
-            lobbyRepository.save(lobby);
-            logger.info("Closed inactive lobby: {}", lobby.getLobbyCode());
+        // Lobbies closed in the database bypassed the registry, recount instead of guessing their previous status
+        if (closedStored > 0) {
+            lobbyRegistry.reconcileStatusCounts();
+        }
+    }
+    
+    /**
+     * Check whether a lobby has been waiting or running for too long
+     * @param lobby The lobby
+     * @param waitingCutoff WAITING lobbies created before this time are stale
+     * @param inProgressCutoff IN_PROGRESS lobbies started before this time are stale
+     * @return true if the lobby should be closed
+     */
+    private static boolean isStale(Lobby lobby, LocalDateTime waitingCutoff, LocalDateTime inProgressCutoff) {
+        if (lobby.getStatus() == Lobby.GameStatus.WAITING) {
+            return lobby.getCreatedAt() != null && lobby.getCreatedAt().isBefore(waitingCutoff);
+        }
+        if (lobby.getStatus() == Lobby.GameStatus.IN_PROGRESS) {
+            return lobby.getStartedAt() != null && lobby.getStartedAt().isBefore(inProgressCutoff);
         }
+        return false;
     }
     
     /**
@@ -401,7 +521,7 @@ public class LobbyService {
      * @return The number of active lobbies
      */
     public long getActiveLobbiesCount() {
-        return lobbyRepository.countByStatus(Lobby.GameStatus.WAITING) + 
-               lobbyRepository.countByStatus(Lobby.GameStatus.IN_PROGRESS);
+        return lobbyStatusCounter.get(Lobby.GameStatus.WAITING) + 
+               lobbyStatusCounter.get(Lobby.GameStatus.IN_PROGRESS);
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Lobby;
+import com.gptuessr.ai_game.repository.LobbyRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-memory number of lobbies per status, kept current by the status transitions applied
+ * through the LobbyRegistry and periodically reset from the database. The reset corrects
+ * drift from changes made outside this node, such as other instances or TTL deletions.
+ * The database lags behind the registry by its unflushed changes, so the LobbyRegistry runs
+ * the reset right after a flush and passes the status changes that are still unflushed.
+ * CLOSED lobbies are not counted in the database; they make up most documents until the
+ * TTL removes them, so their counter only tracks the lobbies closed on this node.
+ */
+@Component
+public class LobbyStatusCounter {
+    
+    private static final Logger logger = LoggerFactory.getLogger(LobbyStatusCounter.class);
+    
+    // Attempts of a reset before giving up until the next one
+    private static final int RECONCILE_ATTEMPTS = 3;
+    
+    @Autowired
+    private LobbyRepository lobbyRepository;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private final Map<Lobby.GameStatus, AtomicLong> counts = new EnumMap<>(Lobby.GameStatus.class);
+    
+    // Guards the counts against a reset racing with a transition
+    private final ReentrantLock lock = new ReentrantLock();
+    
+    // Number of creations and transitions, a reset is discarded if it changed during the count
+    private long changes;
+    
+    public LobbyStatusCounter() {
+        for (Lobby.GameStatus status : Lobby.GameStatus.values()) {
+            counts.put(status, new AtomicLong());
+        }
+    }
+    
+    /**
+     * Expose one gauge per status, e.g. /actuator/metrics/lobbies.count?tag=status:WAITING
+     */
+    @PostConstruct
+    public void registerGauges() {
+        for (Map.Entry<Lobby.GameStatus, AtomicLong> entry : counts.entrySet()) {
+            Gauge.builder("lobbies.count", entry.getValue(), AtomicLong::get)
+                .description("Number of lobbies per status")
+                .tag("status", entry.getKey().name())
+                .register(meterRegistry);
+        }
+    }
+    
+    /**
+     * Count a newly created lobby
+     * @param status The initial status
+     */
+    public void created(Lobby.GameStatus status) {
+        lock.lock();
+        try {
+            counts.get(status).incrementAndGet();
+            changes++;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Move a lobby from one status to another; does nothing if the status did not change
+     * @param from The previous status
+     * @param to The new status
+     */
+    public void transition(Lobby.GameStatus from, Lobby.GameStatus to) {
+        if (from == to) {
+            return;
+        }
+        lock.lock();
+        try {
+            counts.get(from).updateAndGet(count -> Math.max(0, count - 1));
+            counts.get(to).incrementAndGet();
+            changes++;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    /**
+     * Get the number of lobbies in a status
+     * @param status The status
+     * @return The number of lobbies
+     */
+    public long get(Lobby.GameStatus status) {
+        return counts.get(status).get();
+    }
+    
+    /**
+     * Replace the counters of all statuses but CLOSED with the counts stored in the database,
+     * using a single aggregation, plus the status changes not written to the database yet.
+     * A status change during the aggregation may or may not be part of its result, so the
+     * reset is then retried and skipped after a few attempts.
+     * @param unflushed Supplies the unflushed status changes as a delta per status
+     */
+    public void reconcile(Supplier<Map<Lobby.GameStatus, Long>> unflushed) {
+        try {
+            for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+                long changesBefore = changeCount();
+                Map<Lobby.GameStatus, Long> stored = lobbyRepository.countLobbiesByStatus();
+                Map<Lobby.GameStatus, Long> pending = unflushed.get();
+                
+                lock.lock();
+                try {
+                    if (changes != changesBefore) {
+                        continue;
+                    }
+                    for (Map.Entry<Lobby.GameStatus, AtomicLong> entry : counts.entrySet()) {
+                        if (entry.getKey() != Lobby.GameStatus.CLOSED) {
+                            long count = stored.getOrDefault(entry.getKey(), 0L) + pending.getOrDefault(entry.getKey(), 0L);
+                            entry.getValue().set(Math.max(0, count));
+                        }
+                    }
+                } finally {
+                    lock.unlock();
+                }
+                logger.debug("Reconciled lobby status counts: {} stored, {} unflushed", stored, pending);
+                return;
+            }
+            logger.debug("Lobby statuses kept changing, skipping reconciliation of the status counts");
+        } catch (Exception e) {
+            logger.warn("Failed to reconcile lobby status counts: {}", e.getMessage());
+        }
+    }
+    
+    private long changeCount() {
+        lock.lock();
+        try {
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.util.LongIntHashMap;
+
+/**
+ * Prompt-side lookup tables for lexical guess scoring, built once when a round opens.
+ * Content words are kept as hashes of their stems, each with an index so a guess can mark
+ * which prompt words it matched, plus the synonym groups of those words and the prompt's
+ * character trigrams. Immutable once built and safe to share between scoring threads.
+ */
+public final class PromptFeatures implements GuessScorer.PreparedPrompt {
+
+    private final String promptText;
+    
+    // Stem hash -> index of the prompt word
+    private final LongIntHashMap stemIndex;
+    
+    // Synonym group -> index of the prompt word in that group
+    private final LongIntHashMap groupIndex;
+    
+    private final int wordCount;
+    
+    private final LongIntHashMap trigrams;
+    
+    private final int trigramCount;
+    
+    PromptFeatures(String promptText, LongIntHashMap stemIndex, LongIntHashMap groupIndex, int wordCount,
+                   LongIntHashMap trigrams, int trigramCount) {
+        this.promptText = promptText;
+        this.stemIndex = stemIndex;
+        this.groupIndex = groupIndex;
+        this.wordCount = wordCount;
+        this.trigrams = trigrams;
+        this.trigramCount = trigramCount;
+    }
+    
+    @Override
+    public String getPromptText() {
+        return promptText;
+    }
+    
+    /**
+     * Get the index of the prompt word a guess word matches, directly or through a synonym
+     * @param stemHash Hash of the guess word's stem
+     * @param group Synonym group of the guess word, or LongIntHashMap.MISSING
+     * @return The prompt word index, or LongIntHashMap.MISSING
+     */
+    int matchWord(long stemHash, int group) {
+        int index = stemIndex.get(stemHash);
+        if (index == LongIntHashMap.MISSING && group != LongIntHashMap.MISSING) {
+            index = groupIndex.get(group);
+        }
+        return index;
+    }
+    
+    boolean hasTrigram(long trigram) {
+        return trigrams.get(trigram) != LongIntHashMap.MISSING;
+    }
+    
+    int getWordCount() {
+        return wordCount;
+    }
+    
+    int getTrigramCount() {
+        return trigramCount;
+    }
+}
@@ -0,0 +1,290 @@
+package com.gptuessr.ai_game.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hashed timing wheel for round deadlines.
+ * One ticker thread advances a ring of buckets every tick and fires the deadlines of the
+ * current bucket, so the cost of a tick depends on the deadlines due, not on how many rounds
+ * are running. Scheduling and cancelling only touch a lock-free queue; the ticker moves new
+ * deadlines into their bucket and unlinks cancelled ones. Deadlines fire up to one tick late.
+ * Tasks run on the ticker thread and must only hand work off, e.g. to a game's mailbox.
+ */
+@Component
+public class RoundDeadlineScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(RoundDeadlineScheduler.class);
+    
+    // Bound on the deadlines moved into the wheel per tick so a burst cannot stall firing
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+    
+    private static final int STATE_PENDING = 0;
+    private static final int STATE_CANCELLED = 1;
+    private static final int STATE_EXPIRED = 2;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${game.deadline.tick-ms:100}")
+    private long tickMs;
+    
+    @Value("${game.deadline.wheel-size:512}")
+    private int wheelSize;
+    
+    private Bucket[] wheel;
+    
+    private int mask;
+    
+    private long tickNanos;
+    
+    private long startNanos;
+    
+    // Only read and written by the ticker thread
+    private long tick;
+    
+    private final Queue<Deadline> scheduled = new ConcurrentLinkedQueue<>();
+    
+    private final Queue<Deadline> cancelled = new ConcurrentLinkedQueue<>();
+    
+    private final AtomicLong pendingCount = new AtomicLong();
+    
+    private Thread ticker;
+    
+    private volatile boolean running;
+    
+    /**
+     * Handle of a scheduled deadline
+     */
+    public final class Deadline {
+        
+        private final Runnable task;
+        
+        private final long deadlineNanos;
+        
+        private final AtomicInteger state = new AtomicInteger(STATE_PENDING);
+        
+        // Full turns of the wheel left before firing; bucket links are only used by the ticker
+        private long remainingRounds;
+        
+        private Bucket bucket;
+        
+        private Deadline next;
+        
+        private Deadline prev;
+        
+        private Deadline(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+        
+        /**
+         * Cancel the deadline in constant time
+         * @return true if it was cancelled, false if it already fired or was cancelled before
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(STATE_PENDING, STATE_CANCELLED)) {
+                return false;
+            }
+            cancelled.add(this);
+            return true;
+        }
+        
+        private void expire() {
+            if (!state.compareAndSet(STATE_PENDING, STATE_EXPIRED)) {
+                return;
+            }
+            try {
+                task.run();
+            } catch (Exception e) {
+                logger.error("Round deadline task failed", e);
+            }
+        }
+    }
+    
+    /**
+     * Doubly linked list of the deadlines hashed to one slot of the wheel
+     */
+    private final class Bucket {
+        
+        private Deadline head;
+        
+        private Deadline tail;
+        
+        private void add(Deadline deadline) {
+            deadline.bucket = this;
+            if (head == null) {
+                head = tail = deadline;
+            } else {
+                tail.next = deadline;
+                deadline.prev = tail;
+                tail = deadline;
+            }
+        }
+        
+        private void remove(Deadline deadline) {
+            if (deadline.prev != null) {
+                deadline.prev.next = deadline.next;
+            } else {
+                head = deadline.next;
+            }
+            if (deadline.next != null) {
+                deadline.next.prev = deadline.prev;
+            } else {
+                tail = deadline.prev;
+            }
+            deadline.prev = null;
+            deadline.next = null;
+            deadline.bucket = null;
+            pendingCount.decrementAndGet();
+        }
+        
+        /**
+         * Fire the deadlines due in this turn and age the others by one turn
+         */
+        private void expireDue() {
+            Deadline deadline = head;
+            while (deadline != null) {
+                Deadline next = deadline.next;
+                if (deadline.state.get() == STATE_CANCELLED) {
+                    remove(deadline);
+                } else if (deadline.remainingRounds <= 0) {
+                    remove(deadline);
+                    deadline.expire();
+                } else {
+                    deadline.remainingRounds--;
+                }
+                deadline = next;
+            }
+        }
+    }
+    
+    /**
+     * Build the wheel and start the ticker
+     */
+    @PostConstruct
+    public void start() {
+        buildWheel();
+        
+        Gauge.builder("game.deadlines.pending", pendingCount, AtomicLong::get)
+            .description("Round deadlines waiting to fire")
+            .register(meterRegistry);
+        
+        running = true;
+        ticker = Thread.ofPlatform().daemon().name("round-deadline-ticker").start(this::runTicker);
+    }
+    
+    /**
+     * Build the ring of buckets and start counting ticks from now, without starting the ticker.
+     * Benchmarks drive a wheel built this way through advance().
+     */
+    void buildWheel() {
+        // A power of two lets the slot be picked with a mask
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Bucket();
+        }
+        mask = size - 1;
+        tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        startNanos = System.nanoTime();
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (ticker == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(ticker);
+        ticker.join(TimeUnit.SECONDS.toMillis(1));
+    }
+    
+    /**
+     * Run a task once the delay has passed
+     * @param delay How long to wait
+     * @param task The task; it runs on the ticker thread and must not block
+     * @return Handle to cancel the deadline
+     */
+    public Deadline schedule(Duration delay, Runnable task) {
+        Deadline deadline = new Deadline(task, System.nanoTime() + delay.toNanos());
+        pendingCount.incrementAndGet();
+        scheduled.add(deadline);
+        return deadline;
+    }
+    
+    private void runTicker() {
+        while (running) {
+            long tickEnd = startNanos + (tick + 1) * tickNanos;
+            long sleepNanos = tickEnd - System.nanoTime();
+            if (sleepNanos > 0) {
+                LockSupport.parkNanos(sleepNanos);
+                continue;
+            }
+            advance();
+        }
+    }
+    
+    /**
+     * Process one tick: unlink cancelled deadlines, move new ones into the wheel and fire the
+     * deadlines of the current bucket. Only called by the thread owning the wheel: the ticker, or
+     * a benchmark driving a wheel that has none.
+     */
+    void advance() {
+        try {
+            unlinkCancelled();
+            transferScheduled();
+            wheel[(int) (tick & mask)].expireDue();
+        } catch (Exception e) {
+            logger.error("Round deadline tick failed", e);
+        }
+        tick++;
+    }
+    
+    /**
+     * Put newly scheduled deadlines into the bucket of the tick they are due in
+     */
+    private void transferScheduled() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Deadline deadline = scheduled.poll();
+            if (deadline == null) {
+                return;
+            }
+            if (deadline.state.get() == STATE_CANCELLED) {
+                // Never linked, so the cancelled queue will skip it
+                pendingCount.decrementAndGet();
+                continue;
+            }
+            
+            // Tick n is processed once (n + 1) ticks have passed, i.e. at or after the deadline
+            long dueTick = (deadline.deadlineNanos - startNanos) / tickNanos;
+            long ticks = Math.max(dueTick, tick);
+            deadline.remainingRounds = (ticks - tick) / wheel.length;
+            wheel[(int) (ticks & mask)].add(deadline);
+        }
+    }
+    
+    private void unlinkCancelled() {
+        Deadline deadline;
+        while ((deadline = cancelled.poll()) != null) {
+            if (deadline.bucket != null) {
+                deadline.bucket.remove(deadline);
+            }
+        }
+    }
+}
@@ -1,13 +1,24 @@
 package com.gptuessr.ai_game.service;
 
+import com.gptuessr.ai_game.dto.PlayerProfileDTO;
 import com.gptuessr.ai_game.entity.User;
 import com.gptuessr.ai_game.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -19,6 +30,31 @@ public class UserService {
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Value("${user.profile-cache.max-size:10000}")
+    private long profileCacheMaxSize;
+    
+    @Value("${user.profile-cache.ttl-seconds:600}")
+    private long profileCacheTtlSeconds;
+    
+    // Player profiles shown in lobby responses, invalidated when Clerk reports a change
+    private Cache<String, PlayerProfileDTO> profileCache;
+    
+    /**
+     * Build the player profile cache and publish its hit/miss/eviction metrics
+     */
+    @PostConstruct
+    public void initProfileCache() {
+        profileCache = Caffeine.newBuilder()
+                .maximumSize(profileCacheMaxSize)
+                .expireAfterWrite(Duration.ofSeconds(profileCacheTtlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, profileCache, "playerProfiles");
+    }
+    
     /**
      * Register a new user from Clerk authentication
      * @param clerkUserId The unique user ID from Clerk
@@ -34,7 +70,7 @@ public class UserService {
                                 String firstName, String lastName, String profilePicture, 
                                 Map<String, String> providerInfo) {
         
-        logger.info("Registering new user from Clerk with ID: {}", clerkUserId);
+        logger.debug("Registering new user from Clerk with ID: {}", clerkUserId);
         
         // Check if user already exists by Clerk ID
         Optional<User> existingUserByClerkId = userRepository.findByClerkUserId(clerkUserId);
@@ -76,6 +112,7 @@ public class UserService {
         
         // Save the user to the database
         User savedUser = userRepository.save(newUser);
+        invalidatePlayerProfile(clerkUserId);
         logger.info("Successfully registered new user with Clerk ID: {}", clerkUserId);
         
         return savedUser;
@@ -88,7 +125,7 @@ public class UserService {
      * @return The updated user or null if user not found
      */
     public User updateUserOnLogin(String clerkUserId, String clerkSessionId) {
-        logger.info("Updating user on login with Clerk ID: {}", clerkUserId);
+        logger.debug("Updating user on login with Clerk ID: {}", clerkUserId);
         
         Optional<User> existingUser = userRepository.findByClerkUserId(clerkUserId);
         if (existingUser.isPresent()) {
@@ -101,7 +138,7 @@ public class UserService {
             user.setOnline(true);
             
             User updatedUser = userRepository.save(user);
-            logger.info("Successfully updated user login information for Clerk ID: {}", clerkUserId);
+            logger.debug("Successfully updated user login information for Clerk ID: {}", clerkUserId);
             
             return updatedUser;
         } else {
@@ -117,7 +154,7 @@ public class UserService {
      * @return The updated user or null if user not found
      */
     public User updateUserInfo(String clerkUserId, Map<String, Object> userData) {
-        logger.info("Updating user information for Clerk ID: {}", clerkUserId);
+        logger.debug("Updating user information for Clerk ID: {}", clerkUserId);
         
         Optional<User> existingUser = userRepository.findByClerkUserId(clerkUserId);
         if (existingUser.isPresent()) {
@@ -154,6 +191,7 @@ public class UserService {
             
             // Save the updated user
             User updatedUser = userRepository.save(user);
+            invalidatePlayerProfile(clerkUserId);
             logger.info("Successfully updated user information for Clerk ID: {}", clerkUserId);
             
             return updatedUser;
@@ -169,7 +207,7 @@ public class UserService {
      * @return The updated user or null if user not found
      */
     public User updateUserLogout(String clerkUserId) {
-        logger.info("Logging out user with Clerk ID: {}", clerkUserId);
+        logger.debug("Logging out user with Clerk ID: {}", clerkUserId);
         
         Optional<User> existingUser = userRepository.findByClerkUserId(clerkUserId);
         if (existingUser.isPresent()) {
@@ -197,6 +235,43 @@ public class UserService {
         return userRepository.findByClerkUserId(clerkUserId);
     }
     
+    /**
+     * Find the lobby profiles of several users, loading all cache misses in a single query
+     * @param clerkUserIds The unique user IDs from Clerk
+     * @return Map of Clerk user IDs to profiles; unknown users are absent
+     */
+    public Map<String, PlayerProfileDTO> findPlayerProfiles(Collection<String> clerkUserIds) {
+        if (clerkUserIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        
+        return profileCache.getAll(clerkUserIds, this::loadPlayerProfiles);
+    }
+    
+    /**
+     * Drop a cached player profile so the next lookup reads it from the database
+     * @param clerkUserId The unique user ID from Clerk
+     */
+    public void invalidatePlayerProfile(String clerkUserId) {
+        profileCache.invalidate(clerkUserId);
+    }
+    
+    /**
+     * Load player profiles that are not cached yet
+     * @param clerkUserIds The unique user IDs from Clerk
+     * @return Map of Clerk user IDs to profiles
+     */
+    private Map<String, PlayerProfileDTO> loadPlayerProfiles(Collection<? extends String> clerkUserIds) {
+        Map<String, PlayerProfileDTO> profiles = new HashMap<>();
+        
+        List<PlayerProfileDTO> found = userRepository.findByClerkUserIdIn(List.copyOf(clerkUserIds));
+        for (PlayerProfileDTO profile : found) {
+            profiles.put(profile.getClerkUserId(), profile);
+        }
+        
+        return profiles;
+    }
+    
     /**
      * Generate a unique username by appending a number if necessary
      * @param baseUsername The original username to make unique
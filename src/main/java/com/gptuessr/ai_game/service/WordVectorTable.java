@@ -0,0 +1,234 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.util.LongIntHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Read-only table of static word vectors, memory-mapped from disk.
+ * The binary layout is a header (magic, dimensions, word count), the FNV-1a hashes of the
+ * lower-case words in ascending order and then one unit-length float vector per word, all
+ * little-endian. Lookups binary-search the mapped hashes, so the table costs no heap and
+ * pages are shared with the OS cache. GloVe or word2vec text files are converted once
+ * into a binary file next to them.
+ */
+final class WordVectorTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WordVectorTable.class);
+    
+    private static final int MAGIC = 0x31565747; // "GWV1"
+    
+    private static final int HEADER_BYTES = 12;
+    
+    private final int dimensions;
+    
+    private final int wordCount;
+    
+    private final LongBuffer hashes;
+    
+    private final FloatBuffer vectors;
+    
+    private WordVectorTable(int dimensions, int wordCount, LongBuffer hashes, FloatBuffer vectors) {
+        this.dimensions = dimensions;
+        this.wordCount = wordCount;
+        this.hashes = hashes;
+        this.vectors = vectors;
+    }
+    
+    /**
+     * Map a word vector file, converting a text file to the binary layout first
+     * @param path A binary table, or a .txt file with one word and its vector per line
+     * @param maxWords Most words to keep when converting a text file
+     * @return The table
+     * @throws IOException if the file cannot be read or is not a word vector table
+     */
+    static WordVectorTable open(Path path, int maxWords) throws IOException {
+        if (path.getFileName().toString().endsWith(".txt")) {
+            Path binary = path.resolveSibling(path.getFileName() + ".gwv");
+            if (!Files.exists(binary) || Files.getLastModifiedTime(binary).compareTo(Files.getLastModifiedTime(path)) < 0) {
+                convert(path, binary, maxWords);
+            }
+            path = binary;
+        }
+        
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Word vector table " + path + " is larger than 2 GB");
+            }
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size).order(ByteOrder.LITTLE_ENDIAN);
+            if (size < HEADER_BYTES || mapped.getInt(0) != MAGIC) {
+                throw new IOException(path + " is not a word vector table");
+            }
+            int dimensions = mapped.getInt(4);
+            int wordCount = mapped.getInt(8);
+            long vectorsOffset = HEADER_BYTES + (long) wordCount * Long.BYTES;
+            if (dimensions <= 0 || wordCount < 0 || vectorsOffset + (long) wordCount * dimensions * Float.BYTES != size) {
+                throw new IOException("Word vector table " + path + " is truncated or corrupt");
+            }
+            
+            LongBuffer hashes = mapped.slice(HEADER_BYTES, wordCount * Long.BYTES)
+                .order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            FloatBuffer vectors = mapped.slice((int) vectorsOffset, (int) (size - vectorsOffset))
+                .order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+            return new WordVectorTable(dimensions, wordCount, hashes, vectors);
+        }
+    }
+    
+    int getDimensions() {
+        return dimensions;
+    }
+    
+    int getWordCount() {
+        return wordCount;
+    }
+    
+    /**
+     * Find a word by the hash of its lower-case form
+     * @param wordHash FNV-1a hash of the word
+     * @return Row of the word, or -1 if the table does not know it
+     */
+    int indexOf(long wordHash) {
+        int low = 0;
+        int high = wordCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long hash = hashes.get(mid);
+            if (hash < wordHash) {
+                low = mid + 1;
+            } else if (hash > wordHash) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Add the vector of a row to a target; safe to call from several threads
+     * @param index Row from indexOf()
+     * @param target Where to add to
+     * @param offset First element to add to
+     */
+    void addVector(int index, float[] target, int offset) {
+        int base = index * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            target[offset + d] += vectors.get(base + d);
+        }
+    }
+    
+    private static void convert(Path text, Path binary, int maxWords) throws IOException {
+        logger.info("Converting word vectors {} to {}", text, binary);
+        List<float[]> rows = new ArrayList<>();
+        List<Long> rowHashes = new ArrayList<>();
+        LongIntHashMap seen = new LongIntHashMap(1024);
+        int dimensions = -1;
+        
+        try (BufferedReader reader = Files.newBufferedReader(text, StandardCharsets.UTF_8)) {
+            String line;
+            while (rows.size() < maxWords && (line = reader.readLine()) != null) {
+                String[] parts = line.trim().split(" ");
+                if (parts.length < 3) {
+                    // word2vec header ("words dimensions") or an empty line
+                    continue;
+                }
+                if (dimensions < 0) {
+                    dimensions = parts.length - 1;
+                } else if (parts.length - 1 != dimensions) {
+                    throw new IOException("Inconsistent vector length in " + text + ": " + parts[0]);
+                }
+                
+                char[] word = parts[0].toLowerCase().toCharArray();
+                if (!isPlainWord(word)) {
+                    // Tokenized guesses never contain punctuation, so such entries can never match
+                    continue;
+                }
+                float[] vector = new float[dimensions];
+                double norm = 0;
+                for (int d = 0; d < dimensions; d++) {
+                    vector[d] = Float.parseFloat(parts[d + 1]);
+                    norm += vector[d] * vector[d];
+                }
+                if (norm == 0) {
+                    continue;
+                }
+                
+                long hash = LexicalGuessScorer.hash(word, word.length);
+                // Files list frequent words first; keep the first of case variants
+                if (seen.putIfAbsent(hash, rows.size()) != rows.size()) {
+                    continue;
+                }
+                float scale = (float) (1 / Math.sqrt(norm));
+                for (int d = 0; d < dimensions; d++) {
+                    vector[d] *= scale;
+                }
+                rows.add(vector);
+                rowHashes.add(hash);
+            }
+        }
+        if (rows.isEmpty()) {
+            throw new IOException("No word vectors found in " + text);
+        }
+        
+        Integer[] order = new Integer[rows.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(rowHashes.get(a), rowHashes.get(b)));
+        
+        Path temp = binary.resolveSibling(binary.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(dimensions).putInt(rows.size()).flip();
+            writeFully(channel, header);
+            
+            ByteBuffer hashBuffer = ByteBuffer.allocate(rows.size() * Long.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int row : order) {
+                hashBuffer.putLong(rowHashes.get(row));
+            }
+            writeFully(channel, hashBuffer.flip());
+            
+            ByteBuffer vectorBuffer = ByteBuffer.allocate(dimensions * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int row : order) {
+                vectorBuffer.clear();
+                vectorBuffer.asFloatBuffer().put(rows.get(row));
+                writeFully(channel, vectorBuffer);
+            }
+        }
+        Files.move(temp, binary, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        logger.info("Wrote {} word vectors with {} dimensions to {}", rows.size(), dimensions, binary);
+    }
+    
+    private static boolean isPlainWord(char[] word) {
+        for (char c : word) {
+            if (!Character.isLetterOrDigit(c)) {
+                return false;
+            }
+        }
+        return word.length > 0;
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package com.gptuessr.ai_game.util;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Shared client for all outbound calls to Clerk.
+ * Connections are pooled and every call is bounded by connect and read timeouts. At most
+ * a fixed number of calls run at the same time, and after repeated failures the circuit
+ * opens so callers fail immediately instead of waiting on an unresponsive Clerk. Once the
+ * open period is over, a single trial call is let through; it closes the circuit if it
+ * succeeds and opens it again if it fails, while other callers keep failing fast.
+ * Calls that cannot be made throw IllegalStateException; 4xx responses from Clerk are
+ * passed on as HttpClientErrorException and do not count as failures.
+ */
+@Component
+public class ClerkApiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClerkApiClient.class);
+
+    private static final ParameterizedTypeReference<Map<String, Object>> JSON_OBJECT =
+        new ParameterizedTypeReference<>() {};
+
+    @Value("${clerk.api.url:https://api.clerk.dev/v1}")
+    private String clerkApiUrl;
+
+    @Value("${clerk.api.key}")
+    private String clerkApiKey;
+
+    @Value("${clerk.http.connect-timeout-ms:1000}")
+    private long connectTimeoutMs;
+
+    @Value("${clerk.http.read-timeout-ms:2000}")
+    private long readTimeoutMs;
+
+    @Value("${clerk.http.max-connections:50}")
+    private int maxConnections;
+
+    @Value("${clerk.http.max-concurrent-requests:32}")
+    private int maxConcurrentRequests;
+
+    @Value("${clerk.http.acquire-timeout-ms:100}")
+    private long acquireTimeoutMs;
+
+    @Value("${clerk.http.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${clerk.http.circuit.open-ms:30000}")
+    private long circuitOpenMs;
+
+    private CloseableHttpClient httpClient;
+
+    private RestTemplate restTemplate;
+
+    private Semaphore permits;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+    // 0 while the circuit is closed
+    private volatile long circuitOpenUntil;
+
+    // Set while the single trial call of a half-open circuit is running
+    private final AtomicBoolean trialInFlight = new AtomicBoolean();
+
+    @PostConstruct
+    public void init() {
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(maxConnections)
+            .setMaxConnPerRoute(maxConnections)
+            .setDefaultConnectionConfig(ConnectionConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(connectTimeoutMs))
+                .setSocketTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build())
+            .build();
+
+        httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(RequestConfig.custom()
+                // Waiting for a pooled connection is bounded as well
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(acquireTimeoutMs))
+                .setResponseTimeout(Timeout.ofMilliseconds(readTimeoutMs))
+                .build())
+            .evictIdleConnections(TimeValue.ofSeconds(30))
+            .build();
+
+        restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(httpClient));
+        permits = new Semaphore(maxConcurrentRequests);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * Verify a session token through the Clerk API
+     * @param token The JWT token
+     * @return The verification result
+     */
+    public Map<String, Object> verifyToken(String token) {
+        HttpHeaders headers = authorizedHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        HttpEntity<Map<String, String>> request = new HttpEntity<>(Map.of("token", token), headers);
+
+        return call(() -> restTemplate.exchange(clerkApiUrl + "/tokens/verify", HttpMethod.POST, request, JSON_OBJECT).getBody());
+    }
+
+    /**
+     * Get a user from the Clerk API
+     * @param userId The Clerk user ID
+     * @return The user object
+     */
+    public Map<String, Object> getUser(String userId) {
+        HttpEntity<Void> request = new HttpEntity<>(authorizedHeaders());
+
+        return call(() -> restTemplate.exchange(clerkApiUrl + "/users/{userId}", HttpMethod.GET, request, JSON_OBJECT, userId).getBody());
+    }
+
+    /**
+     * Fetch a public document, such as the JWKS, without credentials
+     * @param url The absolute URL
+     * @return The response body
+     */
+    public String fetch(String url) {
+        return call(() -> restTemplate.getForObject(url, String.class));
+    }
+
+    private HttpHeaders authorizedHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(clerkApiKey);
+        headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+        return headers;
+    }
+
+    /**
+     * Run a call through the circuit breaker and the concurrency limit
+     * @param request The call
+     * @return The call result
+     * @throws IllegalStateException if the circuit is open, no permit is available or the call failed
+     */
+    private <T> T call(Supplier<T> request) {
+        boolean trial = false;
+        long openUntil = circuitOpenUntil;
+        if (openUntil != 0) {
+            if (System.currentTimeMillis() < openUntil) {
+                throw new IllegalStateException("Clerk API unavailable (circuit open)");
+            }
+            // Half-open: only the caller that wins the flag probes Clerk
+            if (!trialInFlight.compareAndSet(false, true)) {
+                throw new IllegalStateException("Clerk API unavailable (circuit half-open, trial call running)");
+            }
+            trial = true;
+        }
+
+        try {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for Clerk API", e);
+            }
+            if (!acquired) {
+                throw new IllegalStateException("Clerk API busy, too many concurrent requests");
+            }
+
+            try {
+                T result = request.get();
+                recordSuccess(trial);
+                return result;
+            } catch (HttpClientErrorException e) {
+                // Clerk answered, the request itself was rejected
+                recordSuccess(trial);
+                throw e;
+            } catch (Exception e) {
+                recordFailure(trial, e);
+                throw new IllegalStateException("Clerk API call failed: " + e.getMessage(), e);
+            } finally {
+                permits.release();
+            }
+        } finally {
+            if (trial) {
+                trialInFlight.set(false);
+            }
+        }
+    }
+
+    private void recordSuccess(boolean trial) {
+        consecutiveFailures.set(0);
+        if (trial) {
+            circuitOpenUntil = 0;
+            logger.info("Closing Clerk API circuit after a successful trial call");
+        }
+    }
+
+    private void recordFailure(boolean trial, Exception e) {
+        int failures = consecutiveFailures.incrementAndGet();
+        if (trial || failures >= failureThreshold) {
+            circuitOpenUntil = System.currentTimeMillis() + circuitOpenMs;
+            logger.warn("Opening Clerk API circuit for {} ms after {} consecutive failures: {}",
+                circuitOpenMs, failures, e.getMessage());
+        }
+    }
+}
@@ -1,20 +1,31 @@
 package com.gptuessr.ai_game.util;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.Signature;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Base64;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Utility class for Clerk authentication and token operations
@@ -24,16 +35,78 @@ public class ClerkAuthUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(ClerkAuthUtils.class);
     
-    private final RestTemplate restTemplate;
+    // Request attributes set by the Clerk authentication interceptor
+    public static final String TOKEN_ATTRIBUTE = "clerkToken";
+    public static final String PRINCIPAL_ATTRIBUTE = "clerkPrincipal";
     
-    @Value("${clerk.api.url:https://api.clerk.com}")
-    private String clerkApiUrl;
+    // Clerk sets iss to the instance's Frontend API URL
+    @Value("${clerk.jwt.issuer:${clerk.frontend.api}}")
+    private String issuer;
     
-    @Value("${clerk.api.key}")
-    private String clerkApiKey;
-
-    public ClerkAuthUtils() {
-        this.restTemplate = new RestTemplate();
+    // Comma-separated origins allowed in the azp claim; empty accepts any
+    @Value("${clerk.jwt.authorized-parties:}")
+    private String authorizedPartiesList;
+    
+    private Set<String> authorizedParties;
+    
+    @Value("${clerk.jwt.clock-skew-seconds:5}")
+    private long clockSkewSeconds;
+    
+    @Value("${clerk.jwt.claims-cache-max-size:50000}")
+    private long claimsCacheMaxSize;
+    
+    @Autowired
+    private ClerkJwksProvider jwksProvider;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Verified claims keyed by token hash, each entry expiring together with its token
+    private Cache<String, ClerkClaims> claimsCache;
+    
+    /**
+     * Build the claims cache; entries live until the token's exp claim
+     */
+    @PostConstruct
+    public void initClaimsCache() {
+        issuer = normalizeIssuer(issuer);
+        authorizedParties = new HashSet<>();
+        for (String party : authorizedPartiesList.split(",")) {
+            if (!party.isBlank()) {
+                authorizedParties.add(party.trim());
+            }
+        }
+        
+        claimsCache = Caffeine.newBuilder()
+                .maximumSize(claimsCacheMaxSize)
+                .expireAfter(new Expiry<String, ClerkClaims>() {
+                    @Override
+                    public long expireAfterCreate(String key, ClerkClaims claims, long currentTime) {
+                        if (claims.getExpiresAt() == null) {
+                            return 0;
+                        }
+                        Duration remaining = Duration.between(Instant.now(), claims.getExpiresAt());
+                        return Math.max(0, remaining.toNanos());
+                    }
+                    
+                    @Override
+                    public long expireAfterUpdate(String key, ClerkClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                    
+                    @Override
+                    public long expireAfterRead(String key, ClerkClaims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        
+        // Hit ratio shows how many requests skip signature verification
+        CaffeineCacheMetrics.monitor(meterRegistry, claimsCache, "clerkClaims");
     }
     
     /**
@@ -43,8 +116,24 @@ public class ClerkAuthUtils {
      * @throws IllegalArgumentException if token is invalid or user ID cannot be extracted
      */
     public String getUserIdFromToken(HttpServletRequest request) {
+        return getClaimsFromToken(request).getUserId();
+    }
+    
+    /**
+     * Get the verified claims of the token attached to a request
+     * @param request HttpServletRequest containing the token
+     * @return The verified claims
+     * @throws IllegalArgumentException if the token is missing or invalid
+     */
+    public ClerkClaims getClaimsFromToken(HttpServletRequest request) {
+        // Reuse the principal resolved by the interceptor
+        Object principal = request.getAttribute(PRINCIPAL_ATTRIBUTE);
+        if (principal instanceof ClerkClaims claims) {
+            return claims;
+        }
+        
         // Get the token from request attributes (set by the interceptor)
-        String token = (String) request.getAttribute("clerkToken");
+        String token = (String) request.getAttribute(TOKEN_ATTRIBUTE);
         if (token == null) {
             logger.error("No authentication token found in request attributes");
             // Log available attributes for debugging
@@ -56,50 +145,128 @@ public class ClerkAuthUtils {
             throw new IllegalArgumentException("No authentication token found");
         }
         
-        try {
-            // Instead of trying to verify with Clerk's API, let's decode the JWT token directly
-            // This is a simpler approach that doesn't require making API calls
-            String userId = extractUserIdFromJwt(token);
-            logger.info("Successfully extracted user ID from JWT: {}", userId);
-            return userId;
-            
-        } catch (Exception e) {
-            logger.error("Error extracting user ID from token: {}", e.getMessage(), e);
-            throw new IllegalArgumentException("Failed to authenticate: " + e.getMessage());
+        return verifyToken(token);
+    }
+    
+    /**
+     * Verify a Clerk session token and return its claims.
+     * Each token is verified once; later calls are served from the claims cache until it expires.
+     * @param token The JWT token
+     * @return The verified claims
+     * @throws IllegalArgumentException if the token is invalid or expired
+     */
+    public ClerkClaims verifyToken(String token) {
+        String tokenHash = hashToken(token);
+        
+        ClerkClaims claims = claimsCache.getIfPresent(tokenHash);
+        if (claims == null) {
+            try {
+                claims = decodeAndVerify(token);
+            } catch (IllegalArgumentException e) {
+                logger.warn("Rejected token: {}", e.getMessage());
+                throw new IllegalArgumentException("Failed to authenticate: " + e.getMessage());
+            } catch (Exception e) {
+                logger.error("Error verifying token: {}", e.getMessage(), e);
+                throw new IllegalArgumentException("Failed to authenticate: " + e.getMessage());
+            }
+            claimsCache.put(tokenHash, claims);
         }
+        
+        if (claims.isExpired(Instant.now().minusSeconds(clockSkewSeconds))) {
+            claimsCache.invalidate(tokenHash);
+            throw new IllegalArgumentException("Failed to authenticate: Token expired");
+        }
+        
+        return claims;
     }
     
     /**
-     * Extract user ID from JWT token without verification
-     * This is a temporary solution that avoids Clerk API calls
+     * Parse the JWT, check its RS256 signature against the cached JWKS and validate its issuer,
+     * authorized party and time claims
+     * @param token The JWT token
+     * @return The verified claims
      */
-    private String extractUserIdFromJwt(String token) {
+    private ClerkClaims decodeAndVerify(String token) throws Exception {
+        // Split the JWT token into its parts
+        int firstDot = token.indexOf('.');
+        int secondDot = token.indexOf('.', firstDot + 1);
+        if (firstDot < 0 || secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new IllegalArgumentException("Invalid JWT token format");
+        }
+        
+        Base64.Decoder decoder = Base64.getUrlDecoder();
+        JsonNode header = objectMapper.readTree(decoder.decode(token.substring(0, firstDot)));
+        JsonNode payload = objectMapper.readTree(decoder.decode(token.substring(firstDot + 1, secondDot)));
+        
+        if (!"RS256".equals(header.path("alg").asText())) {
+            throw new IllegalArgumentException("Unsupported signing algorithm: " + header.path("alg").asText());
+        }
+        
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(jwksProvider.getKey(header.path("kid").asText()));
+        verifier.update(token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII));
+        if (!verifier.verify(decoder.decode(token.substring(secondDot + 1)))) {
+            throw new IllegalArgumentException("Invalid token signature");
+        }
+        
+        // A validly signed token from another Clerk instance must not be accepted
+        if (!issuer.equals(normalizeIssuer(payload.path("iss").asText("")))) {
+            throw new IllegalArgumentException("Unexpected token issuer");
+        }
+        
+        // Like Clerk's SDKs, azp is checked when the token carries it
+        String authorizedParty = payload.path("azp").asText(null);
+        if (authorizedParty != null && !authorizedParties.isEmpty() && !authorizedParties.contains(authorizedParty)) {
+            throw new IllegalArgumentException("Unexpected authorized party");
+        }
+        
+        String userId = payload.path("sub").asText(null);
+        if (userId == null) {
+            throw new IllegalArgumentException("User ID not found in token payload");
+        }
+        
+        Instant now = Instant.now();
+        if (payload.has("nbf") && now.plusSeconds(clockSkewSeconds).isBefore(Instant.ofEpochSecond(payload.get("nbf").asLong()))) {
+            throw new IllegalArgumentException("Token not yet valid");
+        }
+        
+        Instant expiresAt = payload.has("exp") ? Instant.ofEpochSecond(payload.get("exp").asLong()) : null;
+        if (expiresAt == null) {
+            throw new IllegalArgumentException("Token has no expiry");
+        }
+        
+        return new ClerkClaims(
+            userId,
+            payload.path("sid").asText(null),
+            expiresAt,
+            payload.path("email").asText(null),
+            payload.path("name").asText(null)
+        );
+    }
+    
+    // "https://clerk.example.com/" and "clerk.example.com" name the same issuer
+    private static String normalizeIssuer(String value) {
+        String normalized = value.trim();
+        if (!normalized.startsWith("http://") && !normalized.startsWith("https://")) {
+            normalized = "https://" + normalized;
+        }
+        while (normalized.endsWith("/")) {
+            normalized = normalized.substring(0, normalized.length() - 1);
+        }
+        return normalized;
+    }
+    
+    /**
+     * Hash a token for use as cache key so raw tokens are not kept in memory
+     * @param token The JWT token
+     * @return The Base64 encoded SHA-256 hash
+     */
+    public static String hashToken(String token) {
         try {
-            // Split the JWT token into its parts
-            String[] parts = token.split("\\.");
-            if (parts.length != 3) {
-                throw new IllegalArgumentException("Invalid JWT token format");
-            }
-            
-            // Decode the payload (second part)
-            String payload = new String(Base64.getUrlDecoder().decode(parts[1]));
-            
-            // Log the payload for debugging
-            logger.debug("JWT payload: {}", payload);
-            
-            // Parse the JSON payload
-            // This is simplified - in production you should use a proper JSON parser
-            if (payload.contains("\"sub\":")) {
-                int startIndex = payload.indexOf("\"sub\":") + 7;
-                int endIndex = payload.indexOf("\"", startIndex);
-                String userId = payload.substring(startIndex, endIndex);
-                return userId;
-            } else {
-                throw new IllegalArgumentException("User ID not found in token payload");
-            }
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
         } catch (Exception e) {
-            logger.error("Error decoding JWT token: {}", e.getMessage(), e);
-            throw new IllegalArgumentException("Failed to decode JWT token: " + e.getMessage());
+            throw new IllegalStateException("SHA-256 not available", e);
         }
     }
     
@@ -124,51 +291,21 @@ public class ClerkAuthUtils {
      * @throws IllegalArgumentException if token is invalid
      */
     public Map<String, Object> getUserInfoFromToken(HttpServletRequest request) {
-        String token = (String) request.getAttribute("clerkToken");
-        if (token == null) {
-            throw new IllegalArgumentException("No authentication token found");
+        ClerkClaims claims = getClaimsFromToken(request);
+        
+        // Return basic user info from the verified claims
+        Map<String, Object> userInfo = new HashMap<>();
+        userInfo.put("id", claims.getUserId());
+        
+        if (claims.getEmail() != null) {
+            userInfo.put("email", claims.getEmail());
         }
         
-        try {
-            // Extract user ID from token
-            String userId = getUserIdFromToken(request);
-            
-            // Instead of making API call, return basic user info from token
-            Map<String, Object> userInfo = new HashMap<>();
-            userInfo.put("id", userId);
-            
-            // Try to extract more info from the token if available
-            String[] parts = token.split("\\.");
-            if (parts.length == 3) {
-                String payload = new String(Base64.getUrlDecoder().decode(parts[1]));
-                
-                // Extract email if present
-                if (payload.contains("\"email\":")) {
-                    int startIndex = payload.indexOf("\"email\":") + 9;
-                    int endIndex = payload.indexOf("\"", startIndex);
-                    if (startIndex > 0 && endIndex > startIndex) {
-                        String email = payload.substring(startIndex, endIndex);
-                        userInfo.put("email", email);
-                    }
-                }
-                
-                // Extract name if present
-                if (payload.contains("\"name\":")) {
-                    int startIndex = payload.indexOf("\"name\":") + 8;
-                    int endIndex = payload.indexOf("\"", startIndex);
-                    if (startIndex > 0 && endIndex > startIndex) {
-                        String name = payload.substring(startIndex, endIndex);
-                        userInfo.put("name", name);
-                    }
-                }
-            }
-            
-            return userInfo;
-            
-        } catch (Exception e) {
-            logger.error("Error getting user information from token: {}", e.getMessage(), e);
-            throw new IllegalArgumentException("Failed to get user information: " + e.getMessage());
+        if (claims.getName() != null) {
+            userInfo.put("name", claims.getName());
         }
+        
+        return userInfo;
     }
     
     /**
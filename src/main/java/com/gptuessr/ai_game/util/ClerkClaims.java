@@ -0,0 +1,53 @@
+package com.gptuessr.ai_game.util;
+
+import java.time.Instant;
+
+/**
+ * Verified claims of a Clerk session token
+ */
+public class ClerkClaims {
+
+    private final String userId;
+
+    private final String sessionId;
+
+    private final Instant expiresAt;
+
+    private final String email;
+
+    private final String name;
+
+    // Constructors
+    public ClerkClaims(String userId, String sessionId, Instant expiresAt, String email, String name) {
+        this.userId = userId;
+        this.sessionId = sessionId;
+        this.expiresAt = expiresAt;
+        this.email = email;
+        this.name = name;
+    }
+
+    // Getters
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+}
@@ -0,0 +1,131 @@
+package com.gptuessr.ai_game.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.security.KeyFactory;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Keeps a local copy of Clerk's JSON Web Key Set.
+ * The set is loaded from a Spring resource location, so production points at Clerk's
+ * jwks.json URL while local runs and tests can use a file: or classpath: stand-in.
+ * HTTP locations are fetched through the shared ClerkApiClient so they get its timeouts.
+ * Keys are only refetched when a token references an unknown key id.
+ */
+@Component
+public class ClerkJwksProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClerkJwksProvider.class);
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Autowired
+    private ClerkApiClient clerkApiClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${clerk.jwks.location:${clerk.frontend.api}/.well-known/jwks.json}")
+    private String jwksLocation;
+
+    @Value("${clerk.jwks.refresh-cooldown-ms:60000}")
+    private long refreshCooldownMs;
+
+    private volatile Map<String, RSAPublicKey> keys = Map.of();
+
+    private volatile long lastRefresh;
+
+    // Held while fetching the key set; a lock instead of a monitor so waiting virtual threads are not pinned
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    /**
+     * Get the public key for a key id, refreshing the key set if the id is unknown
+     * @param kid The key id from the token header
+     * @return The RSA public key
+     * @throws IllegalArgumentException if no key with this id exists
+     */
+    public RSAPublicKey getKey(String kid) {
+        RSAPublicKey key = keys.get(kid);
+        if (key != null) {
+            return key;
+        }
+
+        refreshIfAllowed();
+
+        key = keys.get(kid);
+        if (key == null) {
+            throw new IllegalArgumentException("Unknown signing key: " + kid);
+        }
+        return key;
+    }
+
+    /**
+     * Reload the key set unless it was reloaded within the cooldown period
+     */
+    private void refreshIfAllowed() {
+        refreshLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            if (lastRefresh != 0 && now - lastRefresh < refreshCooldownMs) {
+                return;
+            }
+            lastRefresh = now;
+
+            try {
+                keys = loadKeys();
+                logger.info("Loaded {} signing keys from {}", keys.size(), jwksLocation);
+            } catch (Exception e) {
+                logger.error("Failed to load JWKS from {}: {}", jwksLocation, e.getMessage());
+            }
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Read and parse the RSA keys of the key set
+     * @return Map of key ids to public keys
+     */
+    private Map<String, RSAPublicKey> loadKeys() throws Exception {
+        JsonNode jwks;
+        if (jwksLocation.startsWith("http://") || jwksLocation.startsWith("https://")) {
+            jwks = objectMapper.readTree(clerkApiClient.fetch(jwksLocation));
+        } else {
+            Resource resource = resourceLoader.getResource(jwksLocation);
+            try (InputStream inputStream = resource.getInputStream()) {
+                jwks = objectMapper.readTree(inputStream);
+            }
+        }
+
+        Map<String, RSAPublicKey> loaded = new HashMap<>();
+        KeyFactory keyFactory = KeyFactory.getInstance("RSA");
+        for (JsonNode jwk : jwks.path("keys")) {
+            if (!"RSA".equals(jwk.path("kty").asText())) {
+                continue;
+            }
+
+            BigInteger modulus = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("n").asText()));
+            BigInteger exponent = new BigInteger(1, Base64.getUrlDecoder().decode(jwk.path("e").asText()));
+            RSAPublicKey key = (RSAPublicKey) keyFactory.generatePublic(new RSAPublicKeySpec(modulus, exponent));
+            loaded.put(jwk.path("kid").asText(), key);
+        }
+
+        return loaded;
+    }
+}
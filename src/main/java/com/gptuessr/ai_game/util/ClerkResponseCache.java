@@ -0,0 +1,161 @@
+package com.gptuessr.ai_game.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache for the Clerk verification and user lookups behind /api/clerk.
+ * Entries are keyed by token hash and live for the configured TTL, but never past the
+ * token's own exp claim. Concurrent lookups for the same token share one outbound call.
+ * Failed lookups, including rejected tokens, are not cached.
+ */
+@Component
+public class ClerkResponseCache {
+
+    @Autowired
+    private ClerkApiClient clerkApiClient;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Outbound calls block on I/O, so they run on the application task executor, which uses
+    // virtual threads unless spring.threads.virtual.enabled is off, rather than the common pool
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor loaderExecutor;
+
+    @Value("${clerk.response-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${clerk.response-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    private AsyncCache<String, CachedResponse> verifications;
+
+    private AsyncCache<String, CachedResponse> users;
+
+    private record CachedResponse(Map<String, Object> body, Instant expiresAt) {
+    }
+
+    @PostConstruct
+    public void init() {
+        verifications = newCache();
+        users = newCache();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, verifications, "clerkVerifications");
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "clerkUsers");
+    }
+
+    /**
+     * Verify a token through Clerk, reusing a recent result for the same token
+     * @param token The JWT token
+     * @return The verification result
+     */
+    public Map<String, Object> verifyToken(String token) {
+        return lookup(verifications, token, () -> clerkApiClient.verifyToken(token));
+    }
+
+    /**
+     * Get the Clerk user a token belongs to, reusing a recent result for the same token
+     * @param token The JWT token the user was resolved from
+     * @param userId The Clerk user ID
+     * @return The user object
+     */
+    public Map<String, Object> getUser(String token, String userId) {
+        return lookup(users, token, () -> clerkApiClient.getUser(userId));
+    }
+
+    private AsyncCache<String, CachedResponse> newCache() {
+        return Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .executor(loaderExecutor)
+            .expireAfter(new Expiry<String, CachedResponse>() {
+                @Override
+                public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+                    long ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+                    if (response.expiresAt() == null) {
+                        return ttlNanos;
+                    }
+                    long remaining = Duration.between(Instant.now(), response.expiresAt()).toNanos();
+                    return Math.max(0, Math.min(ttlNanos, remaining));
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+
+                @Override
+                public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .recordStats()
+            .buildAsync();
+    }
+
+    /**
+     * Return the cached response for a token or load it, joining a load already in flight
+     * @param cache The cache to use
+     * @param token The JWT token
+     * @param loader The outbound call
+     * @return The response body
+     */
+    private Map<String, Object> lookup(AsyncCache<String, CachedResponse> cache, String token,
+                                       Supplier<Map<String, Object>> loader) {
+        CompletableFuture<CachedResponse> future = cache.get(ClerkAuthUtils.hashToken(token), (key, executor) ->
+            CompletableFuture.supplyAsync(() -> new CachedResponse(loader.get(), readExpiry(token)), executor));
+
+        try {
+            return future.join().body();
+        } catch (CompletionException e) {
+            // Rethrow what the client threw so callers can tell rejections from outages
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Read the exp claim without verifying the token; it only caps how long a Clerk answer is reused
+     * @param token The JWT token
+     * @return The expiry, or null if it cannot be read
+     */
+    private Instant readExpiry(String token) {
+        try {
+            int firstDot = token.indexOf('.');
+            int secondDot = token.indexOf('.', firstDot + 1);
+            if (firstDot < 0 || secondDot < 0) {
+                return null;
+            }
+            JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(token.substring(firstDot + 1, secondDot)));
+            return payload.has("exp") ? Instant.ofEpochSecond(payload.get("exp").asLong()) : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package com.gptuessr.ai_game.util;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gptuessr.ai_game.dto.ClerkWebhookEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads a Clerk webhook payload in one streaming pass.
+ * Only the event type and the handful of fields under "data" that the handlers use are
+ * read; everything else is skipped without being materialized. Field names are matched
+ * by their position in the document, so a nested "id" cannot be mistaken for the user id.
+ */
+@Component
+public class ClerkWebhookEventParser {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * Parse a webhook payload
+     * @param payload The raw webhook payload
+     * @return The typed event
+     * @throws IllegalArgumentException if the payload is not a JSON object
+     */
+    public ClerkWebhookEvent parse(String payload) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Webhook payload is not a JSON object");
+            }
+
+            String type = null;
+            EventData data = new EventData();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("type".equals(field)) {
+                    type = textValue(parser);
+                } else if ("data".equals(field) && value == JsonToken.START_OBJECT) {
+                    readData(parser, data);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+
+            // Session events carry the session id in "id" and the user in "user_id"
+            boolean sessionEvent = type != null && type.startsWith("session.");
+            String userId = sessionEvent || data.id == null ? data.userId : data.id;
+            String sessionId = sessionEvent ? data.id : null;
+
+            return new ClerkWebhookEvent(type, userId, sessionId, data.username, data.primaryEmail(),
+                data.firstName, data.lastName, data.imageUrl, data.providerInfo);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid webhook payload: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Fields collected from the "data" object while streaming
+     */
+    private static class EventData {
+        String id;
+        String userId;
+        String username;
+        String firstName;
+        String lastName;
+        String imageUrl;
+        String primaryEmailId;
+        String firstEmail;
+        final Map<String, String> emailsById = new HashMap<>();
+        final Map<String, String> providerInfo = new HashMap<>();
+
+        String primaryEmail() {
+            if (primaryEmailId != null && emailsById.containsKey(primaryEmailId)) {
+                return emailsById.get(primaryEmailId);
+            }
+            return firstEmail;
+        }
+    }
+
+    private void readData(JsonParser parser, EventData data) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            switch (field) {
+                case "id" -> data.id = textValue(parser);
+                case "user_id" -> data.userId = textValue(parser);
+                case "username" -> data.username = textValue(parser);
+                case "first_name" -> data.firstName = textValue(parser);
+                case "last_name" -> data.lastName = textValue(parser);
+                case "image_url" -> data.imageUrl = textValue(parser);
+                case "primary_email_address_id" -> data.primaryEmailId = textValue(parser);
+                case "email_addresses" -> readEmails(parser, value, data);
+                case "oauth_accounts", "external_accounts" -> readAccounts(parser, value, data);
+                default -> parser.skipChildren();
+            }
+        }
+    }
+
+    private void readEmails(JsonParser parser, JsonToken value, EventData data) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY && element != null) {
+            if (element != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String id = null;
+            String address = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("id".equals(field)) {
+                    id = textValue(parser);
+                } else if ("email_address".equals(field)) {
+                    address = textValue(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (address == null) {
+                continue;
+            }
+            if (data.firstEmail == null) {
+                data.firstEmail = address;
+            }
+            if (id != null) {
+                data.emailsById.put(id, address);
+            }
+        }
+    }
+
+    private void readAccounts(JsonParser parser, JsonToken value, EventData data) throws IOException {
+        if (value != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return;
+        }
+        JsonToken element;
+        while ((element = parser.nextToken()) != JsonToken.END_ARRAY && element != null) {
+            if (element != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String provider = null;
+            String providerUserId = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                if ("provider".equals(field)) {
+                    provider = textValue(parser);
+                } else if ("provider_user_id".equals(field)) {
+                    providerUserId = textValue(parser);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (provider != null && providerUserId != null) {
+                data.providerInfo.put(provider, providerUserId);
+            }
+        }
+    }
+
+    /**
+     * Read the current value as text, skipping objects and arrays
+     * @param parser The parser positioned on a value
+     * @return The string value, or null for null and non-string values
+     */
+    private static String textValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+}
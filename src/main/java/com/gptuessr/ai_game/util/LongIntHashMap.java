@@ -0,0 +1,93 @@
+package com.gptuessr.ai_game.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from long keys to non-negative int values without boxing.
+ * Meant for small lookup tables that are built once and then only read, such as the
+ * token hashes used by guess scoring; reads are safe from any thread once built.
+ */
+public final class LongIntHashMap {
+
+    public static final int MISSING = -1;
+
+    private long[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    private int mask;
+
+    public LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, MISSING);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Get the value for a key
+     * @param key The key
+     * @return The value, or MISSING
+     */
+    public int get(long key) {
+        int slot = slot(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    /**
+     * Add a key unless it is already present
+     * @param key The key
+     * @param value The value, must not be negative
+     * @return The value now stored for the key
+     */
+    public int putIfAbsent(long key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            grow();
+        }
+        int slot = slot(key);
+        while (values[slot] != MISSING) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        return value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(long key) {
+        // Spread the high bits so keys that differ only there do not collide
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        Arrays.fill(values, MISSING);
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != MISSING) {
+                putIfAbsent(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
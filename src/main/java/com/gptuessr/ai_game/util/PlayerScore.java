@@ -0,0 +1,9 @@
+package com.gptuessr.ai_game.util;
+
+/**
+ * One place in a ranking: a player and the score the ranking is ordered by
+ * @param playerId The player's user ID
+ * @param score The player's score
+ */
+public record PlayerScore(String playerId, int score) {
+}
@@ -0,0 +1,171 @@
+package com.gptuessr.ai_game.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Players' total scores kept in rank order as scores change.
+ * Scores live in a primitive array indexed by player and a second array holds the player
+ * indexes from best to worst; a score change only moves that player past the players it passes,
+ * so the leader is always at the front. The ranking handed out is an immutable snapshot that
+ * is built at most once per change and then shared by every reader.
+ * Not thread-safe; a game's scoreboard is only used from that game's mailbox.
+ */
+public final class Scoreboard {
+
+    private final Map<String, Integer> indexOf = new HashMap<>();
+
+    private String[] players;
+
+    private int[] scores;
+
+    // Player indexes from highest to lowest score; ties keep the order players reached the score
+    private int[] order;
+
+    // Position of each player index in order
+    private int[] positions;
+
+    private int size;
+
+    private List<PlayerScore> ranking;
+
+    /**
+     * Build a scoreboard
+     * @param playerIds Players in join order, which breaks ties
+     * @param totals Current scores by player, may miss players
+     */
+    public Scoreboard(List<String> playerIds, Map<String, Integer> totals) {
+        int capacity = Math.max(4, playerIds.size());
+        players = new String[capacity];
+        scores = new int[capacity];
+        order = new int[capacity];
+        positions = new int[capacity];
+        for (String playerId : playerIds) {
+            add(playerId, totals.getOrDefault(playerId, 0));
+        }
+        for (Map.Entry<String, Integer> entry : totals.entrySet()) {
+            if (!indexOf.containsKey(entry.getKey())) {
+                add(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Add points to a player, adding the player if needed
+     * @param playerId The player
+     * @param points Points to add, may be negative
+     */
+    public void add(String playerId, int points) {
+        Integer index = indexOf.get(playerId);
+        boolean added = index == null;
+        if (added) {
+            index = append(playerId);
+        }
+        scores[index] += points;
+        if (added || points != 0) {
+            reposition(index);
+            ranking = null;
+        }
+    }
+
+    /**
+     * Drop a player from the scoreboard
+     * @param playerId The player
+     */
+    public void remove(String playerId) {
+        Integer index = indexOf.get(playerId);
+        if (index == null) {
+            return;
+        }
+        // Close the gap in order, then move the last player index into the freed slot
+        int position = positions[index];
+        System.arraycopy(order, position + 1, order, position, size - position - 1);
+        size--;
+        for (int p = position; p < size; p++) {
+            positions[order[p]] = p;
+        }
+        indexOf.remove(playerId);
+        if (index != size) {
+            players[index] = players[size];
+            scores[index] = scores[size];
+            positions[index] = positions[size];
+            order[positions[index]] = index;
+            indexOf.put(players[index], index);
+        }
+        players[size] = null;
+        ranking = null;
+    }
+
+    /**
+     * Get the player with the highest score
+     * @return The player ID, or null without players
+     */
+    public String getLeader() {
+        return size == 0 ? null : players[order[0]];
+    }
+
+    /**
+     * Get a player's score
+     * @param playerId The player
+     * @return The score, 0 for unknown players
+     */
+    public int getScore(String playerId) {
+        Integer index = indexOf.get(playerId);
+        return index == null ? 0 : scores[index];
+    }
+
+    /**
+     * Get the players with their scores from best to worst
+     * @return Immutable ranking, the same instance until a score changes
+     */
+    public List<PlayerScore> getRanking() {
+        if (ranking == null) {
+            List<PlayerScore> entries = new ArrayList<>(size);
+            for (int p = 0; p < size; p++) {
+                entries.add(new PlayerScore(players[order[p]], scores[order[p]]));
+            }
+            ranking = Collections.unmodifiableList(entries);
+        }
+        return ranking;
+    }
+
+    private int append(String playerId) {
+        if (size == players.length) {
+            int capacity = size * 2;
+            players = Arrays.copyOf(players, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+            order = Arrays.copyOf(order, capacity);
+            positions = Arrays.copyOf(positions, capacity);
+        }
+        int index = size++;
+        players[index] = playerId;
+        scores[index] = 0;
+        order[index] = index;
+        positions[index] = index;
+        indexOf.put(playerId, index);
+        ranking = null;
+        return index;
+    }
+
+    // Move a player whose score changed to its place, shifting the players it passes
+    private void reposition(int index) {
+        int score = scores[index];
+        int position = positions[index];
+        while (position > 0 && scores[order[position - 1]] < score) {
+            order[position] = order[position - 1];
+            positions[order[position]] = position;
+            position--;
+        }
+        while (position < size - 1 && scores[order[position + 1]] > score) {
+            order[position] = order[position + 1];
+            positions[order[position]] = position;
+            position++;
+        }
+        order[position] = index;
+        positions[index] = position;
+    }
+}
@@ -0,0 +1,37 @@
+package com.gptuessr.ai_game.ws;
+
+import com.gptuessr.ai_game.dto.GameStateDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes game state to the players of a lobby at every phase change of a round
+ */
+@Component
+public class GameEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameEventPublisher.class);
+
+    public static final String GAME_TOPIC_SUFFIX = ".game";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    /**
+     * Publish a game snapshot to the subscribers of its lobby.
+     * Failures are logged and swallowed; clients can fetch the state from GET /api/games/{lobbyCode}.
+     * @param state The game snapshot
+     */
+    public void publish(GameStateDTO state) {
+        String destination = LobbyEventPublisher.LOBBY_TOPIC_PREFIX + state.getLobbyCode() + GAME_TOPIC_SUFFIX;
+        try {
+            messagingTemplate.convertAndSend(destination, state);
+            logger.debug("Published game state round {} {} to {}", state.getCurrentRound(), state.getRoundStatus(), destination);
+        } catch (Exception e) {
+            logger.error("Failed to publish game state to {}: {}", destination, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.gptuessr.ai_game.ws;
+
+import com.gptuessr.ai_game.dto.LobbyEventDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes lobby events to the STOMP broker so clients do not have to poll the lobby
+ */
+@Component
+public class LobbyEventPublisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(LobbyEventPublisher.class);
+
+    public static final String LOBBY_TOPIC_PREFIX = "/topic/lobby.";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    /**
+     * Publish an event to the subscribers of a lobby.
+     * Failures are logged and swallowed, the lobby change itself has already been applied
+     * and subscribers recover from the missing sequence number by reloading the snapshot.
+     * @param event The lobby delta
+     */
+    public void publish(LobbyEventDTO event) {
+        String destination = LOBBY_TOPIC_PREFIX + event.getLobbyCode();
+        try {
+            messagingTemplate.convertAndSend(destination, event);
+            logger.debug("Published {} #{} to {}", event.getType(), event.getSequence(), destination);
+        } catch (Exception e) {
+            logger.error("Failed to publish {} to {}: {}", event.getType(), destination, e.getMessage());
+        }
+    }
+}
@@ -1,15 +1,50 @@
 package com.gptuessr.ai_game.ws;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
 
+/**
+ * STOMP over websocket configuration.
+ * Clients subscribe to /topic destinations, such as /topic/lobby.{lobbyCode}, in both broker
+ * modes. Destination names use dots instead of slashes, which RabbitMQ maps onto routing keys.
+ * The relay only shares broadcasts between nodes. Lobby registry entries and their sequence
+ * numbers, live games with their round timers and the player profile cache stay local to each
+ * node, so requests for a lobby must be routed to the same node, e.g. by a load balancer hashing
+ * the lobby code. Without that routing, nodes overwrite each other's lobby changes and clients
+ * resync far more often.
+ */
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebsocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private static final Logger logger = LoggerFactory.getLogger(WebsocketConfig.class);
+
+    // "simple" keeps subscriptions in this JVM, "relay" forwards to an external STOMP broker
+    @Value("${websocket.broker.mode:simple}")
+    private String brokerMode;
+
+    @Value("${websocket.broker.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${websocket.broker.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${websocket.broker.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${websocket.broker.relay.passcode:guest}")
+    private String relayPasscode;
+
+    @Value("${websocket.broker.relay.virtual-host:}")
+    private String relayVirtualHost;
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         registry.addEndpoint("/ws").setAllowedOriginPatterns("*").withSockJS();
@@ -18,7 +53,29 @@ public class WebsocketConfig implements WebSocketMessageBrokerConfigurer {
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/game");
-        registry.enableSimpleBroker("/game", "/user");  //to these endpoint the clients subscribe to
         registry.setUserDestinationPrefix("/user");
+        // Lobby deltas are published in sequence order; keep that order on the way out to each session
+        registry.setPreservePublishOrder(true);
+
+        if ("relay".equalsIgnoreCase(brokerMode)) {
+            logger.info("Relaying STOMP broker destinations to {}:{}", relayHost, relayPort);
+            // RabbitMQ and ActiveMQ only accept their own destination prefixes such as /topic and /queue
+            StompBrokerRelayRegistration relay = registry.enableStompBrokerRelay("/topic", "/queue")  //to these endpoint the clients subscribe to
+                .setRelayHost(relayHost)
+                .setRelayPort(relayPort)
+                .setClientLogin(relayLogin)
+                .setClientPasscode(relayPasscode)
+                .setSystemLogin(relayLogin)
+                .setSystemPasscode(relayPasscode)
+                // Share user sessions between nodes so /user destinations resolve on any node
+                .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                .setUserRegistryBroadcast("/topic/user-registry");
+            if (!relayVirtualHost.isEmpty()) {
+                relay.setVirtualHost(relayVirtualHost);
+            }
+        } else {
+            logger.info("Using in-memory STOMP broker, lobby broadcasts stay on this node");
+            registry.enableSimpleBroker("/topic", "/queue");  //to these endpoint the clients subscribe to
+        }
     }
 }
@@ -0,0 +1,91 @@
+package com.gptuessr.ai_game.config;
+
+import com.gptuessr.ai_game.util.ClerkAuthUtils;
+import com.gptuessr.ai_game.util.ClerkClaims;
+import com.gptuessr.ai_game.util.CurrentUser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ClerkConfigTest {
+
+    private ClerkAuthUtils authUtils;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        authUtils = mock(ClerkAuthUtils.class);
+        ClerkConfig config = new ClerkConfig();
+        ReflectionTestUtils.setField(config, "authUtils", authUtils);
+
+        mockMvc = MockMvcBuilders.standaloneSetup(new WhoAmIController())
+            .addMappedInterceptors(new String[] {"/api/**"}, config.clerkAuthInterceptor())
+            .setCustomArgumentResolvers(new CurrentUserArgumentResolver())
+            .build();
+    }
+
+    @Test
+    void validTokenResolvesTheCurrentUser() throws Exception {
+        when(authUtils.verifyToken("good")).thenReturn(new ClerkClaims("user_1", "sess_1", Instant.now().plusSeconds(60), null, null));
+
+        mockMvc.perform(get("/api/whoami").header("Authorization", "Bearer good"))
+            .andExpect(status().isOk())
+            .andExpect(content().string("user_1"));
+    }
+
+    @Test
+    void missingHeaderIsUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/whoami"))
+            .andExpect(status().isUnauthorized())
+            .andExpect(content().string("Unauthorized: Missing or invalid Authorization header"));
+    }
+
+    @Test
+    void headerWithoutBearerIsUnauthorized() throws Exception {
+        mockMvc.perform(get("/api/whoami").header("Authorization", "Basic dXNlcjpwdw=="))
+            .andExpect(status().isUnauthorized());
+
+        verify(authUtils, never()).verifyToken(anyString());
+    }
+
+    @Test
+    void invalidTokenIsUnauthorized() throws Exception {
+        when(authUtils.verifyToken("forged")).thenThrow(new IllegalArgumentException("Invalid token signature"));
+
+        mockMvc.perform(get("/api/whoami").header("Authorization", "Bearer forged"))
+            .andExpect(status().isUnauthorized())
+            .andExpect(content().string("Unauthorized: Invalid token signature"));
+    }
+
+    @Test
+    void currentUserWithoutResolvedPrincipalIsUnauthorized() throws Exception {
+        // Outside the interceptor's paths nothing resolves the principal
+        mockMvc.perform(get("/public/whoami"))
+            .andExpect(status().isUnauthorized());
+    }
+
+    @RestController
+    static class WhoAmIController {
+
+        @GetMapping({"/api/whoami", "/public/whoami"})
+        String whoAmI(@CurrentUser ClerkClaims principal) {
+            return principal.getUserId();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.gptuessr.ai_game.config;
+
+import com.gptuessr.ai_game.entity.Game;
+import com.gptuessr.ai_game.entity.Lobby;
+import com.gptuessr.ai_game.entity.User;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Replays index listings and explain output through a mocked MongoTemplate. It checks which
+ * indexes are replaced and how plans are read, not the plans a real MongoDB server chooses.
+ */
+class MongoIndexConfigTest {
+
+    private final Map<Class<?>, String> collections = Map.of(Lobby.class, "lobbies", User.class, "users", Game.class, "games");
+
+    private MongoTemplate mongoTemplate;
+
+    private MongoIndexConfig config;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        collections.forEach((entityClass, name) -> when(mongoTemplate.getCollectionName(entityClass)).thenReturn(name));
+        MongoDatabase database = mock(MongoDatabase.class);
+        when(database.runCommand(any())).thenReturn(explain(new Document("stage", "FETCH")
+            .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "any"))));
+        when(mongoTemplate.getDb()).thenReturn(database);
+
+        config = new MongoIndexConfig();
+        ReflectionTestUtils.setField(config, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(config, "closedLobbyTtlHours", 24L);
+    }
+
+    @Test
+    void replacesIndexesNamedByAutomaticIndexCreation() {
+        IndexOperations lobbyIndexes = indexOps(Lobby.class,
+            info("_id_", "_id", false, false),
+            info("lobbyCode", "lobbyCode", true, false));
+        IndexOperations userIndexes = indexOps(User.class,
+            info("username", "username", true, false),
+            info("clerkUserId_unique", "clerkUserId", true, true));
+        indexOps(Game.class);
+
+        config.ensureIndexes();
+
+        verify(lobbyIndexes).dropIndex("lobbyCode");
+        verify(lobbyIndexes, never()).dropIndex("_id_");
+        verify(userIndexes).dropIndex("username");
+        verify(userIndexes, never()).dropIndex("clerkUserId_unique");
+    }
+
+    @Test
+    void replacesIndexWithChangedOptions() {
+        indexOps(Lobby.class);
+        IndexOperations userIndexes = indexOps(User.class,
+            info("username_unique", "username", false, false));
+        indexOps(Game.class);
+
+        config.ensureIndexes();
+
+        verify(userIndexes).dropIndex("username_unique");
+    }
+
+    @Test
+    void replacesIndexWithAnotherPartialFilter() {
+        IndexOperations lobbyIndexes = indexOps(Lobby.class,
+            ttlInfo(new Document("status", "FINISHED")));
+        indexOps(User.class);
+        indexOps(Game.class);
+
+        config.ensureIndexes();
+
+        verify(lobbyIndexes).dropIndex("closedAt_ttl");
+    }
+
+    @Test
+    void replacesIndexThatLacksThePartialFilter() {
+        IndexOperations lobbyIndexes = indexOps(Lobby.class, ttlInfo(null));
+        indexOps(User.class);
+        indexOps(Game.class);
+
+        config.ensureIndexes();
+
+        verify(lobbyIndexes).dropIndex("closedAt_ttl");
+    }
+
+    @Test
+    void keepsIndexWithTheSamePartialFilter() {
+        IndexOperations lobbyIndexes = indexOps(Lobby.class,
+            ttlInfo(new Document("status", Lobby.GameStatus.CLOSED.name())));
+        indexOps(User.class);
+        indexOps(Game.class);
+
+        config.ensureIndexes();
+
+        verify(lobbyIndexes, never()).dropIndex("closedAt_ttl");
+    }
+
+    @Test
+    void replacesIndexThatIsNotSparse() {
+        indexOps(Lobby.class);
+        IndexOperations userIndexes = indexOps(User.class,
+            info("username_unique", "username", true, false));
+        indexOps(Game.class);
+
+        config.ensureIndexes();
+
+        verify(userIndexes).dropIndex("username_unique");
+    }
+
+    @Test
+    void readsIndexScansOfClassicPlans() {
+        Document plan = new Document("stage", "FETCH")
+            .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "lobbyCode_unique"));
+
+        assertThat(MongoIndexConfig.planStages(explain(plan)))
+            .containsExactly("FETCH", "IXSCAN", "IXSCAN:lobbyCode_unique");
+    }
+
+    @Test
+    void readsIndexScansOfSlotBasedPlans() {
+        Document plan = new Document("queryPlan", new Document("stage", "FETCH")
+            .append("inputStage", new Document("stage", "IXSCAN").append("indexName", "playerIds")))
+            .append("slotBasedPlan", new Document("stages", "[1] nlj"));
+
+        assertThat(MongoIndexConfig.planStages(explain(plan))).contains("IXSCAN:playerIds");
+    }
+
+    @Test
+    void readsEveryBranchOfOrPlans() {
+        Document plan = new Document("stage", "SUBPLAN").append("inputStage", new Document("stage", "OR")
+            .append("inputStages", List.of(
+                new Document("stage", "IXSCAN").append("indexName", "status_createdAt"),
+                new Document("stage", "COLLSCAN"))));
+
+        assertThat(MongoIndexConfig.planStages(explain(plan)))
+            .contains("IXSCAN:status_createdAt", "COLLSCAN");
+    }
+
+    @Test
+    void returnsNoStagesWithoutQueryPlanner() {
+        assertThat(MongoIndexConfig.planStages(new Document("ok", 1))).isEmpty();
+    }
+
+    private IndexOperations indexOps(Class<?> entityClass, IndexInfo... existing) {
+        IndexOperations indexOps = mock(IndexOperations.class);
+        List<IndexInfo> indexes = new ArrayList<>(List.of(existing));
+        when(indexOps.getIndexInfo()).thenAnswer(invocation -> new ArrayList<>(indexes));
+        when(indexOps.ensureIndex(any())).thenAnswer(invocation -> {
+            Document options = invocation.getArgument(0, Index.class).getIndexOptions();
+            indexes.add(IndexInfo.indexInfoOf(new Document("name", options.getString("name"))
+                .append("key", new Document("x", 1))));
+            return options.getString("name");
+        });
+        when(mongoTemplate.indexOps(entityClass)).thenReturn(indexOps);
+        return indexOps;
+    }
+
+    private static IndexInfo info(String name, String key, boolean unique, boolean sparse) {
+        return IndexInfo.indexInfoOf(new Document("name", name)
+            .append("key", new Document(key, 1))
+            .append("unique", unique)
+            .append("sparse", sparse));
+    }
+
+    private static IndexInfo ttlInfo(Document partialFilter) {
+        Document index = new Document("name", "closedAt_ttl")
+            .append("key", new Document("closedAt", 1))
+            .append("expireAfterSeconds", 24L * 3600);
+        if (partialFilter != null) {
+            index.append("partialFilterExpression", partialFilter);
+        }
+        return IndexInfo.indexInfoOf(index);
+    }
+
+    private static Document explain(Document winningPlan) {
+        return new Document("queryPlanner", new Document("winningPlan", winningPlan));
+    }
+}
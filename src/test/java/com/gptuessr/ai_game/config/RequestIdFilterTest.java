@@ -0,0 +1,66 @@
+package com.gptuessr.ai_game.config;
+
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestIdFilterTest {
+
+    private final RequestIdFilter filter = new RequestIdFilter();
+
+    @Test
+    void reusesWellFormedRequestId() throws Exception {
+        String requestId = "3f2a9c1e-7b4d-4e8a-9f01-2c3d4e5f6a7b";
+
+        assertThat(filter(requestId)).isEqualTo(requestId);
+    }
+
+    @Test
+    void replacesRequestIdWithForeignCharacters() throws Exception {
+        String forged = "abc\n2026-01-01 00:00:00 [main] ERROR forged";
+
+        String used = filter(forged);
+
+        assertThat(used).isNotEqualTo(forged).matches("[0-9a-f]{1,16}");
+    }
+
+    @Test
+    void replacesMissingAndOverlongRequestIds() throws Exception {
+        assertThat(filter(null)).matches("[0-9a-f]{1,16}");
+        assertThat(filter("a".repeat(65))).matches("[0-9a-f]{1,16}");
+        assertThat(filter("a".repeat(64))).isEqualTo("a".repeat(64));
+    }
+
+    @Test
+    void acceptsOnlyLettersDigitsAndDashes() {
+        assertThat(RequestIdFilter.isValidRequestId("Req-42")).isTrue();
+        assertThat(RequestIdFilter.isValidRequestId("")).isFalse();
+        assertThat(RequestIdFilter.isValidRequestId("req_42")).isFalse();
+        assertThat(RequestIdFilter.isValidRequestId("req 42")).isFalse();
+        assertThat(RequestIdFilter.isValidRequestId("reqé42")).isFalse();
+    }
+
+    /**
+     * Run a request through the filter
+     * @return The request id seen in the MDC while handling the request
+     */
+    private String filter(String requestId) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (requestId != null) {
+            request.addHeader(RequestIdFilter.REQUEST_ID_HEADER, requestId);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        AtomicReference<String> logged = new AtomicReference<>();
+
+        filter.doFilter(request, response, (req, res) -> logged.set(MDC.get(RequestIdFilter.MDC_KEY)));
+
+        assertThat(response.getHeader(RequestIdFilter.REQUEST_ID_HEADER)).isEqualTo(logged.get());
+        assertThat(MDC.get(RequestIdFilter.MDC_KEY)).isNull();
+        return logged.get();
+    }
+}
@@ -0,0 +1,54 @@
+package com.gptuessr.ai_game.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TaskExecutorConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+        .withConfiguration(AutoConfigurations.of(TaskExecutionAutoConfiguration.class))
+        .withUserConfiguration(BrokerExecutors.class, TaskExecutorConfig.class);
+
+    @Test
+    void runsTasksOnVirtualThreadsWhenEnabled() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true").run(context -> {
+            AsyncTaskExecutor executor = context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+                AsyncTaskExecutor.class);
+
+            assertThat(executor.submit(() -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS)).isTrue();
+        });
+    }
+
+    @Test
+    void usesPlatformThreadPoolWhenDisabled() {
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=false").run(context -> {
+            AsyncTaskExecutor executor = context.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+                AsyncTaskExecutor.class);
+
+            assertThat(executor).isInstanceOf(ThreadPoolTaskExecutor.class);
+            assertThat(executor.submit(() -> Thread.currentThread().isVirtual()).get(5, TimeUnit.SECONDS)).isFalse();
+        });
+    }
+
+    /**
+     * Stands in for the channel executors of the STOMP broker configuration
+     */
+    @Configuration
+    static class BrokerExecutors {
+
+        @Bean
+        ThreadPoolTaskExecutor clientInboundChannelExecutor() {
+            return new ThreadPoolTaskExecutor();
+        }
+    }
+}
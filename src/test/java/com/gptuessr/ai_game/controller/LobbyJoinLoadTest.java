@@ -0,0 +1,221 @@
+package com.gptuessr.ai_game.controller;
+
+import com.gptuessr.ai_game.config.ClerkConfig;
+import com.gptuessr.ai_game.dto.PlayerProfileDTO;
+import com.gptuessr.ai_game.entity.Lobby;
+import com.gptuessr.ai_game.service.GameService;
+import com.gptuessr.ai_game.service.LobbyService;
+import com.gptuessr.ai_game.service.UserService;
+import com.gptuessr.ai_game.util.ClerkAuthUtils;
+import com.gptuessr.ai_game.util.ClerkClaims;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.embedded.EmbeddedWebServerFactoryCustomizerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.ServletWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Sends concurrent /api/lobbies/join requests to an embedded Tomcat, once with request handling
+ * on platform threads and once on virtual threads, and prints throughput, peak heap and peak
+ * platform thread count of each run. The lobby update stands in for the MongoDB round trip by
+ * sleeping, so the runs show how many joins can wait on the database at the same time.
+ * Client and server share the JVM, so the numbers compare the two modes rather than predict
+ * production throughput. Run with: gradle loadTest
+ */
+@Tag("load")
+class LobbyJoinLoadTest {
+
+    private static final int CONCURRENT_CLIENTS = 1000;
+
+    private static final int REQUESTS_PER_CLIENT = 3;
+
+    // A MongoDB under load; long enough that waiting requests, not CPU, limit the platform run
+    private static final Duration DATABASE_LATENCY = Duration.ofMillis(500);
+
+    @Test
+    void virtualThreadsServeMoreConcurrentJoins() throws Exception {
+        // The first run warms up the JIT for both
+        run(false);
+        Result platform = run(false);
+        Result virtual = run(true);
+
+        System.out.printf("%-9s %8s %10s %12s %10s%n", "threads", "joins", "joins/s", "peak heap MB", "peak thr");
+        for (Result result : List.of(platform, virtual)) {
+            System.out.printf("%-9s %8d %10.0f %12d %10d%n", result.mode, result.requests,
+                result.throughput(), result.peakHeapBytes / (1024 * 1024), result.peakThreads);
+        }
+
+        assertThat(platform.failures).isZero();
+        assertThat(virtual.failures).isZero();
+        // Tomcat's 200 platform threads cap the joins waiting on the database at once
+        assertThat(virtual.throughput()).isGreaterThan(platform.throughput());
+    }
+
+    private Result run(boolean virtualThreads) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(LoadTestApplication.class)
+            .web(WebApplicationType.SERVLET)
+            // Registered as singletons so Spring does not inject into the mocks' inherited fields
+            .initializers(initializing -> {
+                ConfigurableListableBeanFactory beanFactory = initializing.getBeanFactory();
+                beanFactory.registerSingleton("clerkAuthUtils", clerkAuthUtils());
+                beanFactory.registerSingleton("lobbyService", lobbyService());
+                beanFactory.registerSingleton("userService", userService());
+                beanFactory.registerSingleton("gameService", mock(GameService.class));
+            })
+            // Arguments rather than default properties, which application.properties would override
+            .run("--server.port=0",
+                "--spring.threads.virtual.enabled=" + virtualThreads,
+                "--clerk.api.key=test",
+                "--clerk.frontend.api=https://clerk.example.com",
+                "--clerk.allowed.origins=http://localhost:3000",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN");
+        try {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            return load(virtualThreads ? "virtual" : "platform", URI.create("http://localhost:" + port + "/api/lobbies/join"));
+        } finally {
+            context.close();
+        }
+    }
+
+    private Result load(String mode, URI uri) throws Exception {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        System.gc();
+        threads.resetPeakThreadCount();
+
+        AtomicLong peakHeap = new AtomicLong();
+        Thread sampler = Thread.ofPlatform().daemon().start(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(10);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+
+        AtomicInteger failures = new AtomicInteger();
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        Instant start = Instant.now();
+        try (ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> running = new ArrayList<>();
+            for (int c = 0; c < CONCURRENT_CLIENTS; c++) {
+                String userId = "user_" + c;
+                running.add(clients.submit(() -> {
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                            .header("Authorization", "Bearer " + userId)
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString("{\"lobbyCode\":\"ABC123\"}"))
+                            .build();
+                        if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : running) {
+                future.get();
+            }
+        }
+        Duration elapsed = Duration.between(start, Instant.now());
+        sampler.interrupt();
+        client.close();
+
+        return new Result(mode, CONCURRENT_CLIENTS * REQUESTS_PER_CLIENT, elapsed, peakHeap.get(),
+            threads.getPeakThreadCount(), failures.get());
+    }
+
+    private static ClerkAuthUtils clerkAuthUtils() {
+        ClerkAuthUtils authUtils = mock(ClerkAuthUtils.class);
+        // The token is the user id
+        when(authUtils.verifyToken(anyString())).thenAnswer(invocation ->
+            new ClerkClaims(invocation.getArgument(0), "sess", Instant.now().plusSeconds(3600), null, null));
+        return authUtils;
+    }
+
+    private static LobbyService lobbyService() {
+        LobbyService lobbyService = mock(LobbyService.class);
+        when(lobbyService.joinLobby(anyString(), anyString())).thenAnswer(invocation -> {
+            Thread.sleep(DATABASE_LATENCY);
+            Lobby lobby = new Lobby("host", invocation.getArgument(0), 3, 30);
+            lobby.setId("lobby-1");
+            lobby.setPlayerIds(new ArrayList<>(List.of("host", invocation.getArgument(1))));
+            lobby.setStatus(Lobby.GameStatus.WAITING);
+            return lobby;
+        });
+        return lobbyService;
+    }
+
+    private static UserService userService() {
+        UserService userService = mock(UserService.class);
+        // Profiles come from the in-memory cache
+        when(userService.findPlayerProfiles(any())).thenAnswer(invocation -> Map.of(
+            "host", new PlayerProfileDTO("id-host", "host", "host", "Host", null)));
+        return userService;
+    }
+
+    private record Result(String mode, int requests, Duration elapsed, long peakHeapBytes, int peakThreads, int failures) {
+
+        double throughput() {
+            return requests * 1000.0 / elapsed.toMillis();
+        }
+    }
+
+    /**
+     * The lobby controller and authentication interceptor on an embedded Tomcat; the services
+     * are stubs registered by the test
+     */
+    @Configuration
+    @ImportAutoConfiguration({
+        ServletWebServerFactoryAutoConfiguration.class,
+        EmbeddedWebServerFactoryCustomizerAutoConfiguration.class,
+        DispatcherServletAutoConfiguration.class,
+        WebMvcAutoConfiguration.class,
+        HttpMessageConvertersAutoConfiguration.class,
+        JacksonAutoConfiguration.class,
+        ValidationAutoConfiguration.class
+    })
+    @Import({LobbyController.class, ClerkConfig.class})
+    static class LoadTestApplication {
+    }
+}
@@ -0,0 +1,83 @@
+package com.gptuessr.ai_game.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gptuessr.ai_game.entity.Game;
+import com.gptuessr.ai_game.entity.Guess;
+import com.gptuessr.ai_game.entity.Round;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameStateDTOTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void serializesScoresByPlayerAndRankings() {
+        JsonNode json = objectMapper.valueToTree(GameStateDTO.fromGame(playedGame(), "ABC123"));
+
+        assertThat(json.get("playerScores").get("guest1").asInt()).isEqualTo(30);
+        assertThat(json.get("playerScores").get("guest2").asInt()).isEqualTo(80);
+        assertThat(json.get("previousRoundScores").get("guest2").asInt()).isEqualTo(80);
+        assertThat(json.get("previousPrompt").asText()).isEqualTo("a dog on a beach");
+        assertThat(json.get("previousBestGuesserId").asText()).isEqualTo("guest2");
+
+        JsonNode leader = json.get("leaderboard").get(0);
+        assertThat(leader.get("playerId").asText()).isEqualTo("guest2");
+        assertThat(leader.get("score").asInt()).isEqualTo(80);
+        assertThat(json.get("leaderboard")).hasSize(3);
+        assertThat(json.get("previousRoundRanking").get(1).get("playerId").asText()).isEqualTo("guest1");
+    }
+
+    @Test
+    void withholdsThePromptOfTheOpenRound() {
+        Game game = playedGame();
+        Round open = new Round(2, "guest1", 30);
+        open.setPromptText("a secret");
+        open.setStatus(Round.RoundStatus.WAITING_FOR_GUESSES);
+        open.addPlayerGuess("host", new Guess("host", "guess", 500));
+        game.addRound(open);
+
+        GameStateDTO state = GameStateDTO.fromGame(game, "ABC123");
+
+        assertThat(state.getRoundStatus()).isEqualTo("WAITING_FOR_GUESSES");
+        assertThat(state.getGuessedPlayerIds()).containsExactly("host");
+        assertThat(state.getPreviousPrompt()).isEqualTo("a dog on a beach");
+        assertThat(objectMapper.valueToTree(state).toString()).doesNotContain("a secret");
+    }
+
+    @Test
+    void snapshotKeepsItsScoresWhileTheGameGoesOn() {
+        Game game = playedGame();
+        GameStateDTO state = GameStateDTO.fromGame(game, "ABC123");
+
+        game.updatePlayerScore("guest1", 100);
+
+        assertThat(state.getPlayerScores()).containsEntry("guest1", 30);
+        assertThat(state.getLeaderboard().get(0).playerId()).isEqualTo("guest2");
+    }
+
+    private static Game playedGame() {
+        Game game = new Game("lobby-1", new ArrayList<>(List.of("host", "guest1", "guest2")), 3);
+        game.setId("game-1");
+        Round round = new Round(1, "host", 30);
+        round.setPromptText("a dog on a beach");
+        round.addPlayerGuess("guest1", scored("guest1", 30));
+        round.addPlayerGuess("guest2", scored("guest2", 80));
+        round.setStatus(Round.RoundStatus.COMPLETED);
+        game.addRound(round);
+        game.applyRoundScores(round);
+        game.incrementCurrentRound();
+        return game;
+    }
+
+    private static Guess scored(String playerId, int score) {
+        Guess guess = new Guess(playerId, "guess", 1000);
+        guess.setScore(score);
+        return guess;
+    }
+}
@@ -0,0 +1,82 @@
+package com.gptuessr.ai_game.entity;
+
+import com.gptuessr.ai_game.util.PlayerScore;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameTest {
+
+    @Test
+    void newGameCountsEachScoreOnce() {
+        Game game = new Game("lobby-1", new ArrayList<>(List.of("host", "guest1", "guest2")), 3);
+
+        game.updatePlayerScore("guest1", 40);
+        game.updatePlayerScore("guest2", 70);
+        game.updatePlayerScore("guest1", 50);
+
+        assertThat(game.getPlayerScores()).containsEntry("guest1", 90).containsEntry("guest2", 70);
+        assertThat(game.getFinalRanking()).containsExactly(
+            new PlayerScore("guest1", 90), new PlayerScore("guest2", 70), new PlayerScore("host", 0));
+    }
+
+    @Test
+    void reloadedGameCountsTheFirstScoreOnce() {
+        // MongoDB sets the fields directly and leaves the transient scoreboard unset
+        Game game = new Game();
+        ReflectionTestUtils.setField(game, "playerIds", new ArrayList<>(List.of("host", "guest1")));
+        ReflectionTestUtils.setField(game, "playerScores", new HashMap<>(Map.of("host", 30, "guest1", 20)));
+
+        game.updatePlayerScore("guest1", 25);
+
+        assertThat(game.getPlayerScores()).containsEntry("guest1", 45);
+        assertThat(game.getFinalRanking()).containsExactly(
+            new PlayerScore("guest1", 45), new PlayerScore("host", 30));
+    }
+
+    @Test
+    void setPlayerScoresReplacesTheRanking() {
+        Game game = new Game("lobby-1", new ArrayList<>(List.of("host", "guest1")), 3);
+        game.updatePlayerScore("host", 10);
+        assertThat(game.getFinalRanking().get(0).playerId()).isEqualTo("host");
+
+        game.setPlayerScores(new HashMap<>(Map.of("host", 5, "guest1", 60)));
+        game.updatePlayerScore("host", 10);
+
+        assertThat(game.getPlayerScores()).containsEntry("host", 15).containsEntry("guest1", 60);
+        assertThat(game.getFinalRanking()).containsExactly(
+            new PlayerScore("guest1", 60), new PlayerScore("host", 15));
+    }
+
+    @Test
+    void appliesRoundScoresAndNamesTheWinner() {
+        Game game = new Game("lobby-1", new ArrayList<>(List.of("host", "guest1", "guest2")), 1);
+        Round round = new Round(1, "host", 30);
+        round.addPlayerGuess("guest1", scored("guest1", 30));
+        round.addPlayerGuess("guest2", scored("guest2", 80));
+        round.setStatus(Round.RoundStatus.COMPLETED);
+
+        game.applyRoundScores(round);
+        assertThat(game.getWinner()).isNull();
+        game.setStatus(Game.GameStatus.FINISHED);
+
+        assertThat(game.getWinner()).isEqualTo("guest2");
+        assertThat(round.getBestGuesserId()).isEqualTo("guest2");
+        assertThat(round.getRoundRanking()).containsExactly(
+            new PlayerScore("guest2", 80), new PlayerScore("guest1", 30));
+        // Unchanged scores hand out the same ranking instance
+        assertThat(game.getFinalRanking()).isSameAs(game.getFinalRanking());
+    }
+
+    private static Guess scored(String playerId, int score) {
+        Guess guess = new Guess(playerId, "guess", 1000);
+        guess.setScore(score);
+        return guess;
+    }
+}
@@ -0,0 +1,89 @@
+package com.gptuessr.ai_game.repository;
+
+import com.gptuessr.ai_game.entity.Lobby;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Checks the query and update documents sent to a mocked MongoTemplate
+ */
+class LobbyRepositoryImplTest {
+
+    private MongoTemplate mongoTemplate;
+
+    private LobbyRepositoryImpl repository;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        repository = new LobbyRepositoryImpl();
+        ReflectionTestUtils.setField(repository, "mongoTemplate", mongoTemplate);
+    }
+
+    @Test
+    void closesOnlyStaleWaitingAndRunningLobbies() {
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Lobby.class)))
+            .thenReturn(UpdateResult.acknowledged(2, 2L, null));
+        LocalDateTime waitingCutoff = LocalDateTime.of(2024, 5, 1, 10, 0);
+        LocalDateTime inProgressCutoff = LocalDateTime.of(2024, 5, 2, 4, 0);
+        LocalDateTime now = LocalDateTime.of(2024, 5, 2, 10, 0);
+
+        long closed = repository.closeStaleLobbies(waitingCutoff, inProgressCutoff, now);
+
+        assertThat(closed).isEqualTo(2);
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(query.capture(), update.capture(), eq(Lobby.class));
+
+        // Every branch pins an open status, so CLOSED and FINISHED documents never match
+        List<Document> branches = query.getValue().getQueryObject().getList("$or", Document.class);
+        assertThat(branches).containsExactly(
+            new Document("status", Lobby.GameStatus.WAITING).append("createdAt", new Document("$lt", waitingCutoff)),
+            new Document("status", Lobby.GameStatus.IN_PROGRESS).append("startedAt", new Document("$lt", inProgressCutoff)));
+        assertThat(query.getValue().getQueryObject().keySet()).containsExactly("$or");
+
+        Document updateObject = update.getValue().getUpdateObject();
+        assertThat(updateObject.get("$set", Document.class))
+            .containsEntry("status", Lobby.GameStatus.CLOSED)
+            .containsEntry("closedAt", now);
+        assertThat(updateObject.get("$inc", Document.class)).containsEntry("version", 1);
+    }
+
+    @Test
+    void countsOnlyLobbiesThatAreNotClosed() {
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq(Lobby.class), eq(Document.class)))
+            .thenReturn(new AggregationResults<>(List.of(
+                new Document("_id", "WAITING").append("count", 4),
+                new Document("_id", "IN_PROGRESS").append("count", 2L)), new Document()));
+
+        Map<Lobby.GameStatus, Long> counts = repository.countLobbiesByStatus();
+
+        assertThat(counts).containsExactlyInAnyOrderEntriesOf(Map.of(
+            Lobby.GameStatus.WAITING, 4L, Lobby.GameStatus.IN_PROGRESS, 2L));
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq(Lobby.class), eq(Document.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(pipeline.get(0)).isEqualTo(new Document("$match",
+            new Document("status", new Document("$ne", Lobby.GameStatus.CLOSED))));
+    }
+}
@@ -0,0 +1,173 @@
+package com.gptuessr.ai_game.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gptuessr.ai_game.util.ClerkWebhookEventParser;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClerkWebhookProcessorTest {
+
+    private UserService userService;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ClerkWebhookProcessor processor;
+
+    // Released to let the worker continue past the blocking event
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        ClerkWebhookEventParser parser = new ClerkWebhookEventParser();
+        ReflectionTestUtils.setField(parser, "objectMapper", new ObjectMapper());
+
+        processor = new ClerkWebhookProcessor();
+        ReflectionTestUtils.setField(processor, "userService", userService);
+        ReflectionTestUtils.setField(processor, "eventParser", parser);
+        ReflectionTestUtils.setField(processor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(processor, "taskExecutorBuilder", new SimpleAsyncTaskExecutorBuilder());
+        ReflectionTestUtils.setField(processor, "queueCapacity", 10);
+        ReflectionTestUtils.setField(processor, "batchSize", 100);
+        ReflectionTestUtils.setField(processor, "dedupeTtlHours", 24L);
+        ReflectionTestUtils.setField(processor, "dedupeMaxSize", 1000L);
+        ReflectionTestUtils.setField(processor, "shutdownTimeoutMs", 5000L);
+        processor.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        processor.stop();
+    }
+
+    @Test
+    void redeliveredEventIsAppliedOnce() throws InterruptedException {
+        String payload = userUpdated("user_1", "alice");
+
+        assertThat(processor.enqueue("msg_1", payload)).isEqualTo(ClerkWebhookProcessor.EnqueueResult.ACCEPTED);
+        assertThat(processor.enqueue("msg_1", payload)).isEqualTo(ClerkWebhookProcessor.EnqueueResult.DUPLICATE);
+        processor.stop();
+
+        verify(userService, times(1)).updateUserInfo(eq("user_1"), anyMap());
+    }
+
+    @Test
+    void refusedEventIsAcceptedOnRetry() throws InterruptedException {
+        ReflectionTestUtils.setField(processor, "queueCapacity", 1);
+        processor.stop();
+        processor.start();
+        blockWorker();
+
+        assertThat(processor.enqueue("msg_1", userUpdated("user_1", "alice")))
+            .isEqualTo(ClerkWebhookProcessor.EnqueueResult.ACCEPTED);
+        assertThat(processor.enqueue("msg_2", userUpdated("user_2", "bob")))
+            .isEqualTo(ClerkWebhookProcessor.EnqueueResult.QUEUE_FULL);
+
+        // Once the worker has taken the queued event there is room for Clerk's retry
+        release.countDown();
+        verify(userService, timeout(5000)).updateUserInfo(eq("user_1"), anyMap());
+        assertThat(processor.enqueue("msg_2", userUpdated("user_2", "bob")))
+            .isEqualTo(ClerkWebhookProcessor.EnqueueResult.ACCEPTED);
+    }
+
+    @Test
+    void repeatedUpdatesInOneBatchCollapseIntoTheLatest() throws InterruptedException {
+        blockWorker();
+        processor.enqueue("msg_1", userUpdated("user_1", "alice"));
+        processor.enqueue("msg_2", userUpdated("user_2", "bob"));
+        processor.enqueue("msg_3", userUpdated("user_1", "alice2"));
+        processor.enqueue("msg_4", userUpdated("user_1", "alice3"));
+
+        release.countDown();
+        processor.stop();
+
+        var order = inOrder(userService);
+        order.verify(userService).updateUserInfo("user_1", Map.of("username", "alice3"));
+        order.verify(userService).updateUserInfo("user_2", Map.of("username", "bob"));
+        verify(userService, times(2)).updateUserInfo(any(), anyMap());
+        assertThat(meterRegistry.counter("clerk.webhook.coalesced").count()).isEqualTo(2.0);
+    }
+
+    @Test
+    void updatesSeparatedByAnotherEventAreKept() throws InterruptedException {
+        blockWorker();
+        processor.enqueue("msg_1", userUpdated("user_1", "alice"));
+        processor.enqueue("msg_2", sessionCreated("sess_1", "user_1"));
+        processor.enqueue("msg_3", userUpdated("user_1", "alice2"));
+
+        release.countDown();
+        processor.stop();
+
+        var order = inOrder(userService);
+        order.verify(userService).updateUserInfo("user_1", Map.of("username", "alice"));
+        order.verify(userService).updateUserOnLogin("user_1", "sess_1");
+        order.verify(userService).updateUserInfo("user_1", Map.of("username", "alice2"));
+    }
+
+    @Test
+    void handlerFailureIsRecordedAsError() throws InterruptedException {
+        when(userService.updateUserInfo(eq("user_1"), anyMap())).thenThrow(new IllegalStateException("database down"));
+
+        processor.enqueue("msg_1", userUpdated("user_1", "alice"));
+        processor.enqueue("msg_2", userUpdated("user_2", "bob"));
+        processor.stop();
+
+        assertThat(meterRegistry.timer("clerk.webhook.apply", "event", "user.updated", "outcome", "error").count())
+            .isEqualTo(1);
+        assertThat(meterRegistry.timer("clerk.webhook.apply", "event", "user.updated", "outcome", "success").count())
+            .isEqualTo(1);
+    }
+
+    @Test
+    void deletedUserLosesTheCachedProfile() throws InterruptedException {
+        processor.enqueue("msg_1", "{\"type\":\"user.deleted\",\"data\":{\"id\":\"user_1\",\"deleted\":true}}");
+        processor.stop();
+
+        verify(userService).invalidatePlayerProfile("user_1");
+    }
+
+    /**
+     * Enqueue an event whose handler holds the worker until the test releases it,
+     * so that the events enqueued meanwhile are drained as one batch
+     */
+    private void blockWorker() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            blocked.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(userService).updateUserLogout("blocker");
+        processor.enqueue("msg_block", "{\"type\":\"session.ended\",\"data\":{\"id\":\"sess_0\",\"user_id\":\"blocker\"}}");
+        assertThat(blocked.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private static String userUpdated(String userId, String username) {
+        return "{\"type\":\"user.updated\",\"data\":{\"id\":\"" + userId + "\",\"username\":\"" + username + "\"}}";
+    }
+
+    private static String sessionCreated(String sessionId, String userId) {
+        return "{\"type\":\"session.created\",\"data\":{\"id\":\"" + sessionId + "\",\"user_id\":\"" + userId + "\"}}";
+    }
+}
@@ -0,0 +1,123 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Guess;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmbeddingGuessScorerTest {
+
+    // Related words point in similar directions: animals, seaside, music
+    private static final String VECTORS = """
+        dog 0.9 0.1 0.0 0.0
+        puppy 0.8 0.2 0.1 0.0
+        cat 0.7 0.0 0.0 0.3
+        beach 0.0 0.9 0.1 0.0
+        seaside 0.1 0.8 0.2 0.0
+        ocean 0.0 0.7 0.3 0.1
+        piano 0.0 0.0 0.1 0.9
+        violin 0.0 0.1 0.0 0.8
+        """;
+
+    @TempDir
+    Path directory;
+
+    private LexicalGuessScorer lexicalScorer;
+
+    @BeforeEach
+    void setUp() {
+        lexicalScorer = new LexicalGuessScorer();
+        ReflectionTestUtils.setField(lexicalScorer, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(lexicalScorer, "synonymsLocation", "classpath:scoring/synonyms.txt");
+        ReflectionTestUtils.setField(lexicalScorer, "maxPoints", 100);
+        ReflectionTestUtils.setField(lexicalScorer, "timeBonusPoints", 20);
+        ReflectionTestUtils.setField(lexicalScorer, "timeBonusMinAccuracy", 0.3);
+        ReflectionTestUtils.setField(lexicalScorer, "wordWeight", 0.7);
+        ReflectionTestUtils.setField(lexicalScorer, "parallelThreshold", 256);
+        lexicalScorer.init();
+    }
+
+    @Test
+    void paraphraseScoresAboveUnrelatedGuess() throws IOException {
+        EmbeddingGuessScorer scorer = scorer(Files.writeString(directory.resolve("vectors.txt"), VECTORS).toString());
+
+        Guess paraphrase = new Guess("guest1", "puppy at the seaside", 5_000);
+        Guess unrelated = new Guess("guest2", "piano and violin", 5_000);
+        scorer.scoreRound(scorer.prepare("a dog on a beach"), List.of(paraphrase, unrelated), 30_000);
+
+        assertThat(paraphrase.getAccuracy()).isGreaterThan(0.8);
+        assertThat(paraphrase.getScore()).isGreaterThan(unrelated.getScore());
+        assertThat(unrelated.getAccuracy()).isLessThan(0.1);
+    }
+
+    @Test
+    void relatedWordOutsideTheSynonymsEarnsPoints() throws IOException {
+        EmbeddingGuessScorer scorer = scorer(Files.writeString(directory.resolve("vectors.txt"), VECTORS).toString());
+
+        Guess semantic = new Guess("guest1", "ocean", 5_000);
+        Guess lexical = new Guess("guest1", "ocean", 5_000);
+        scorer.scoreRound(scorer.prepare("beach"), List.of(semantic), 30_000);
+        lexicalScorer.scoreRound(lexicalScorer.prepare("beach"), List.of(lexical), 30_000);
+
+        assertThat(semantic.getAccuracy()).isGreaterThan(lexical.getAccuracy());
+    }
+
+    @Test
+    void scoresLexicallyWithoutVectors() {
+        EmbeddingGuessScorer scorer = scorer("");
+
+        assertScoresLexically(scorer, "a dog on a beach", "puppy at the seaside", "piano and violin");
+    }
+
+    @Test
+    void scoresLexicallyWhenThePromptHasNoKnownWords() throws IOException {
+        EmbeddingGuessScorer scorer = scorer(Files.writeString(directory.resolve("vectors.txt"), VECTORS).toString());
+
+        assertScoresLexically(scorer, "a zebra in the savanna", "zebras on a savanna", "piano and violin");
+    }
+
+    @Test
+    void guessWithoutKnownWordsKeepsItsLexicalAccuracy() throws IOException {
+        EmbeddingGuessScorer scorer = scorer(Files.writeString(directory.resolve("vectors.txt"), VECTORS).toString());
+
+        Guess embedded = new Guess("guest1", "sandy dunes", 5_000);
+        Guess lexical = new Guess("guest1", "sandy dunes", 5_000);
+        scorer.scoreRound(scorer.prepare("a dog on a sandy beach"), List.of(embedded), 30_000);
+        lexicalScorer.scoreRound(lexicalScorer.prepare("a dog on a sandy beach"), List.of(lexical), 30_000);
+
+        assertThat(embedded.getAccuracy()).isPositive().isEqualTo(lexical.getAccuracy());
+        assertThat(embedded.getScore()).isEqualTo(lexical.getScore());
+    }
+
+    private void assertScoresLexically(EmbeddingGuessScorer scorer, String prompt, String... guesses) {
+        for (String text : guesses) {
+            Guess embedded = new Guess("guest1", text, 5_000);
+            Guess lexical = new Guess("guest1", text, 5_000);
+            scorer.scoreRound(scorer.prepare(prompt), List.of(embedded), 30_000);
+            lexicalScorer.scoreRound(lexicalScorer.prepare(prompt), List.of(lexical), 30_000);
+
+            assertThat(embedded.getAccuracy()).as(text).isEqualTo(lexical.getAccuracy());
+            assertThat(embedded.getScore()).as(text).isEqualTo(lexical.getScore());
+        }
+    }
+
+    private EmbeddingGuessScorer scorer(String vectorsPath) {
+        EmbeddingGuessScorer scorer = new EmbeddingGuessScorer();
+        ReflectionTestUtils.setField(scorer, "lexicalScorer", lexicalScorer);
+        ReflectionTestUtils.setField(scorer, "vectorsPath", vectorsPath);
+        ReflectionTestUtils.setField(scorer, "maxWords", 1000);
+        ReflectionTestUtils.setField(scorer, "semanticWeight", 0.6);
+        ReflectionTestUtils.setField(scorer, "similarityFloor", 0.3);
+        scorer.init();
+        return scorer;
+    }
+}
@@ -0,0 +1,205 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Game;
+import com.gptuessr.ai_game.entity.Guess;
+import com.gptuessr.ai_game.entity.Lobby;
+import com.gptuessr.ai_game.entity.Round;
+import com.gptuessr.ai_game.repository.GameRepository;
+import com.gptuessr.ai_game.ws.GameEventPublisher;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GameServiceTest {
+
+    private GameRepository gameRepository;
+
+    private LobbyService lobbyService;
+
+    private RoundDeadlineScheduler roundDeadlineScheduler;
+
+    private GuessScorer guessScorer;
+
+    private GameService gameService;
+
+    @BeforeEach
+    void setUp() {
+        gameRepository = mock(GameRepository.class);
+        lobbyService = mock(LobbyService.class);
+        roundDeadlineScheduler = mock(RoundDeadlineScheduler.class);
+        guessScorer = mock(GuessScorer.class);
+        when(gameRepository.insert(any(Game.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(guessScorer.prepare(anyString())).thenReturn(mock(GuessScorer.PreparedPrompt.class));
+
+        gameService = new GameService();
+        ReflectionTestUtils.setField(gameService, "gameRepository", gameRepository);
+        ReflectionTestUtils.setField(gameService, "lobbyService", lobbyService);
+        ReflectionTestUtils.setField(gameService, "gameEventPublisher", mock(GameEventPublisher.class));
+        ReflectionTestUtils.setField(gameService, "roundDeadlineScheduler", roundDeadlineScheduler);
+        ReflectionTestUtils.setField(gameService, "guessScorer", guessScorer);
+        // Mailboxes drain on the calling thread
+        ReflectionTestUtils.setField(gameService, "mailboxExecutor", new TaskExecutorAdapter(Runnable::run));
+        ReflectionTestUtils.setField(gameService, "promptTimeoutSeconds", 60L);
+        ReflectionTestUtils.setField(gameService, "nodeId", "node-a");
+    }
+
+    @Test
+    void startedGameRecordsItsNode() {
+        when(lobbyService.startGame("ABC123", "host")).thenReturn(lobby(Lobby.GameStatus.IN_PROGRESS));
+
+        gameService.startGame("ABC123", "host");
+
+        ArgumentCaptor<Game> inserted = ArgumentCaptor.forClass(Game.class);
+        verify(gameRepository).insert(inserted.capture());
+        assertThat(inserted.getValue().getOwnerNode()).isEqualTo("node-a");
+    }
+
+    @Test
+    void resumesRoundThatWasTakingGuesses() {
+        Game game = storedGame(Round.RoundStatus.WAITING_FOR_GUESSES);
+        Round round = game.getRounds().get(0);
+        round.setPromptText("a cat on a roof");
+        round.addPlayerGuess("guest1", new Guess("guest1", "cat", 1200));
+        when(lobbyService.findById("lobby-1")).thenReturn(Optional.of(lobby(Lobby.GameStatus.IN_PROGRESS)));
+
+        gameService.recoverGames();
+
+        verify(guessScorer).prepare("a cat on a roof");
+        verify(roundDeadlineScheduler).schedule(any(Duration.class), any(Runnable.class));
+        assertThat(gameService.submitGuess("ABC123", "guest2", "dog")).isEqualTo(2);
+    }
+
+    @Test
+    void restartsRoundThatWasWaitingForThePrompt() {
+        storedGame(Round.RoundStatus.WAITING_FOR_PROMPT);
+        when(lobbyService.findById("lobby-1")).thenReturn(Optional.of(lobby(Lobby.GameStatus.IN_PROGRESS)));
+
+        gameService.recoverGames();
+
+        assertThat(gameService.submitPrompt("ABC123", "host", "a cat", null).getStatus())
+            .isEqualTo(Game.GameStatus.IN_PROGRESS.toString());
+    }
+
+    @Test
+    void abortsGameWhoseLobbyIsNoLongerInProgress() {
+        Game game = storedGame(Round.RoundStatus.WAITING_FOR_PROMPT);
+        when(lobbyService.findById("lobby-1")).thenReturn(Optional.of(lobby(Lobby.GameStatus.CLOSED)));
+
+        gameService.recoverGames();
+
+        verify(gameRepository).save(game);
+        assertThat(game.getStatus()).isEqualTo(Game.GameStatus.ABORTED);
+        assertThat(game.getEndedAt()).isNotNull();
+        assertThatThrownBy(() -> gameService.submitGuess("ABC123", "guest1", "cat"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void abortsGameWhoseLobbyIsGone() {
+        Game game = storedGame(Round.RoundStatus.WAITING_FOR_PROMPT);
+        when(lobbyService.findById("lobby-1")).thenReturn(Optional.empty());
+
+        gameService.recoverGames();
+
+        assertThat(game.getStatus()).isEqualTo(Game.GameStatus.ABORTED);
+        verify(gameRepository).save(game);
+    }
+
+    @Test
+    void closingTheLobbyAbortsItsGame() {
+        when(lobbyService.startGame("ABC123", "host")).thenReturn(lobby(Lobby.GameStatus.IN_PROGRESS));
+        gameService.startGame("ABC123", "host");
+
+        gameService.onLobbyClosed(new LobbyService.LobbyClosedEvent("ABC123"));
+
+        ArgumentCaptor<Game> saved = ArgumentCaptor.forClass(Game.class);
+        verify(gameRepository).save(saved.capture());
+        assertThat(saved.getValue().getStatus()).isEqualTo(Game.GameStatus.ABORTED);
+        // The lobby is already closed and must not be flipped to FINISHED
+        verify(lobbyService, never()).endGame(anyString());
+        assertThatThrownBy(() -> gameService.submitGuess("ABC123", "guest1", "cat"))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void onlyTheHostCanEndTheGame() {
+        when(lobbyService.startGame("ABC123", "host")).thenReturn(lobby(Lobby.GameStatus.IN_PROGRESS));
+        when(lobbyService.findByLobbyCode("ABC123")).thenReturn(Optional.of(lobby(Lobby.GameStatus.IN_PROGRESS)));
+        gameService.startGame("ABC123", "host");
+
+        assertThatThrownBy(() -> gameService.endGame("ABC123", "guest1"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Only the host can end the game");
+
+        verify(gameRepository, never()).save(any());
+        verify(lobbyService, never()).endGame(anyString());
+
+        gameService.endGame("ABC123", "host");
+
+        verify(lobbyService).endGame("ABC123");
+        ArgumentCaptor<Game> saved = ArgumentCaptor.forClass(Game.class);
+        verify(gameRepository).save(saved.capture());
+        assertThat(saved.getValue().getStatus()).isEqualTo(Game.GameStatus.ABORTED);
+    }
+
+    @Test
+    void lastGuessSucceedsWhenTheLobbyCannotBeEnded() {
+        Game game = storedGame(Round.RoundStatus.WAITING_FOR_GUESSES);
+        game.setTotalRounds(1);
+        Round round = game.getRounds().get(0);
+        round.setPromptText("a cat on a roof");
+        round.addPlayerGuess("guest1", new Guess("guest1", "cat", 1200));
+        when(lobbyService.findById("lobby-1")).thenReturn(Optional.of(lobby(Lobby.GameStatus.IN_PROGRESS)));
+        when(lobbyService.endGame("ABC123")).thenThrow(new IllegalArgumentException("Lobby not found"));
+        gameService.recoverGames();
+
+        assertThat(gameService.submitGuess("ABC123", "guest2", "dog")).isEqualTo(2);
+
+        verify(lobbyService).endGame("ABC123");
+        assertThat(game.getStatus()).isEqualTo(Game.GameStatus.FINISHED);
+        verify(gameRepository).save(game);
+    }
+
+    @Test
+    void closingALobbyWithoutGameDoesNothing() {
+        gameService.onLobbyClosed(new LobbyService.LobbyClosedEvent("ABC123"));
+
+        verify(gameRepository, never()).save(any());
+    }
+
+    private Game storedGame(Round.RoundStatus status) {
+        Game game = new Game("lobby-1", new ArrayList<>(List.of("host", "guest1", "guest2")), 3);
+        game.setId("game-1");
+        game.setOwnerNode("node-a");
+        Round round = new Round(1, "host", 30);
+        round.setStatus(status);
+        game.addRound(round);
+        game.setCurrentPrompter("host");
+        when(gameRepository.findByStatusAndOwnerNode(Game.GameStatus.IN_PROGRESS, "node-a")).thenReturn(List.of(game));
+        return game;
+    }
+
+    private static Lobby lobby(Lobby.GameStatus status) {
+        Lobby lobby = new Lobby("host", "ABC123", 3, 30);
+        lobby.setId("lobby-1");
+        lobby.setPlayerIds(new ArrayList<>(List.of("host", "guest1", "guest2")));
+        lobby.setStatus(status);
+        return lobby;
+    }
+}
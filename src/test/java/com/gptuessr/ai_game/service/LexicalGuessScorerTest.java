@@ -0,0 +1,190 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Guess;
+import com.gptuessr.ai_game.util.LongIntHashMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LexicalGuessScorerTest {
+
+    private LexicalGuessScorer scorer;
+
+    @BeforeEach
+    void setUp() {
+        scorer = new LexicalGuessScorer();
+        ReflectionTestUtils.setField(scorer, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(scorer, "synonymsLocation", "classpath:scoring/synonyms.txt");
+        ReflectionTestUtils.setField(scorer, "maxPoints", 100);
+        ReflectionTestUtils.setField(scorer, "timeBonusPoints", 20);
+        ReflectionTestUtils.setField(scorer, "timeBonusMinAccuracy", 0.3);
+        ReflectionTestUtils.setField(scorer, "wordWeight", 0.7);
+        ReflectionTestUtils.setField(scorer, "parallelThreshold", 256);
+        scorer.init();
+    }
+
+    @Test
+    void stemsCommonInflections() {
+        assertThat(stem("dogs")).isEqualTo("dog");
+        assertThat(stem("puppies")).isEqualTo("puppy");
+        assertThat(stem("boxes")).isEqualTo("box");
+        assertThat(stem("beaches")).isEqualTo("beach");
+        assertThat(stem("running")).isEqualTo("run");
+        assertThat(stem("jumped")).isEqualTo("jump");
+        assertThat(stem("quickly")).isEqualTo("quick");
+        // Too short, or not a plural
+        assertThat(stem("bus")).isEqualTo("bus");
+        assertThat(stem("glass")).isEqualTo("glass");
+        assertThat(stem("cactus")).isEqualTo("cactus");
+        assertThat(stem("falling")).isEqualTo("fall");
+    }
+
+    @Test
+    void recognizesStopWords() {
+        assertThat(isStopWord("the")).isTrue();
+        assertThat(isStopWord("with")).isTrue();
+        assertThat(isStopWord("cat")).isFalse();
+        assertThat(isStopWord("them")).isFalse();
+    }
+
+    @Test
+    void promptFeaturesKeepDistinctContentWords() {
+        PromptFeatures features = scorer.prepare("The dogs and a dog on THE beach");
+
+        assertThat(features.getPromptText()).isEqualTo("The dogs and a dog on THE beach");
+        assertThat(features.getWordCount()).isEqualTo(2);
+        assertThat(features.matchWord(hash("dog"), LongIntHashMap.MISSING)).isNotEqualTo(LongIntHashMap.MISSING);
+        assertThat(features.matchWord(hash("the"), LongIntHashMap.MISSING)).isEqualTo(LongIntHashMap.MISSING);
+        assertThat(features.getTrigramCount()).isPositive();
+    }
+
+    @Test
+    void stopWordsAndInflectionsDoNotChangeTheWordScore() {
+        ReflectionTestUtils.setField(scorer, "wordWeight", 1.0);
+        PromptFeatures features = scorer.prepare("a dog on the beach");
+
+        assertThat(accuracy(features, "the dogs at a beaches")).isEqualTo(1.0);
+        assertThat(accuracy(features, "Dog, beach!")).isEqualTo(1.0);
+    }
+
+    @Test
+    void synonymsMatchPromptWords() {
+        ReflectionTestUtils.setField(scorer, "wordWeight", 1.0);
+        PromptFeatures features = scorer.prepare("a dog on a beach");
+
+        assertThat(accuracy(features, "puppies at the seaside")).isEqualTo(1.0);
+        assertThat(accuracy(features, "kitten at the seaside")).isEqualTo(0.5);
+    }
+
+    @Test
+    void wordScoreIsF1OfMatchedWords() {
+        ReflectionTestUtils.setField(scorer, "wordWeight", 1.0);
+        PromptFeatures features = scorer.prepare("red car");
+
+        assertThat(accuracy(features, "red boat")).isEqualTo(0.5);
+        // Full recall, one of three guess words matches nothing
+        assertThat(accuracy(features, "red car parked")).isCloseTo(0.8, within(1e-9));
+        assertThat(accuracy(features, "blue boat")).isZero();
+        assertThat(accuracy(features, "")).isZero();
+    }
+
+    @Test
+    void trigramScoreCatchesTypos() {
+        ReflectionTestUtils.setField(scorer, "wordWeight", 0.0);
+        PromptFeatures features = scorer.prepare("elephant");
+
+        assertThat(accuracy(features, "elephant")).isEqualTo(1.0);
+        assertThat(accuracy(features, "  Elephant!")).isEqualTo(1.0);
+        assertThat(accuracy(features, "elephnat")).isBetween(0.3, 0.9);
+        assertThat(accuracy(features, "xyz")).isZero();
+    }
+
+    @Test
+    void blendsWordAndTrigramScores() {
+        PromptFeatures features = scorer.prepare("red car");
+
+        double blended = accuracy(features, "red boat");
+        ReflectionTestUtils.setField(scorer, "wordWeight", 0.0);
+        double trigrams = accuracy(features, "red boat");
+
+        assertThat(blended).isCloseTo(0.7 * 0.5 + 0.3 * trigrams, within(1e-9));
+    }
+
+    @Test
+    void handlesLongPromptsAndWords() {
+        ReflectionTestUtils.setField(scorer, "wordWeight", 1.0);
+        String prompt = IntStream.range(0, 70).mapToObj(i -> "word" + i).collect(Collectors.joining(" "));
+        PromptFeatures features = scorer.prepare(prompt);
+        LexicalGuessScorer.Scratch buffers = new LexicalGuessScorer.Scratch();
+
+        assertThat(scorer.accuracy(features, prompt, buffers)).isEqualTo(1.0);
+        assertThat(scorer.accuracy(features, "word69 " + "x".repeat(100), buffers)).isGreaterThan(0);
+        // Buffers reused after growing start from a clean state
+        assertThat(scorer.accuracy(features, "word0", buffers)).isCloseTo(2.0 / 71, within(1e-9));
+    }
+
+    @Test
+    void timeBonusRewardsEarlyReasonableGuesses() {
+        assertThat(scorer.points(1.0, 0, 10_000)).isEqualTo(120);
+        assertThat(scorer.points(1.0, 5_000, 10_000)).isEqualTo(110);
+        assertThat(scorer.points(1.0, 20_000, 10_000)).isEqualTo(100);
+        assertThat(scorer.points(0.5, 2_500, 10_000)).isEqualTo(65);
+        // Below the minimum accuracy, or without a time limit, there is no bonus
+        assertThat(scorer.points(0.2, 0, 10_000)).isEqualTo(20);
+        assertThat(scorer.points(0.5, 0, 0)).isEqualTo(50);
+    }
+
+    @Test
+    void scoresRoundsTheSameInParallel() {
+        PromptFeatures features = scorer.prepare("a dog on a beach");
+        List<Guess> sequential = guesses(300);
+        List<Guess> parallel = guesses(300);
+
+        scorer.scoreRound(features, sequential, 30_000);
+        ReflectionTestUtils.setField(scorer, "parallelThreshold", 2);
+        scorer.scoreRound(features, parallel, 30_000);
+
+        for (int i = 0; i < sequential.size(); i++) {
+            assertThat(parallel.get(i).getAccuracy()).isEqualTo(sequential.get(i).getAccuracy());
+            assertThat(parallel.get(i).getScore()).isEqualTo(sequential.get(i).getScore());
+        }
+        assertThat(sequential.get(0).getScore()).isPositive();
+        assertThat(sequential.get(299).getAccuracy()).isZero();
+    }
+
+    private static List<Guess> guesses(int count) {
+        String[] texts = {"dog on a beach", "puppy at the seaside", "a cat", "dgo beahc"};
+        List<Guess> guesses = new ArrayList<>();
+        for (int i = 0; i < count - 1; i++) {
+            guesses.add(new Guess("player" + i, texts[i % texts.length], i * 100L));
+        }
+        guesses.add(new Guess("silent", null, 0));
+        return guesses;
+    }
+
+    private double accuracy(PromptFeatures features, String guess) {
+        return scorer.accuracy(features, guess, new LexicalGuessScorer.Scratch());
+    }
+
+    private boolean isStopWord(String word) {
+        return scorer.isStopWord(word.toCharArray(), word.length());
+    }
+
+    private static String stem(String word) {
+        char[] chars = word.toCharArray();
+        return new String(chars, 0, LexicalGuessScorer.stem(chars, chars.length));
+    }
+
+    private static long hash(String word) {
+        return LexicalGuessScorer.hash(word.toCharArray(), word.length());
+    }
+}
@@ -0,0 +1,78 @@
+package com.gptuessr.ai_game.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LobbyCodeAllocatorTest {
+
+    private static final int CODE_SPACE = 1 << 30;
+
+    private static final long MASK = CODE_SPACE - 1;
+
+    private static final long INVERSE_MULTIPLIER = inverseMultiplier(0x2545F491L);
+
+    @Test
+    void permutationIsBijectiveOverTheWholeCodeSpace() {
+        // A map of a finite set onto itself with a left inverse has no collisions and is a bijection
+        for (int value = 0; value < CODE_SPACE; value++) {
+            long permuted = LobbyCodeAllocator.permute(value);
+            // Plain checks, an assertion object per value would dominate the run time
+            if (permuted < 0 || permuted >= CODE_SPACE) {
+                throw new AssertionError("Counter " + value + " permuted out of range to " + permuted);
+            }
+            if (unpermute(permuted) != value) {
+                throw new AssertionError("Counter " + value + " collides with counter " + unpermute(permuted));
+            }
+        }
+    }
+
+    @Test
+    void encodingIsInjective() {
+        assertThat(LobbyCodeAllocator.encode(0)).isEqualTo("AAAAAA");
+        assertThat(LobbyCodeAllocator.encode(CODE_SPACE - 1)).isEqualTo("999999");
+        assertThat(LobbyCodeAllocator.encode(1)).isNotEqualTo(LobbyCodeAllocator.encode(32));
+    }
+
+    @Test
+    void permutationMatchesItsInverseOnSamples() {
+        assertThat(unpermute(LobbyCodeAllocator.permute(0))).isZero();
+        assertThat(unpermute(LobbyCodeAllocator.permute(CODE_SPACE - 1))).isEqualTo(CODE_SPACE - 1L);
+        assertThat(LobbyCodeAllocator.permute(1)).isNotEqualTo(LobbyCodeAllocator.permute(2));
+    }
+
+    @Test
+    void consecutiveCodesAreDistinctAndUseTheAlphabet() {
+        LobbyCodeAllocator allocator = new LobbyCodeAllocator();
+        Set<String> codes = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            String code = allocator.nextCode();
+            assertThat(code).matches("[ABCDEFGHJKLMNPQRSTUVWXYZ2-9]{6}");
+            assertThat(codes.add(code)).isTrue();
+        }
+    }
+
+    /**
+     * Undo LobbyCodeAllocator.permute() step by step
+     */
+    private static long unpermute(long value) {
+        long x = value;
+        x ^= (x >>> 13) ^ (x >>> 26);
+        x = (x * INVERSE_MULTIPLIER) & MASK;
+        x ^= x >>> 15;
+        x = (x * INVERSE_MULTIPLIER) & MASK;
+        return x;
+    }
+
+    private static long inverseMultiplier(long multiplier) {
+        // Newton iteration, each step doubles the number of correct low bits
+        long inverse = multiplier;
+        for (int i = 0; i < 5; i++) {
+            inverse = (inverse * (2 - multiplier * inverse)) & MASK;
+        }
+        return inverse;
+    }
+}
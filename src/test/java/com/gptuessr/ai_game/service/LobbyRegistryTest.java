@@ -0,0 +1,254 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Lobby;
+import com.gptuessr.ai_game.repository.LobbyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LobbyRegistryTest {
+
+    private static final Consumer<Lobby> NO_LISTENER = lobby -> { };
+
+    private LobbyRepository lobbyRepository;
+
+    private LobbyRegistry registry;
+
+    // Sequence ceiling of the stored lobby document
+    private final AtomicLong sequenceCeiling = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        lobbyRepository = mock(LobbyRepository.class);
+        when(lobbyRepository.reserveSequences(eq("ABC123"), anyLong())).thenAnswer(invocation -> {
+            Lobby stored = lobby(3L, "host");
+            stored.setSequenceCeiling(sequenceCeiling.addAndGet(invocation.getArgument(1)));
+            return stored;
+        });
+        when(lobbyRepository.findByLobbyCode("ABC123")).thenAnswer(invocation -> {
+            Lobby stored = lobby(3L, "host");
+            stored.setSequenceCeiling(sequenceCeiling.get());
+            return Optional.of(stored);
+        });
+        registry = newRegistry();
+    }
+
+    @Test
+    void flushWritesOverTheKnownVersion() {
+        registry.register(lobby(3L, "host"));
+        registry.update("ABC123", lobby -> lobby.setTimeLimit(45), NO_LISTENER);
+        when(lobbyRepository.saveState(any())).thenReturn(4L);
+
+        registry.flush();
+
+        ArgumentCaptor<Lobby> written = ArgumentCaptor.forClass(Lobby.class);
+        verify(lobbyRepository).saveState(written.capture());
+        assertThat(written.getValue().getVersion()).isEqualTo(3L);
+        assertThat(written.getValue().getTimeLimit()).isEqualTo(45);
+        assertThat(registry.find("ABC123").orElseThrow().getVersion()).isEqualTo(4L);
+    }
+
+    @Test
+    void staleFlushIsRebasedWhenOnlyPlayersChangedElsewhere() {
+        registry.register(lobby(3L, "host"));
+        registry.update("ABC123", lobby -> lobby.setTimeLimit(45), NO_LISTENER);
+
+        // Another node added a player in the meantime
+        Lobby current = lobby(4L, "host", "guest");
+        when(lobbyRepository.saveState(any())).thenReturn(null, 5L);
+        when(lobbyRepository.findById("lobby-1")).thenReturn(Optional.of(current));
+
+        registry.flush();
+        Lobby rebased = registry.find("ABC123").orElseThrow();
+        assertThat(rebased.getTimeLimit()).isEqualTo(45);
+        assertThat(rebased.getPlayerIds()).containsExactly("host", "guest");
+        assertThat(rebased.getVersion()).isEqualTo(4L);
+
+        registry.flush();
+        ArgumentCaptor<Lobby> written = ArgumentCaptor.forClass(Lobby.class);
+        verify(lobbyRepository, times(2)).saveState(written.capture());
+        assertThat(written.getAllValues().get(1).getVersion()).isEqualTo(4L);
+        assertThat(written.getAllValues().get(1).getTimeLimit()).isEqualTo(45);
+        assertThat(registry.find("ABC123").orElseThrow().getVersion()).isEqualTo(5L);
+    }
+
+    @Test
+    void staleFlushYieldsToStateChangedElsewhere() {
+        registry.register(lobby(3L, "host"));
+        Lobby changed = registry.update("ABC123", lobby -> lobby.setTimeLimit(45), NO_LISTENER);
+
+        // Another node started the game
+        Lobby current = lobby(4L, "host");
+        current.setStatus(Lobby.GameStatus.IN_PROGRESS);
+        when(lobbyRepository.saveState(any())).thenReturn(null);
+        when(lobbyRepository.findById("lobby-1")).thenReturn(Optional.of(current));
+
+        registry.flush();
+        registry.flush();
+
+        Lobby live = registry.find("ABC123").orElseThrow();
+        assertThat(live.getStatus()).isEqualTo(Lobby.GameStatus.IN_PROGRESS);
+        assertThat(live.getTimeLimit()).isEqualTo(30);
+        assertThat(live.getVersion()).isEqualTo(4L);
+        // A sequence number is used up without a delta, so the next delta shows clients a gap
+        assertThat(live.getSequence()).isEqualTo(changed.getSequence() + 1);
+        verify(lobbyRepository, times(1)).saveState(any());
+    }
+
+    @Test
+    void atomicUpdateAdoptsStateChangedElsewhere() {
+        registry.register(lobby(3L, "host", "guest"));
+        registry.update("ABC123", lobby -> lobby.setTimeLimit(45), NO_LISTENER);
+
+        Lobby current = lobby(5L, "host");
+        current.setStatus(Lobby.GameStatus.IN_PROGRESS);
+        Lobby live = registry.updateAtomically("ABC123", lobby -> current, NO_LISTENER);
+
+        assertThat(live.getStatus()).isEqualTo(Lobby.GameStatus.IN_PROGRESS);
+        assertThat(live.getPlayerIds()).containsExactly("host");
+        assertThat(live.getVersion()).isEqualTo(5L);
+
+        // The discarded change is not flushed over the newer state
+        registry.flush();
+        verify(lobbyRepository, times(0)).saveState(any());
+    }
+
+    @Test
+    void reloadedLobbyContinuesAboveSentSequences() {
+        registry.register(lobby(3L, "host"));
+        long sent = 0;
+        for (int i = 0; i < 3; i++) {
+            sent = registry.update("ABC123", lobby -> lobby.setTimeLimit(45), NO_LISTENER).getSequence();
+        }
+
+        // Another node, or this one after a restart, loads the lobby from the database
+        LobbyRegistry reloaded = newRegistry();
+        Lobby snapshot = reloaded.find("ABC123").orElseThrow();
+        Lobby changed = reloaded.update("ABC123", lobby -> lobby.setTimeLimit(60), NO_LISTENER);
+
+        assertThat(snapshot.getSequence()).isGreaterThan(sent);
+        assertThat(changed.getSequence()).isEqualTo(snapshot.getSequence() + 1);
+    }
+
+    @Test
+    void sequenceContinuesAcrossReservedBlocks() {
+        registry.register(lobby(3L, "host"));
+        long previous = 0;
+        for (int i = 0; i < LobbyRegistry.SEQUENCE_BLOCK + 10; i++) {
+            long sequence = registry.update("ABC123", lobby -> lobby.setTimeLimit(45), NO_LISTENER).getSequence();
+            assertThat(sequence).isEqualTo(previous + 1);
+            previous = sequence;
+        }
+        verify(lobbyRepository, times(2)).reserveSequences(eq("ABC123"), anyLong());
+    }
+
+    @Test
+    void sequenceJumpsOverBlocksReservedElsewhere() {
+        registry.register(lobby(3L, "host"));
+        long previous = 0;
+        for (int i = 0; i < LobbyRegistry.SEQUENCE_BLOCK - 1; i++) {
+            previous = registry.update("ABC123", lobby -> lobby.setTimeLimit(45), NO_LISTENER).getSequence();
+        }
+
+        // Another node loads the lobby and takes the next block for its own change
+        newRegistry().update("ABC123", lobby -> lobby.setTimeLimit(50), NO_LISTENER);
+        long sequence = registry.update("ABC123", lobby -> lobby.setTimeLimit(60), NO_LISTENER).getSequence();
+
+        assertThat(sequence).isGreaterThan(previous + LobbyRegistry.SEQUENCE_BLOCK);
+    }
+
+    @Test
+    void lookupsDoNotReserveSequences() {
+        when(lobbyRepository.findByLobbyCode("NOPE00")).thenReturn(Optional.empty());
+
+        assertThat(registry.find("NOPE00")).isEmpty();
+        assertThat(registry.find("ABC123")).isPresent();
+        assertThat(registry.find("ABC123")).isPresent();
+
+        verify(lobbyRepository, never()).reserveSequences(any(), anyLong());
+        verify(lobbyRepository, times(1)).findByLobbyCode("ABC123");
+    }
+
+    @Test
+    void readOnlyCopyIsReadAgainAfterTheRefreshInterval() {
+        registry.register(lobby(3L, "host"));
+        ReflectionTestUtils.setField(registry, "readRefreshMs", 0L);
+
+        // Another node added a player and changed the settings
+        Lobby current = lobby(5L, "host", "guest");
+        current.setTimeLimit(60);
+        current.setSequenceCeiling(2 * LobbyRegistry.SEQUENCE_BLOCK);
+        when(lobbyRepository.findByLobbyCode("ABC123")).thenReturn(Optional.of(current));
+
+        Lobby refreshed = registry.find("ABC123").orElseThrow();
+
+        assertThat(refreshed.getPlayerIds()).containsExactly("host", "guest");
+        assertThat(refreshed.getTimeLimit()).isEqualTo(60);
+        assertThat(refreshed.getVersion()).isEqualTo(5L);
+        // Deltas the other node sent from its block are older than this snapshot
+        assertThat(refreshed.getSequence()).isEqualTo(2 * LobbyRegistry.SEQUENCE_BLOCK);
+    }
+
+    @Test
+    void copyIsNotReadAgainWithinTheRefreshInterval() {
+        registry.register(lobby(3L, "host"));
+
+        registry.find("ABC123");
+
+        verify(lobbyRepository, never()).findByLobbyCode(any());
+    }
+
+    @Test
+    void unflushedChangesAreNotReplacedByARefresh() {
+        registry.register(lobby(3L, "host"));
+        ReflectionTestUtils.setField(registry, "readRefreshMs", 0L);
+        registry.update("ABC123", lobby -> lobby.setTimeLimit(45), NO_LISTENER);
+
+        assertThat(registry.find("ABC123").orElseThrow().getTimeLimit()).isEqualTo(45);
+        verify(lobbyRepository, never()).findByLobbyCode(any());
+    }
+
+    @Test
+    void refreshOfARemovedLobbyFindsNothing() {
+        registry.register(lobby(3L, "host"));
+        ReflectionTestUtils.setField(registry, "readRefreshMs", 0L);
+        when(lobbyRepository.findByLobbyCode("ABC123")).thenReturn(Optional.empty());
+
+        assertThat(registry.find("ABC123")).isEmpty();
+    }
+
+    private LobbyRegistry newRegistry() {
+        LobbyRegistry registry = new LobbyRegistry();
+        ReflectionTestUtils.setField(registry, "lobbyRepository", lobbyRepository);
+        ReflectionTestUtils.setField(registry, "lobbyStatusCounter", mock(LobbyStatusCounter.class));
+        ReflectionTestUtils.setField(registry, "idleEvictionMs", 1_800_000L);
+        ReflectionTestUtils.setField(registry, "readRefreshMs", 5_000L);
+        return registry;
+    }
+
+    private static Lobby lobby(Long version, String... playerIds) {
+        Lobby lobby = new Lobby("host", "ABC123", 3, 30);
+        lobby.setId("lobby-1");
+        lobby.setPlayerIds(new ArrayList<>(List.of(playerIds)));
+        lobby.setStatus(Lobby.GameStatus.WAITING);
+        lobby.setVersion(version);
+        return lobby;
+    }
+}
@@ -0,0 +1,217 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.dto.LobbyEventDTO;
+import com.gptuessr.ai_game.dto.PlayerProfileDTO;
+import com.gptuessr.ai_game.entity.Lobby;
+import com.gptuessr.ai_game.repository.LobbyRepository;
+import com.gptuessr.ai_game.ws.LobbyEventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LobbyServiceTest {
+
+    private LobbyRepository lobbyRepository;
+
+    private UserService userService;
+
+    private LobbyEventPublisher lobbyEventPublisher;
+
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    private LobbyStatusCounter lobbyStatusCounter;
+
+    private LobbyRegistry lobbyRegistry;
+
+    private LobbyService lobbyService;
+
+    @BeforeEach
+    void setUp() {
+        lobbyRepository = mock(LobbyRepository.class);
+        userService = mock(UserService.class);
+        lobbyEventPublisher = mock(LobbyEventPublisher.class);
+        applicationEventPublisher = mock(ApplicationEventPublisher.class);
+        lobbyStatusCounter = mock(LobbyStatusCounter.class);
+        when(lobbyRepository.reserveSequences(anyString(), anyLong())).thenAnswer(invocation -> {
+            Lobby stored = new Lobby();
+            stored.setSequenceCeiling(invocation.getArgument(1));
+            return stored;
+        });
+
+        lobbyRegistry = new LobbyRegistry();
+        ReflectionTestUtils.setField(lobbyRegistry, "lobbyRepository", lobbyRepository);
+        ReflectionTestUtils.setField(lobbyRegistry, "lobbyStatusCounter", lobbyStatusCounter);
+        ReflectionTestUtils.setField(lobbyRegistry, "idleEvictionMs", 1_800_000L);
+        ReflectionTestUtils.setField(lobbyRegistry, "readRefreshMs", 5_000L);
+
+        lobbyService = new LobbyService();
+        ReflectionTestUtils.setField(lobbyService, "lobbyRepository", lobbyRepository);
+        ReflectionTestUtils.setField(lobbyService, "lobbyRegistry", lobbyRegistry);
+        ReflectionTestUtils.setField(lobbyService, "lobbyEventPublisher", lobbyEventPublisher);
+        ReflectionTestUtils.setField(lobbyService, "userService", userService);
+        ReflectionTestUtils.setField(lobbyService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(lobbyService, "applicationEventPublisher", applicationEventPublisher);
+        ReflectionTestUtils.setField(lobbyService, "lobbyStatusCounter", lobbyStatusCounter);
+        ReflectionTestUtils.setField(lobbyService, "waitingMaxAgeHours", 24L);
+        ReflectionTestUtils.setField(lobbyService, "inProgressMaxAgeHours", 6L);
+    }
+
+    @Test
+    void joinChecksThePlayerAgainstTheProfileCache() {
+        lobbyRegistry.register(lobby("ABC123", "host"));
+        PlayerProfileDTO guest = new PlayerProfileDTO("id-guest", "guest", "guest", "Guest", null);
+        when(userService.findPlayerProfiles(List.of("guest"))).thenReturn(Map.of("guest", guest));
+        when(lobbyRepository.addPlayerIfJoinable("ABC123", "guest")).thenReturn(lobby("ABC123", "host", "guest"));
+
+        Lobby joined = lobbyService.joinLobby("ABC123", "guest");
+
+        assertThat(joined.getPlayerIds()).containsExactly("host", "guest");
+        // One cached lookup serves both the existence check and the published profile
+        verify(userService, times(1)).findPlayerProfiles(any());
+        ArgumentCaptor<LobbyEventDTO> published = ArgumentCaptor.forClass(LobbyEventDTO.class);
+        verify(lobbyEventPublisher).publish(published.capture());
+        assertThat(published.getValue().getAddedPlayers()).hasSize(1);
+    }
+
+    @Test
+    void joinOfAnUnknownPlayerIsRejected() {
+        lobbyRegistry.register(lobby("ABC123", "host"));
+        when(userService.findPlayerProfiles(List.of("ghost"))).thenReturn(Map.of());
+
+        assertThatThrownBy(() -> lobbyService.joinLobby("ABC123", "ghost"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Player user not found");
+        verify(lobbyRepository, never()).addPlayerIfJoinable(anyString(), anyString());
+    }
+
+    @Test
+    void concurrentChangesArePublishedInSequenceOrder() throws InterruptedException {
+        lobbyRegistry.register(lobby("ABC123", "host"));
+        List<Long> published = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            published.add(invocation.<LobbyEventDTO>getArgument(0).getSequence());
+            Thread.yield();
+            return null;
+        }).when(lobbyEventPublisher).publish(any());
+
+        int changesPerThread = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        Thread rounds = Thread.ofPlatform().start(() -> {
+            awaitQuietly(start);
+            for (int i = 0; i < changesPerThread; i++) {
+                lobbyService.updateLobbySettings("ABC123", "host", 1 + i % 5, null, null, null);
+            }
+        });
+        Thread timeLimit = Thread.ofPlatform().start(() -> {
+            awaitQuietly(start);
+            for (int i = 0; i < changesPerThread; i++) {
+                lobbyService.updateLobbySettings("ABC123", "host", null, 30 + i % 5, null, null);
+            }
+        });
+        start.countDown();
+        rounds.join();
+        timeLimit.join();
+
+        assertThat(published).hasSize(2 * changesPerThread);
+        for (int i = 1; i < published.size(); i++) {
+            assertThat(published.get(i)).isGreaterThan(published.get(i - 1));
+        }
+    }
+
+    @Test
+    void cleanupClosesOnlyStaleLiveLobbies() {
+        LocalDateTime now = LocalDateTime.now();
+        Lobby staleWaiting = lobby("WAIT01", "host");
+        staleWaiting.setCreatedAt(now.minusHours(25));
+        Lobby freshWaiting = lobby("WAIT02", "host");
+        freshWaiting.setCreatedAt(now.minusHours(23));
+        Lobby staleRunning = lobby("GAME01", "host");
+        staleRunning.setStatus(Lobby.GameStatus.IN_PROGRESS);
+        staleRunning.setStartedAt(now.minusHours(7));
+        Lobby freshRunning = lobby("GAME02", "host");
+        freshRunning.setStatus(Lobby.GameStatus.IN_PROGRESS);
+        freshRunning.setStartedAt(now.minusHours(5));
+        Lobby finished = lobby("DONE01", "host");
+        finished.setStatus(Lobby.GameStatus.FINISHED);
+        finished.setCreatedAt(now.minusHours(48));
+        for (Lobby lobby : List.of(staleWaiting, freshWaiting, staleRunning, freshRunning, finished)) {
+            lobbyRegistry.register(lobby);
+        }
+
+        lobbyService.cleanupOldLobbies();
+
+        assertThat(lobbyRegistry.find("WAIT01")).get().satisfies(lobby -> {
+            assertThat(lobby.getStatus()).isEqualTo(Lobby.GameStatus.CLOSED);
+            assertThat(lobby.getClosedAt()).isAfterOrEqualTo(now);
+        });
+        assertThat(lobbyRegistry.find("GAME01")).get().satisfies(lobby -> {
+            assertThat(lobby.getStatus()).isEqualTo(Lobby.GameStatus.CLOSED);
+            assertThat(lobby.getClosedAt()).isNotNull();
+        });
+        assertThat(lobbyRegistry.find("WAIT02").map(Lobby::getStatus)).contains(Lobby.GameStatus.WAITING);
+        assertThat(lobbyRegistry.find("GAME02").map(Lobby::getStatus)).contains(Lobby.GameStatus.IN_PROGRESS);
+        assertThat(lobbyRegistry.find("DONE01").map(Lobby::getStatus)).contains(Lobby.GameStatus.FINISHED);
+        assertThat(lobbyRegistry.find("DONE01").map(Lobby::getClosedAt)).isEmpty();
+
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(applicationEventPublisher, times(2)).publishEvent(events.capture());
+        assertThat(events.getAllValues()).containsExactlyInAnyOrder(
+            new LobbyService.LobbyClosedEvent("WAIT01"), new LobbyService.LobbyClosedEvent("GAME01"));
+        verify(lobbyRepository).closeStaleLobbies(
+            argThat(cutoff -> cutoff.isBefore(now.minusHours(23)) && cutoff.isAfter(now.minusHours(25))),
+            argThat(cutoff -> cutoff.isBefore(now.minusHours(5)) && cutoff.isAfter(now.minusHours(7))),
+            any(LocalDateTime.class));
+    }
+
+    @Test
+    void cleanupRecountsOnlyWhenStoredLobbiesWereClosed() {
+        when(lobbyRepository.closeStaleLobbies(any(), any(), any())).thenReturn(0L);
+        lobbyService.cleanupOldLobbies();
+        verify(lobbyStatusCounter, never()).reconcile(any());
+
+        when(lobbyRepository.closeStaleLobbies(any(), any(), any())).thenReturn(3L);
+        lobbyService.cleanupOldLobbies();
+        verify(lobbyStatusCounter).reconcile(any());
+        verify(applicationEventPublisher, never()).publishEvent(any());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Lobby lobby(String lobbyCode, String... playerIds) {
+        Lobby lobby = new Lobby("host", lobbyCode, 3, 30);
+        lobby.setId("id-" + lobbyCode);
+        lobby.setPlayerIds(new ArrayList<>(List.of(playerIds)));
+        lobby.setStatus(Lobby.GameStatus.WAITING);
+        lobby.setVersion(1L);
+        return lobby;
+    }
+}
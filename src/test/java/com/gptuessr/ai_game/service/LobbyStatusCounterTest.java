@@ -0,0 +1,125 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.entity.Lobby;
+import com.gptuessr.ai_game.repository.LobbyRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LobbyStatusCounterTest {
+
+    private LobbyRepository lobbyRepository;
+
+    private LobbyStatusCounter counter;
+
+    @BeforeEach
+    void setUp() {
+        lobbyRepository = mock(LobbyRepository.class);
+        counter = new LobbyStatusCounter();
+        ReflectionTestUtils.setField(counter, "lobbyRepository", lobbyRepository);
+        ReflectionTestUtils.setField(counter, "meterRegistry", new SimpleMeterRegistry());
+        counter.registerGauges();
+    }
+
+    @Test
+    void reconcileAddsUnflushedChangesToTheStoredCounts() {
+        when(lobbyRepository.countLobbiesByStatus()).thenReturn(Map.of(
+            Lobby.GameStatus.WAITING, 5L, Lobby.GameStatus.IN_PROGRESS, 2L));
+
+        counter.reconcile(() -> Map.of(Lobby.GameStatus.WAITING, -1L, Lobby.GameStatus.IN_PROGRESS, 1L));
+
+        assertThat(counter.get(Lobby.GameStatus.WAITING)).isEqualTo(4);
+        assertThat(counter.get(Lobby.GameStatus.IN_PROGRESS)).isEqualTo(3);
+        assertThat(counter.get(Lobby.GameStatus.FINISHED)).isZero();
+    }
+
+    @Test
+    void reconcileKeepsTheClosedCount() {
+        counter.created(Lobby.GameStatus.WAITING);
+        counter.transition(Lobby.GameStatus.WAITING, Lobby.GameStatus.CLOSED);
+        when(lobbyRepository.countLobbiesByStatus()).thenReturn(Map.of());
+
+        counter.reconcile(Map::of);
+
+        assertThat(counter.get(Lobby.GameStatus.CLOSED)).isEqualTo(1);
+        assertThat(counter.get(Lobby.GameStatus.WAITING)).isZero();
+    }
+
+    @Test
+    void reconcileIsRetriedWhenAStatusChangesDuringTheCount() {
+        // The lobby created during the first count may be missing from its result
+        when(lobbyRepository.countLobbiesByStatus())
+            .thenAnswer(invocation -> {
+                counter.created(Lobby.GameStatus.WAITING);
+                return Map.of();
+            })
+            .thenReturn(Map.of(Lobby.GameStatus.WAITING, 1L));
+
+        counter.reconcile(Map::of);
+
+        verify(lobbyRepository, times(2)).countLobbiesByStatus();
+        assertThat(counter.get(Lobby.GameStatus.WAITING)).isEqualTo(1);
+    }
+
+    @Test
+    void reconcileGivesUpWhileStatusesKeepChanging() {
+        counter.created(Lobby.GameStatus.WAITING);
+        when(lobbyRepository.countLobbiesByStatus()).thenAnswer(invocation -> {
+            counter.transition(Lobby.GameStatus.WAITING, Lobby.GameStatus.IN_PROGRESS);
+            counter.transition(Lobby.GameStatus.IN_PROGRESS, Lobby.GameStatus.WAITING);
+            return Map.of();
+        });
+
+        counter.reconcile(Map::of);
+
+        assertThat(counter.get(Lobby.GameStatus.WAITING)).isEqualTo(1);
+    }
+
+    @Test
+    void registryReconcilesWithStatusChangesItCouldNotFlush() {
+        LobbyRegistry registry = new LobbyRegistry();
+        ReflectionTestUtils.setField(registry, "lobbyRepository", lobbyRepository);
+        ReflectionTestUtils.setField(registry, "lobbyStatusCounter", counter);
+        ReflectionTestUtils.setField(registry, "idleEvictionMs", 1_800_000L);
+        ReflectionTestUtils.setField(registry, "readRefreshMs", 5_000L);
+        when(lobbyRepository.reserveSequences(eq("ABC123"), anyLong())).thenAnswer(invocation -> {
+            Lobby stored = lobby();
+            stored.setSequenceCeiling(invocation.getArgument(1));
+            return stored;
+        });
+        when(lobbyRepository.saveState(any())).thenThrow(new IllegalStateException("write timed out"));
+        // The database still holds the lobby as waiting
+        when(lobbyRepository.countLobbiesByStatus()).thenReturn(Map.of(Lobby.GameStatus.WAITING, 1L));
+
+        registry.register(lobby());
+        registry.update("ABC123", lobby -> lobby.setStatus(Lobby.GameStatus.IN_PROGRESS), lobby -> { });
+        registry.reconcileStatusCounts();
+
+        verify(lobbyRepository).saveState(any());
+        assertThat(counter.get(Lobby.GameStatus.WAITING)).isZero();
+        assertThat(counter.get(Lobby.GameStatus.IN_PROGRESS)).isEqualTo(1);
+    }
+
+    private static Lobby lobby() {
+        Lobby lobby = new Lobby("host", "ABC123", 3, 30);
+        lobby.setId("lobby-1");
+        lobby.setPlayerIds(new ArrayList<>(List.of("host")));
+        lobby.setStatus(Lobby.GameStatus.WAITING);
+        lobby.setVersion(1L);
+        return lobby;
+    }
+}
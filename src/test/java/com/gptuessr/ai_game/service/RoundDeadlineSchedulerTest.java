@@ -0,0 +1,138 @@
+package com.gptuessr.ai_game.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoundDeadlineSchedulerTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private RoundDeadlineScheduler scheduler;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        scheduler.stop();
+    }
+
+    @Test
+    void firesAfterItsDelay() throws InterruptedException {
+        start(10, 512);
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicLong firedAt = new AtomicLong();
+
+        long scheduledAt = System.nanoTime();
+        scheduler.schedule(Duration.ofMillis(100), () -> {
+            firedAt.set(System.nanoTime());
+            fired.countDown();
+        });
+
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(firedAt.get() - scheduledAt);
+        assertThat(elapsedMs).isGreaterThanOrEqualTo(100).isLessThan(1000);
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void firesInDeadlineOrder() throws InterruptedException {
+        start(10, 512);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch fired = new CountDownLatch(3);
+
+        scheduler.schedule(Duration.ofMillis(150), () -> { order.add(3); fired.countDown(); });
+        scheduler.schedule(Duration.ofMillis(30), () -> { order.add(1); fired.countDown(); });
+        scheduler.schedule(Duration.ofMillis(90), () -> { order.add(2); fired.countDown(); });
+
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void cancelBeforeTransferNeverFires() throws InterruptedException {
+        // The first tick, which moves new deadlines into the wheel, is 200 ms away
+        start(200, 512);
+        AtomicInteger runs = new AtomicInteger();
+
+        RoundDeadlineScheduler.Deadline deadline = scheduler.schedule(Duration.ZERO, runs::incrementAndGet);
+        assertThat(deadline.cancel()).isTrue();
+        assertThat(deadline.cancel()).isFalse();
+
+        Thread.sleep(600);
+        assertThat(runs.get()).isZero();
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void cancelAfterLinkingNeverFires() throws InterruptedException {
+        start(10, 512);
+        AtomicInteger runs = new AtomicInteger();
+
+        RoundDeadlineScheduler.Deadline deadline = scheduler.schedule(Duration.ofMillis(300), runs::incrementAndGet);
+        // Several ticks pass, so the deadline sits in its bucket
+        Thread.sleep(100);
+        assertThat(deadline.cancel()).isTrue();
+
+        Thread.sleep(400);
+        assertThat(runs.get()).isZero();
+        assertThat(pending()).isZero();
+    }
+
+    @Test
+    void cancelAfterFiringReportsFalse() throws InterruptedException {
+        start(10, 512);
+        CountDownLatch fired = new CountDownLatch(1);
+
+        RoundDeadlineScheduler.Deadline deadline = scheduler.schedule(Duration.ofMillis(20), fired::countDown);
+
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(deadline.cancel()).isFalse();
+    }
+
+    @Test
+    void deadlineBeyondOneTurnWaitsForItsRound() throws InterruptedException {
+        // Four slots of 10 ms: one turn of the wheel is 40 ms
+        start(10, 4);
+        CountDownLatch fired = new CountDownLatch(2);
+        AtomicLong lateFiredAt = new AtomicLong();
+        AtomicInteger runs = new AtomicInteger();
+
+        long scheduledAt = System.nanoTime();
+        // Lands in the same slot as a 30 ms deadline, three turns later
+        scheduler.schedule(Duration.ofMillis(150), () -> {
+            lateFiredAt.set(System.nanoTime());
+            runs.incrementAndGet();
+            fired.countDown();
+        });
+        scheduler.schedule(Duration.ofMillis(30), () -> {
+            runs.incrementAndGet();
+            fired.countDown();
+        });
+
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(lateFiredAt.get() - scheduledAt)).isGreaterThanOrEqualTo(150);
+        assertThat(runs.get()).isEqualTo(2);
+    }
+
+    private void start(long tickMs, int wheelSize) {
+        scheduler = new RoundDeadlineScheduler();
+        ReflectionTestUtils.setField(scheduler, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.setField(scheduler, "tickMs", tickMs);
+        ReflectionTestUtils.setField(scheduler, "wheelSize", wheelSize);
+        scheduler.start();
+    }
+
+    private double pending() {
+        return meterRegistry.get("game.deadlines.pending").gauge().value();
+    }
+}
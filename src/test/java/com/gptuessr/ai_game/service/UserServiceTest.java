@@ -0,0 +1,125 @@
+package com.gptuessr.ai_game.service;
+
+import com.gptuessr.ai_game.dto.PlayerProfileDTO;
+import com.gptuessr.ai_game.entity.User;
+import com.gptuessr.ai_game.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserServiceTest {
+
+    private UserRepository userRepository;
+
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        when(userRepository.findByClerkUserIdIn(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> !id.startsWith("unknown")).map(UserServiceTest::profile).toList();
+        });
+        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        userService = new UserService();
+        ReflectionTestUtils.setField(userService, "userRepository", userRepository);
+        ReflectionTestUtils.setField(userService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(userService, "profileCacheMaxSize", 100L);
+        ReflectionTestUtils.setField(userService, "profileCacheTtlSeconds", 600L);
+        userService.initProfileCache();
+    }
+
+    @Test
+    void loadsAllMissesOfABatchWithOneQuery() {
+        Map<String, PlayerProfileDTO> profiles = userService.findPlayerProfiles(List.of("user_1", "user_2", "user_3"));
+
+        assertThat(profiles).containsOnlyKeys("user_1", "user_2", "user_3");
+        verify(userRepository, times(1)).findByClerkUserIdIn(anyCollection());
+    }
+
+    @Test
+    void queriesOnlyTheProfilesThatAreNotCached() {
+        userService.findPlayerProfiles(List.of("user_1", "user_2"));
+
+        Map<String, PlayerProfileDTO> profiles = userService.findPlayerProfiles(List.of("user_1", "user_2", "user_3"));
+
+        assertThat(profiles).containsOnlyKeys("user_1", "user_2", "user_3");
+        verify(userRepository).findByClerkUserIdIn(List.of("user_3"));
+        verify(userRepository, times(2)).findByClerkUserIdIn(anyCollection());
+
+        // Fully cached batches do not reach the database
+        userService.findPlayerProfiles(List.of("user_3", "user_1"));
+        verify(userRepository, times(2)).findByClerkUserIdIn(anyCollection());
+    }
+
+    @Test
+    void unknownUsersAreLeftOut() {
+        Map<String, PlayerProfileDTO> profiles = userService.findPlayerProfiles(List.of("user_1", "unknown_1"));
+
+        assertThat(profiles).containsOnlyKeys("user_1");
+    }
+
+    @Test
+    void invalidatedProfileIsLoadedAgain() {
+        userService.findPlayerProfiles(List.of("user_1", "user_2"));
+
+        userService.invalidatePlayerProfile("user_1");
+        userService.findPlayerProfiles(List.of("user_1", "user_2"));
+
+        verify(userRepository).findByClerkUserIdIn(List.of("user_1"));
+    }
+
+    @Test
+    void registeringAUserDropsTheCachedProfile() {
+        userService.findPlayerProfiles(List.of("user_1"));
+        when(userRepository.findByClerkUserId("user_1")).thenReturn(Optional.empty());
+
+        userService.registerClerkUser("user_1", "alice", "alice@example.com", null, null, null, null);
+        userService.findPlayerProfiles(List.of("user_1"));
+
+        verify(userRepository, times(2)).findByClerkUserIdIn(List.of("user_1"));
+    }
+
+    @Test
+    void updatingAUserDropsTheCachedProfile() {
+        userService.findPlayerProfiles(List.of("user_1"));
+        when(userRepository.findByClerkUserId("user_1")).thenReturn(Optional.of(new User("user_1", "alice", "a@example.com")));
+        when(userRepository.existsByUsername(anyString())).thenReturn(false);
+
+        userService.updateUserInfo("user_1", Map.of("username", "alice2"));
+        userService.findPlayerProfiles(List.of("user_1"));
+
+        verify(userRepository, times(2)).findByClerkUserIdIn(List.of("user_1"));
+    }
+
+    @Test
+    void updateOfAnUnknownUserKeepsTheCache() {
+        userService.findPlayerProfiles(List.of("user_1"));
+        when(userRepository.findByClerkUserId("user_1")).thenReturn(Optional.empty());
+
+        assertThat(userService.updateUserInfo("user_1", Map.of("username", "alice2"))).isNull();
+        userService.findPlayerProfiles(List.of("user_1"));
+
+        verify(userRepository, times(1)).findByClerkUserIdIn(anyCollection());
+    }
+
+    private static PlayerProfileDTO profile(String clerkUserId) {
+        return new PlayerProfileDTO("id-" + clerkUserId, clerkUserId, "name-" + clerkUserId, null, null);
+    }
+}
@@ -0,0 +1,121 @@
+package com.gptuessr.ai_game.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class WordVectorTableTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void convertsTextFileToBinaryTable() throws IOException {
+        Path text = glove("""
+            dog 3 4 0
+            beach 0 0 2
+            """);
+
+        WordVectorTable table = WordVectorTable.open(text, 100);
+
+        assertThat(directory.resolve("vectors.txt.gwv")).exists();
+        assertThat(table.getDimensions()).isEqualTo(3);
+        assertThat(table.getWordCount()).isEqualTo(2);
+    }
+
+    @Test
+    void looksUpWordsByHash() throws IOException {
+        WordVectorTable table = WordVectorTable.open(glove("""
+            dog 1 0 0
+            cat 0 1 0
+            beach 0 0 1
+            """), 100);
+
+        assertThat(vector(table, "dog")).containsExactly(1, 0, 0);
+        assertThat(vector(table, "cat")).containsExactly(0, 1, 0);
+        assertThat(vector(table, "beach")).containsExactly(0, 0, 1);
+        assertThat(table.indexOf(hash("piano"))).isEqualTo(-1);
+    }
+
+    @Test
+    void storesUnitLengthVectors() throws IOException {
+        WordVectorTable table = WordVectorTable.open(glove("dog 3 4 0\n"), 100);
+
+        float[] dog = vector(table, "dog");
+        assertThat(dog[0]).isCloseTo(0.6f, within(1e-6f));
+        assertThat(dog[1]).isCloseTo(0.8f, within(1e-6f));
+        assertThat(dog[0] * dog[0] + dog[1] * dog[1] + dog[2] * dog[2]).isCloseTo(1f, within(1e-6f));
+    }
+
+    @Test
+    void skipsHeadersPunctuationAndLaterCaseVariants() throws IOException {
+        WordVectorTable table = WordVectorTable.open(glove("""
+            4 2
+            Dog 1 0
+            , 0 1
+            dog 0 1
+            zero 0 0
+            """), 100);
+
+        assertThat(table.getWordCount()).isEqualTo(1);
+        assertThat(vector(table, "dog")).containsExactly(1, 0);
+        assertThat(table.indexOf(hash("zero"))).isEqualTo(-1);
+    }
+
+    @Test
+    void keepsTheMostFrequentWords() throws IOException {
+        WordVectorTable table = WordVectorTable.open(glove("""
+            dog 1 0
+            cat 0 1
+            beach 1 1
+            """), 2);
+
+        assertThat(table.getWordCount()).isEqualTo(2);
+        assertThat(table.indexOf(hash("beach"))).isEqualTo(-1);
+    }
+
+    @Test
+    void rejectsFilesThatAreNotTables() throws IOException {
+        Path binary = directory.resolve("vectors.gwv");
+        Files.write(binary, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12});
+
+        assertThatThrownBy(() -> WordVectorTable.open(binary, 100))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("is not a word vector table");
+    }
+
+    @Test
+    void rejectsInconsistentVectorLengths() throws IOException {
+        Path text = glove("""
+            dog 1 0 0
+            cat 0 1
+            """);
+
+        assertThatThrownBy(() -> WordVectorTable.open(text, 100))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Inconsistent vector length");
+    }
+
+    private Path glove(String content) throws IOException {
+        return Files.writeString(directory.resolve("vectors.txt"), content);
+    }
+
+    private static float[] vector(WordVectorTable table, String word) {
+        int index = table.indexOf(hash(word));
+        assertThat(index).isGreaterThanOrEqualTo(0);
+        float[] vector = new float[table.getDimensions()];
+        table.addVector(index, vector, 0);
+        return vector;
+    }
+
+    private static long hash(String word) {
+        return LexicalGuessScorer.hash(word.toCharArray(), word.length());
+    }
+}
@@ -0,0 +1,198 @@
+package com.gptuessr.ai_game.util;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClerkApiClientTest {
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    private final AtomicInteger requests = new AtomicInteger();
+
+    // What the stub server does with the next requests
+    private volatile Consumer<HttpExchange> handler = exchange -> respond(exchange, 200);
+
+    private ClerkApiClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            handler.accept(exchange);
+        });
+        server.start();
+
+        client = new ClerkApiClient();
+        ReflectionTestUtils.setField(client, "clerkApiUrl", "http://localhost:" + server.getAddress().getPort());
+        ReflectionTestUtils.setField(client, "clerkApiKey", "sk_test");
+        ReflectionTestUtils.setField(client, "connectTimeoutMs", 500L);
+        ReflectionTestUtils.setField(client, "readTimeoutMs", 300L);
+        ReflectionTestUtils.setField(client, "maxConnections", 10);
+        ReflectionTestUtils.setField(client, "maxConcurrentRequests", 2);
+        ReflectionTestUtils.setField(client, "acquireTimeoutMs", 50L);
+        ReflectionTestUtils.setField(client, "failureThreshold", 3);
+        ReflectionTestUtils.setField(client, "circuitOpenMs", 200L);
+        client.init();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        client.close();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void slowResponsesTimeOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        handler = exchange -> {
+            await(release);
+            respond(exchange, 200);
+        };
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> client.getUser("user_1"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("call failed");
+        release.countDown();
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2000);
+    }
+
+    @Test
+    void concurrentCallsAreBoundedBySemaphore() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch arrived = new CountDownLatch(2);
+        handler = exchange -> {
+            arrived.countDown();
+            await(release);
+            respond(exchange, 200);
+        };
+        ReflectionTestUtils.setField(client, "readTimeoutMs", 5000L);
+        client.init();
+
+        CompletableFuture<?> first = CompletableFuture.runAsync(() -> client.getUser("user_1"));
+        CompletableFuture<?> second = CompletableFuture.runAsync(() -> client.getUser("user_2"));
+        assertThat(arrived.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> client.getUser("user_3"))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("busy");
+        assertThat(requests.get()).isEqualTo(2);
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        assertThat(client.getUser("user_3")).containsEntry("id", "user");
+    }
+
+    @Test
+    void circuitOpensAfterConsecutiveFailures() {
+        handler = exchange -> respond(exchange, 503);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.getUser("user_1")).hasMessageContaining("call failed");
+        }
+        assertThatThrownBy(() -> client.getUser("user_1")).hasMessageContaining("circuit open");
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void clientErrorsDoNotOpenTheCircuit() {
+        handler = exchange -> respond(exchange, 404);
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> client.getUser("user_1"))
+                .isNotInstanceOf(IllegalStateException.class);
+        }
+        assertThat(requests.get()).isEqualTo(5);
+    }
+
+    @Test
+    void halfOpenCircuitLetsOneTrialThroughAndClosesOnSuccess() throws Exception {
+        openCircuit();
+        Thread.sleep(250);
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch arrived = new CountDownLatch(1);
+        handler = exchange -> {
+            arrived.countDown();
+            await(release);
+            respond(exchange, 200);
+        };
+        ReflectionTestUtils.setField(client, "readTimeoutMs", 5000L);
+        client.init();
+        int before = requests.get();
+
+        CompletableFuture<?> trial = CompletableFuture.runAsync(() -> client.getUser("user_1"));
+        assertThat(arrived.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> client.getUser("user_2")).hasMessageContaining("half-open");
+        assertThat(requests.get()).isEqualTo(before + 1);
+
+        release.countDown();
+        trial.get(5, TimeUnit.SECONDS);
+        handler = exchange -> respond(exchange, 200);
+        assertThat(client.getUser("user_2")).containsEntry("id", "user");
+    }
+
+    @Test
+    void failedTrialOpensTheCircuitAgain() throws Exception {
+        openCircuit();
+        Thread.sleep(250);
+        int before = requests.get();
+
+        assertThatThrownBy(() -> client.getUser("user_1")).hasMessageContaining("call failed");
+        assertThatThrownBy(() -> client.getUser("user_1")).hasMessageContaining("circuit open");
+        assertThat(requests.get()).isEqualTo(before + 1);
+    }
+
+    private void openCircuit() {
+        handler = exchange -> respond(exchange, 503);
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.getUser("user_1")).isInstanceOf(IllegalStateException.class);
+        }
+        assertThatThrownBy(() -> client.getUser("user_1")).hasMessageContaining("circuit open");
+    }
+
+    private static void respond(HttpExchange exchange, int status) {
+        try (exchange) {
+            byte[] body = "{\"id\":\"user\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        } catch (IOException e) {
+            // The client gave up on the response
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.gptuessr.ai_game.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ClerkAuthUtilsTest {
+
+    private static final String ISSUER = "https://clerk.example.com";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private KeyPair keyPair;
+
+    private ClerkAuthUtils authUtils;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+
+        ClerkJwksProvider jwksProvider = mock(ClerkJwksProvider.class);
+        when(jwksProvider.getKey("kid-1")).thenReturn((RSAPublicKey) keyPair.getPublic());
+
+        authUtils = new ClerkAuthUtils();
+        ReflectionTestUtils.setField(authUtils, "jwksProvider", jwksProvider);
+        ReflectionTestUtils.setField(authUtils, "objectMapper", objectMapper);
+        ReflectionTestUtils.setField(authUtils, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(authUtils, "issuer", "clerk.example.com/");
+        ReflectionTestUtils.setField(authUtils, "authorizedPartiesList", "https://app.example.com, https://admin.example.com");
+        ReflectionTestUtils.setField(authUtils, "clockSkewSeconds", 5L);
+        ReflectionTestUtils.setField(authUtils, "claimsCacheMaxSize", 100L);
+        authUtils.initClaimsCache();
+    }
+
+    @Test
+    void acceptsSignedTokenFromTheInstance() throws Exception {
+        ClerkClaims claims = authUtils.verifyToken(sign("RS256", payload(ISSUER, "https://app.example.com")));
+
+        assertThat(claims.getUserId()).isEqualTo("user_1");
+        assertThat(claims.getSessionId()).isEqualTo("sess_1");
+    }
+
+    @Test
+    void acceptsTokenWithoutAzp() throws Exception {
+        assertThat(authUtils.verifyToken(sign("RS256", payload(ISSUER, null))).getUserId()).isEqualTo("user_1");
+    }
+
+    @Test
+    void rejectsTokenFromAnotherIssuer() throws Exception {
+        String token = sign("RS256", payload("https://clerk.attacker.dev", null));
+
+        assertThatThrownBy(() -> authUtils.verifyToken(token))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("issuer");
+    }
+
+    @Test
+    void rejectsUnknownAuthorizedParty() throws Exception {
+        String token = sign("RS256", payload(ISSUER, "https://evil.example.com"));
+
+        assertThatThrownBy(() -> authUtils.verifyToken(token))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("authorized party");
+    }
+
+    @Test
+    void rejectsTamperedPayload() throws Exception {
+        String token = sign("RS256", payload(ISSUER, null));
+        String[] parts = token.split("\\.");
+        Map<String, Object> forged = payload(ISSUER, null);
+        forged.put("sub", "user_admin");
+        String tampered = parts[0] + "." + encode(objectMapper.writeValueAsBytes(forged)) + "." + parts[2];
+
+        assertThatThrownBy(() -> authUtils.verifyToken(tampered))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("signature");
+    }
+
+    @Test
+    void rejectsUnsignedToken() throws Exception {
+        String header = encode(objectMapper.writeValueAsBytes(Map.of("alg", "none", "kid", "kid-1")));
+        String token = header + "." + encode(objectMapper.writeValueAsBytes(payload(ISSUER, null))) + ".";
+
+        assertThatThrownBy(() -> authUtils.verifyToken(token))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("algorithm");
+    }
+
+    @Test
+    void rejectsExpiredToken() throws Exception {
+        Map<String, Object> payload = payload(ISSUER, null);
+        payload.put("exp", Instant.now().minusSeconds(60).getEpochSecond());
+        String token = sign("RS256", payload);
+
+        assertThatThrownBy(() -> authUtils.verifyToken(token))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("expired");
+    }
+
+    private Map<String, Object> payload(String issuer, String azp) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("sub", "user_1");
+        payload.put("sid", "sess_1");
+        payload.put("iss", issuer);
+        if (azp != null) {
+            payload.put("azp", azp);
+        }
+        payload.put("exp", Instant.now().plusSeconds(300).getEpochSecond());
+        return payload;
+    }
+
+    private String sign(String alg, Map<String, Object> payload) throws Exception {
+        String signingInput = encode(objectMapper.writeValueAsBytes(Map.of("alg", alg, "kid", "kid-1")))
+            + "." + encode(objectMapper.writeValueAsBytes(payload));
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(keyPair.getPrivate());
+        signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + encode(signer.sign());
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,127 @@
+package com.gptuessr.ai_game.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ClerkResponseCacheTest {
+
+    private ClerkApiClient clerkApiClient;
+
+    private ExecutorService executor;
+
+    private ClerkResponseCache cache;
+
+    @BeforeEach
+    void setUp() {
+        clerkApiClient = mock(ClerkApiClient.class);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        cache = new ClerkResponseCache();
+        ReflectionTestUtils.setField(cache, "clerkApiClient", clerkApiClient);
+        ReflectionTestUtils.setField(cache, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "loaderExecutor", new TaskExecutorAdapter(executor));
+        ReflectionTestUtils.setField(cache, "maxSize", 100L);
+        ReflectionTestUtils.setField(cache, "ttlSeconds", 30L);
+        cache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentLookupsOfOneTokenShareOneCall() throws Exception {
+        String token = token(Instant.now().plusSeconds(60));
+        CountDownLatch release = new CountDownLatch(1);
+        when(clerkApiClient.verifyToken(token)).thenAnswer(invocation -> {
+            release.await();
+            return Map.of("sub", "user_1");
+        });
+
+        List<Thread> callers = new ArrayList<>();
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            callers.add(Thread.ofPlatform().start(() -> {
+                Map<String, Object> result = cache.verifyToken(token);
+                synchronized (results) {
+                    results.add(result);
+                }
+            }));
+        }
+        // Hold the outbound call until every caller is waiting for it
+        while (!callers.stream().allMatch(caller -> caller.getState() == Thread.State.WAITING)) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+
+        assertThat(results).hasSize(16).allSatisfy(result -> assertThat(result).containsEntry("sub", "user_1"));
+        verify(clerkApiClient, times(1)).verifyToken(token);
+    }
+
+    @Test
+    void entryIsNotServedPastTheTokenExpiry() throws Exception {
+        Instant exp = Instant.ofEpochSecond(Instant.now().getEpochSecond() + 2);
+        String token = token(exp);
+        when(clerkApiClient.verifyToken(token)).thenReturn(Map.of("sub", "user_1"));
+
+        cache.verifyToken(token);
+        cache.verifyToken(token);
+        verify(clerkApiClient, times(1)).verifyToken(token);
+
+        Thread.sleep(Math.max(0, exp.toEpochMilli() - System.currentTimeMillis()) + 100);
+        cache.verifyToken(token);
+        verify(clerkApiClient, times(2)).verifyToken(token);
+    }
+
+    @Test
+    void rejectedTokenIsRethrownAndNotCached() {
+        String token = token(Instant.now().plusSeconds(60));
+        HttpClientErrorException rejected = HttpClientErrorException.create(
+            HttpStatus.UNAUTHORIZED, "Unauthorized", null, null, StandardCharsets.UTF_8);
+        when(clerkApiClient.verifyToken(token)).thenThrow(rejected);
+
+        Throwable thrown = catchThrowable(() -> cache.verifyToken(token));
+        assertThat(thrown).isSameAs(rejected);
+
+        assertThatThrownBy(() -> cache.verifyToken(token)).isSameAs(rejected);
+        verify(clerkApiClient, times(2)).verifyToken(token);
+    }
+
+    private static String token(Instant exp) {
+        Base64.Encoder encoder = Base64.getUrlEncoder().withoutPadding();
+        String header = encoder.encodeToString("{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8));
+        String payload = encoder.encodeToString(("{\"sub\":\"user_1\",\"exp\":" + exp.getEpochSecond() + "}")
+            .getBytes(StandardCharsets.UTF_8));
+        return header + "." + payload + ".signature";
+    }
+}
@@ -0,0 +1,176 @@
+package com.gptuessr.ai_game.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gptuessr.ai_game.dto.ClerkWebhookEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ClerkWebhookEventParserTest {
+
+    // Shape of Clerk's user.created sample: nested ids come before the user id
+    private static final String USER_CREATED = """
+        {
+          "data": {
+            "birthday": "",
+            "created_at": 1654012591514,
+            "email_addresses": [
+              {
+                "email_address": "old@example.org",
+                "id": "idn_old",
+                "linked_to": [],
+                "object": "email_address",
+                "verification": {"status": "verified", "strategy": "ticket"}
+              },
+              {
+                "email_address": "example@example.org",
+                "id": "idn_primary",
+                "linked_to": [],
+                "object": "email_address"
+              }
+            ],
+            "external_accounts": [
+              {"provider": "oauth_github", "provider_user_id": "gh-42", "id": "eac_1"}
+            ],
+            "first_name": "Example",
+            "id": "user_29w83sxmDNGwOuEthce5gg56FcC",
+            "image_url": "https://img.clerk.com/xxxxxx",
+            "last_name": "Example",
+            "oauth_accounts": [
+              {"provider": "google", "provider_user_id": "g-7"}
+            ],
+            "primary_email_address_id": "idn_primary",
+            "public_metadata": {"id": "not_the_user"},
+            "username": "example"
+          },
+          "object": "event",
+          "type": "user.created"
+        }
+        """;
+
+    private ClerkWebhookEventParser parser;
+
+    @BeforeEach
+    void setUp() {
+        parser = new ClerkWebhookEventParser();
+        ReflectionTestUtils.setField(parser, "objectMapper", new ObjectMapper());
+    }
+
+    @Test
+    void readsUserCreated() {
+        ClerkWebhookEvent event = parser.parse(USER_CREATED);
+
+        assertThat(event.getType()).isEqualTo("user.created");
+        assertThat(event.getUserId()).isEqualTo("user_29w83sxmDNGwOuEthce5gg56FcC");
+        assertThat(event.getSessionId()).isNull();
+        assertThat(event.getUsername()).isEqualTo("example");
+        assertThat(event.getEmail()).isEqualTo("example@example.org");
+        assertThat(event.getFirstName()).isEqualTo("Example");
+        assertThat(event.getLastName()).isEqualTo("Example");
+        assertThat(event.getProfilePicture()).isEqualTo("https://img.clerk.com/xxxxxx");
+        assertThat(event.getProviderInfo()).containsEntry("oauth_github", "gh-42").containsEntry("google", "g-7").hasSize(2);
+    }
+
+    @Test
+    void readsUserUpdatedWithNullFields() {
+        ClerkWebhookEvent event = parser.parse("""
+            {"type": "user.updated", "data": {"id": "user_1", "username": null, "first_name": "Ada",
+             "last_name": {"unexpected": "object"}, "email_addresses": []}}
+            """);
+
+        assertThat(event.getType()).isEqualTo("user.updated");
+        assertThat(event.getUserId()).isEqualTo("user_1");
+        assertThat(event.getUsername()).isNull();
+        assertThat(event.getFirstName()).isEqualTo("Ada");
+        assertThat(event.getLastName()).isNull();
+        assertThat(event.getEmail()).isNull();
+        assertThat(event.getProviderInfo()).isEmpty();
+    }
+
+    @Test
+    void fallsBackToFirstEmailWithoutPrimaryId() {
+        ClerkWebhookEvent event = parser.parse("""
+            {"type": "user.updated", "data": {"id": "user_1", "email_addresses": [
+              {"id": "idn_1", "email_address": "first@example.org"},
+              {"id": "idn_2", "email_address": "second@example.org"}]}}
+            """);
+
+        assertThat(event.getEmail()).isEqualTo("first@example.org");
+    }
+
+    @Test
+    void readsUserDeleted() {
+        ClerkWebhookEvent event = parser.parse("""
+            {"data": {"deleted": true, "id": "user_1", "object": "user"}, "object": "event", "type": "user.deleted"}
+            """);
+
+        assertThat(event.getType()).isEqualTo("user.deleted");
+        assertThat(event.getUserId()).isEqualTo("user_1");
+    }
+
+    @Test
+    void readsSessionCreated() {
+        ClerkWebhookEvent event = parser.parse("""
+            {"data": {"abandon_at": 1654012591514, "id": "sess_1", "status": "active", "user_id": "user_1"},
+             "object": "event", "type": "session.created"}
+            """);
+
+        assertThat(event.getType()).isEqualTo("session.created");
+        assertThat(event.getUserId()).isEqualTo("user_1");
+        assertThat(event.getSessionId()).isEqualTo("sess_1");
+    }
+
+    @Test
+    void readsSessionEnded() {
+        ClerkWebhookEvent event = parser.parse("""
+            {"type": "session.ended", "data": {"id": "sess_1", "status": "ended", "user_id": "user_1"}}
+            """);
+
+        assertThat(event.getType()).isEqualTo("session.ended");
+        assertThat(event.getUserId()).isEqualTo("user_1");
+        assertThat(event.getSessionId()).isEqualTo("sess_1");
+    }
+
+    @Test
+    void readsUnknownTypeAndMissingData() {
+        ClerkWebhookEvent event = parser.parse("{\"type\": \"organization.created\", \"extra\": [1, 2, {\"id\": \"x\"}]}");
+
+        assertThat(event.getType()).isEqualTo("organization.created");
+        assertThat(event.getUserId()).isNull();
+    }
+
+    @Test
+    void ignoresNonStringType() {
+        ClerkWebhookEvent event = parser.parse("{\"type\": {\"name\": \"user.created\"}, \"data\": {\"id\": \"user_1\"}}");
+
+        assertThat(event.getType()).isNull();
+        assertThat(event.getUserId()).isEqualTo("user_1");
+    }
+
+    @Test
+    void rejectsPayloadThatIsNotAnObject() {
+        assertThatThrownBy(() -> parser.parse("[{\"type\": \"user.created\"}]"))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> parser.parse("\"user.created\""))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> parser.parse(""))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsTruncatedPayload() {
+        String truncated = USER_CREATED.substring(0, USER_CREATED.indexOf("\"first_name\""));
+
+        assertThatThrownBy(() -> parser.parse(truncated)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsInvalidJson() {
+        assertThatThrownBy(() -> parser.parse("{\"type\": user.created}"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageStartingWith("Invalid webhook payload");
+    }
+}
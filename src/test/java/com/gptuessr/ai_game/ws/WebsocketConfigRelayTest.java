@@ -0,0 +1,303 @@
+package com.gptuessr.ai_game.ws;
+
+import com.gptuessr.ai_game.dto.LobbyEventDTO;
+import com.gptuessr.ai_game.entity.Lobby;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.mongo.MongoRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.mongo.MongoAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs two application nodes in relay mode against a stub STOMP broker and checks that an
+ * event published on one node reaches a client connected to the other.
+ */
+class WebsocketConfigRelayTest {
+
+    private StubStompBroker broker;
+
+    private ConfigurableApplicationContext nodeA;
+
+    private ConfigurableApplicationContext nodeB;
+
+    private WebSocketStompClient stompClient;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        broker = new StubStompBroker();
+        nodeA = startNode(broker.getPort());
+        nodeB = startNode(broker.getPort());
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+    }
+
+    @AfterEach
+    void tearDown() {
+        stompClient.stop();
+        nodeA.close();
+        nodeB.close();
+        broker.close();
+    }
+
+    @Test
+    void lobbyEventsReachSubscribersOnOtherNodes() throws Exception {
+        int portB = ((WebServerApplicationContext) nodeB).getWebServer().getPort();
+        StompSession session = stompClient
+            .connectAsync("ws://localhost:" + portB + "/ws/websocket", new StompSessionHandlerAdapter() { })
+            .get(10, TimeUnit.SECONDS);
+
+        BlockingQueue<Map<?, ?>> received = new LinkedBlockingQueue<>();
+        String destination = LobbyEventPublisher.LOBBY_TOPIC_PREFIX + "ABC123";
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            public void handleFrame(StompHeaders headers, Object payload) {
+                received.add((Map<?, ?>) payload);
+            }
+        });
+        // The subscription travels through node B's relay asynchronously
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!broker.hasSubscription(destination) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        Lobby lobby = new Lobby("host", "ABC123", 3, 30);
+        lobby.setSequence(7);
+        nodeA.getBean(LobbyEventPublisher.class).publish(new LobbyEventDTO(LobbyEventDTO.Type.PLAYER_JOINED, lobby, "guest"));
+
+        Map<?, ?> event = received.poll(10, TimeUnit.SECONDS);
+        assertThat(event).isNotNull();
+        assertThat(event.get("type")).isEqualTo("PLAYER_JOINED");
+        assertThat(event.get("lobbyCode")).isEqualTo("ABC123");
+        assertThat(((Number) event.get("sequence")).longValue()).isEqualTo(7L);
+        assertThat(broker.getRejectedDestinations()).isEmpty();
+    }
+
+    private static ConfigurableApplicationContext startNode(int brokerPort) {
+        return new SpringApplicationBuilder(RelayNode.class).run(
+            "--server.port=0",
+            "--spring.main.banner-mode=off",
+            "--websocket.broker.mode=relay",
+            "--websocket.broker.relay.host=localhost",
+            "--websocket.broker.relay.port=" + brokerPort);
+    }
+
+    @Configuration
+    @EnableAutoConfiguration(exclude = {MongoAutoConfiguration.class, MongoDataAutoConfiguration.class,
+        MongoRepositoriesAutoConfiguration.class})
+    @Import({WebsocketConfig.class, LobbyEventPublisher.class})
+    static class RelayNode {
+    }
+
+    /**
+     * Minimal STOMP 1.2 broker that fans out SEND frames to matching subscriptions.
+     * Like RabbitMQ it answers destinations outside /topic and /queue with an ERROR frame.
+     */
+    private static final class StubStompBroker {
+
+        private final ServerSocket serverSocket;
+
+        private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+        private final List<String> rejectedDestinations = new CopyOnWriteArrayList<>();
+
+        private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+
+        private final AtomicLong messageIds = new AtomicLong();
+
+        private record Subscription(Connection connection, String id, String destination) {
+        }
+
+        private StubStompBroker() throws IOException {
+            serverSocket = new ServerSocket(0);
+            Thread.ofVirtual().start(this::accept);
+        }
+
+        int getPort() {
+            return serverSocket.getLocalPort();
+        }
+
+        boolean hasSubscription(String destination) {
+            return subscriptions.stream().anyMatch(subscription -> subscription.destination().equals(destination));
+        }
+
+        List<String> getRejectedDestinations() {
+            return rejectedDestinations;
+        }
+
+        void close() {
+            try {
+                serverSocket.close();
+                for (Socket socket : connections) {
+                    socket.close();
+                }
+            } catch (IOException ignored) {
+                // Shutting down
+            }
+        }
+
+        private void accept() {
+            try {
+                while (true) {
+                    Socket socket = serverSocket.accept();
+                    connections.add(socket);
+                    Connection connection = new Connection(socket);
+                    Thread.ofVirtual().start(connection::read);
+                }
+            } catch (IOException ignored) {
+                // Closed
+            }
+        }
+
+        private static boolean isBrokerDestination(String destination) {
+            return destination != null && (destination.startsWith("/topic/") || destination.startsWith("/queue/"));
+        }
+
+        private final class Connection {
+
+            private final Socket socket;
+
+            private final OutputStream out;
+
+            private Connection(Socket socket) throws IOException {
+                this.socket = socket;
+                this.out = socket.getOutputStream();
+            }
+
+            private void read() {
+                try (InputStream in = socket.getInputStream()) {
+                    while (true) {
+                        String frame = readFrame(in);
+                        if (frame == null) {
+                            break;
+                        }
+                        handle(frame);
+                    }
+                } catch (IOException ignored) {
+                    // Connection closed
+                } finally {
+                    subscriptions.removeIf(subscription -> subscription.connection() == this);
+                    connections.remove(socket);
+                }
+            }
+
+            private void handle(String frame) throws IOException {
+                int headerEnd = frame.indexOf("\n\n");
+                String[] lines = frame.substring(0, headerEnd).split("\n");
+                String body = frame.substring(headerEnd + 2);
+                Map<String, String> headers = new HashMap<>();
+                for (int i = 1; i < lines.length; i++) {
+                    int colon = lines[i].indexOf(':');
+                    headers.putIfAbsent(lines[i].substring(0, colon), lines[i].substring(colon + 1));
+                }
+
+                String destination = headers.get("destination");
+                switch (lines[0]) {
+                    case "CONNECT", "STOMP" -> send("CONNECTED\nversion:1.2\nheart-beat:0,0\n\n");
+                    case "SUBSCRIBE" -> {
+                        if (reject(destination)) {
+                            return;
+                        }
+                        subscriptions.add(new Subscription(this, headers.get("id"), destination));
+                    }
+                    case "UNSUBSCRIBE" -> subscriptions.removeIf(subscription -> subscription.connection() == this
+                        && subscription.id().equals(headers.get("id")));
+                    case "SEND" -> {
+                        if (reject(destination)) {
+                            return;
+                        }
+                        String contentType = headers.getOrDefault("content-type", "application/json");
+                        for (Subscription subscription : subscriptions) {
+                            if (subscription.destination().equals(destination)) {
+                                subscription.connection().send("MESSAGE\ndestination:" + destination
+                                    + "\nsubscription:" + subscription.id()
+                                    + "\nmessage-id:" + messageIds.incrementAndGet()
+                                    + "\ncontent-type:" + contentType
+                                    + "\ncontent-length:" + body.getBytes(StandardCharsets.UTF_8).length
+                                    + "\n\n" + body);
+                            }
+                        }
+                    }
+                    case "DISCONNECT" -> socket.close();
+                    default -> {
+                        // Acknowledgements and transactions are not used by the relay
+                    }
+                }
+            }
+
+            private boolean reject(String destination) throws IOException {
+                if (isBrokerDestination(destination)) {
+                    return false;
+                }
+                rejectedDestinations.add(destination);
+                send("ERROR\nmessage:Unknown destination " + destination + "\n\n");
+                socket.close();
+                return true;
+            }
+
+            private synchronized void send(String frame) throws IOException {
+                out.write(frame.getBytes(StandardCharsets.UTF_8));
+                out.write(0);
+                out.flush();
+            }
+        }
+
+        /**
+         * Read one frame up to its NUL terminator, skipping heart-beat newlines
+         * @return The frame without the terminator, or null at the end of the stream
+         */
+        private static String readFrame(InputStream in) throws IOException {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream();
+            int b;
+            while ((b = in.read()) != -1) {
+                if (b == 0) {
+                    return frame.toString(StandardCharsets.UTF_8).replace("\r\n", "\n");
+                }
+                if (frame.size() == 0 && (b == '\n' || b == '\r')) {
+                    continue;
+                }
+                frame.write(b);
+            }
+            return null;
+        }
+    }
+}